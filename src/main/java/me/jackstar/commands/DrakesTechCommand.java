@@ -6,16 +6,24 @@ import me.jackstar.drakestech.api.DrakesTechApi;
 import me.jackstar.drakestech.api.enchant.TechEnchantmentDefinition;
 import me.jackstar.drakestech.api.guide.TechGuideEntry;
 import me.jackstar.drakestech.api.guide.TechGuideModule;
+import me.jackstar.drakestech.cargo.CargoNode;
 import me.jackstar.drakestech.api.item.TechItemDefinition;
 import me.jackstar.drakestech.api.machine.MachineDefinition;
 import me.jackstar.drakestech.manager.MachineManager;
+import me.jackstar.drakestech.manager.MachineTickScheduler;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemFilterHolder;
 import me.jackstar.drakestech.machines.factory.MachineFactory;
+import me.jackstar.drakestech.machines.impl.NetworkQuantumBridgeMachine;
+import me.jackstar.drakestech.network.CraftingRequestResult;
+import me.jackstar.drakestech.network.ItemFilter;
 import me.jackstar.drakestech.network.TechNetworkService;
 import me.jackstar.drakestech.recipe.TechCraftingRecipeService;
 import me.jackstar.drakestech.recipe.TechRecipeEngine;
 import me.jackstar.drakestech.research.TechResearchService;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.block.Block;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
@@ -27,12 +35,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class DrakesTechCommand implements TabExecutor {
 
+    private static final String ADMIN_PERMISSION = "drakestech.admin";
+    private static final List<String> SUBCOMMANDS = List.of("give", "guide", "search", "research", "list", "craft", "filter",
+            "link", "terminal", "diagnostics", "reload");
+
     private final DrakesTechPlugin plugin;
     private final MachineFactory machineFactory;
     private final MachineManager machineManager;
@@ -51,15 +64,14 @@ public class DrakesTechCommand implements TabExecutor {
     @Override
     public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label,
             @NotNull String[] args) {
-        if (!sender.hasPermission("drakestech.admin")) {
-            MessageUtils.send(sender, "<red>You do not have permission to use this command.</red>");
-            return true;
-        }
-
         if (args.length == 0) {
             sendUsage(sender, label);
             return true;
         }
+        if (!sender.hasPermission(permissionFor(args[0]))) {
+            MessageUtils.send(sender, "<red>You do not have permission to use this command.</red>");
+            return true;
+        }
 
         if ("give".equalsIgnoreCase(args[0])) {
             return handleGive(sender, label, args);
@@ -84,6 +96,18 @@ public class DrakesTechCommand implements TabExecutor {
         if ("diagnostics".equalsIgnoreCase(args[0])) {
             return handleDiagnostics(sender);
         }
+        if ("craft".equalsIgnoreCase(args[0])) {
+            return handleCraft(sender, label, args);
+        }
+        if ("filter".equalsIgnoreCase(args[0])) {
+            return handleFilter(sender, label, args);
+        }
+        if ("link".equalsIgnoreCase(args[0])) {
+            return handleLink(sender, label, args);
+        }
+        if ("terminal".equalsIgnoreCase(args[0])) {
+            return handleTerminal(sender, label, args);
+        }
 
         sendUsage(sender, label);
         return true;
@@ -151,6 +175,149 @@ public class DrakesTechCommand implements TabExecutor {
         return true;
     }
 
+    private boolean handleCraft(CommandSender sender, String label, String[] args) {
+        if (!(sender instanceof Player player)) {
+            MessageUtils.send(sender, "<red>Only players can request network crafts.</red>");
+            return true;
+        }
+
+        int amount = 1;
+        if (args.length >= 2) {
+            try {
+                amount = Math.max(1, Integer.parseInt(args[1]));
+            } catch (NumberFormatException ignored) {
+                MessageUtils.send(sender, "<red>Usage: /" + label + " craft [amount]</red>");
+                return true;
+            }
+        }
+
+        ItemStack item = player.getInventory().getItemInMainHand();
+        if (item.getType().isAir()) {
+            MessageUtils.send(sender, "<red>Hold the item you want crafted.</red>");
+            return true;
+        }
+
+        Block target = player.getTargetBlockExact(6);
+        TechNetworkService networkService = machineManager.getNetworkService();
+        String networkId = target == null ? null : networkService.getNetworkId(target.getLocation()).orElse(null);
+        if (networkId == null) {
+            MessageUtils.send(sender, "<red>Look at a block of a DrakesTech network.</red>");
+            return true;
+        }
+
+        CraftingRequestResult result = networkService.requestCraft(networkId, item, amount);
+        switch (result.status()) {
+            case STARTED -> MessageUtils.send(sender, "<green>Crafting <yellow>" + item.getType().name().toLowerCase(Locale.ROOT)
+                    + "</yellow> x" + amount + " on network <aqua>" + networkId + "</aqua>.</green>");
+            case MISSING_INGREDIENTS -> {
+                String missing = result.missing().stream()
+                        .map(stack -> stack.getType().name().toLowerCase(Locale.ROOT) + " x" + stack.getAmount())
+                        .collect(Collectors.joining(", "));
+                MessageUtils.send(sender, "<red>Missing ingredients:</red> <gray>" + missing + "</gray>");
+            }
+            case NO_PATTERN -> MessageUtils.send(sender, "<red>No Pattern Holder on this network lists that item.</red>");
+            case NO_CRAFTERS -> MessageUtils.send(sender, "<red>This network has no Network Crafter.</red>");
+            case TOO_MANY_JOBS -> MessageUtils.send(sender, "<red>This network is already running its maximum crafting jobs.</red>");
+            case TOO_COMPLEX -> MessageUtils.send(sender, "<red>That request needs too many crafting steps.</red>");
+            case UNKNOWN_NETWORK -> MessageUtils.send(sender, "<red>Look at a block of a DrakesTech network.</red>");
+        }
+        return true;
+    }
+
+    private boolean handleFilter(CommandSender sender, String label, String[] args) {
+        if (!(sender instanceof Player player)) {
+            MessageUtils.send(sender, "<red>Only players can configure bus filters.</red>");
+            return true;
+        }
+
+        Block target = player.getTargetBlockExact(6);
+        AbstractMachine machine = target == null ? null : machineManager.getMachineAt(target).orElse(null);
+        if (!(machine instanceof ItemFilterHolder holder)) {
+            MessageUtils.send(sender, "<red>Look at a network bus or cargo node.</red>");
+            return true;
+        }
+
+        if (args.length < 2) {
+            ItemFilter filter = holder.getItemFilter();
+            String rules = filter.isAcceptAll() ? "none" : String.join(", ", filter.getRules());
+            MessageUtils.send(sender, "<yellow>Filter:</yellow> <gray>" + filter.getMode().name().toLowerCase(Locale.ROOT)
+                    + " [" + rules + "]</gray>");
+            return true;
+        }
+
+        String mode = args[1].toLowerCase(Locale.ROOT);
+        ItemFilter filter;
+        if ("clear".equals(mode)) {
+            filter = ItemFilter.ACCEPT_ALL;
+        } else if ("whitelist".equals(mode) || "blacklist".equals(mode)) {
+            try {
+                filter = ItemFilter.compile(ItemFilter.Mode.valueOf(mode.toUpperCase(Locale.ROOT)),
+                        Arrays.asList(args).subList(2, args.length));
+            } catch (IllegalArgumentException ex) {
+                MessageUtils.send(sender, "<red>Unknown filter rule: <gray>" + ex.getMessage() + "</gray></red>");
+                return true;
+            }
+        } else {
+            MessageUtils.send(sender, "<red>Usage: /" + label + " filter [whitelist|blacklist|clear] [rules...]</red>");
+            return true;
+        }
+
+        holder.setItemFilter(filter);
+        // Buses and cargo routes that were idle under the old filter must look again.
+        machine.markInventoryChanged();
+        if (machine instanceof CargoNode) {
+            machineManager.getCargoTopology().invalidate();
+        }
+        MessageUtils.send(sender, "<green>Filter of <yellow>" + machine.getId() + "</yellow> updated.</green>");
+        return true;
+    }
+
+    private boolean handleLink(CommandSender sender, String label, String[] args) {
+        if (!(sender instanceof Player player)) {
+            MessageUtils.send(sender, "<red>Only players can tune quantum bridges.</red>");
+            return true;
+        }
+        if (args.length < 2) {
+            MessageUtils.send(sender, "<red>Usage: /" + label + " link <frequency|clear></red>");
+            return true;
+        }
+
+        Block target = player.getTargetBlockExact(6);
+        AbstractMachine machine = target == null ? null : machineManager.getMachineAt(target).orElse(null);
+        if (!(machine instanceof NetworkQuantumBridgeMachine bridge)) {
+            MessageUtils.send(sender, "<red>Look at a quantum bridge.</red>");
+            return true;
+        }
+
+        String frequency = "clear".equalsIgnoreCase(args[1]) ? null : args[1].toLowerCase(Locale.ROOT);
+        if (!machineManager.getNetworkService().tuneQuantumBridge(bridge, frequency)) {
+            MessageUtils.send(sender, "<red>Two quantum bridges already use frequency <gray>" + frequency + "</gray>.</red>");
+            return true;
+        }
+        machine.markDirty();
+        MessageUtils.send(sender, frequency == null
+                ? "<green>Quantum bridge unlinked.</green>"
+                : "<green>Quantum bridge tuned to <aqua>" + frequency + "</aqua>.</green>");
+        return true;
+    }
+
+    private boolean handleTerminal(CommandSender sender, String label, String[] args) {
+        if (!(sender instanceof Player player)) {
+            MessageUtils.send(sender, "<red>Only players can search a network terminal.</red>");
+            return true;
+        }
+        if (args.length < 2) {
+            MessageUtils.send(sender, "<red>Usage: /" + label + " terminal <query|clear></red>");
+            return true;
+        }
+
+        String query = "clear".equalsIgnoreCase(args[1]) ? null : String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+        if (!plugin.getTerminalManager().search(player, query)) {
+            MessageUtils.send(sender, "<red>Open a network terminal first.</red>");
+        }
+        return true;
+    }
+
     private boolean handleGuide(CommandSender sender, String[] args) {
         Player target;
         if (args.length >= 2) {
@@ -283,12 +450,36 @@ public class DrakesTechCommand implements TabExecutor {
         MessageUtils.send(sender, "<yellow>DrakesTech diagnostics:</yellow>");
         MessageUtils.send(sender, "<gray>Machine types:</gray> <aqua>" + registeredMachineTypes + "</aqua>");
         MessageUtils.send(sender, "<gray>Placed machines:</gray> <aqua>" + loadedMachines + "</aqua>");
+        MessageUtils.send(sender, "<gray>Active machines (loaded chunks):</gray> <aqua>" + machineManager.getActiveMachines().size() + "</aqua>");
+        MessageUtils.send(sender, "<gray>Dormant machines (not loaded yet):</gray> <aqua>" + machineManager.getDormantMachineCount() + "</aqua>");
+        MachineTickScheduler scheduler = machineManager.getTickScheduler();
+        MessageUtils.send(sender, "<gray>Unsaved machine changes:</gray> <aqua>" + machineManager.getDirtyMachineCount() + "</aqua>");
+        long journalEntries = machineManager.getJournalEntryCount();
+        MessageUtils.send(sender, "<gray>Journal entries buffered:</gray> <aqua>" + (journalEntries < 0 ? "disabled" : journalEntries) + "</aqua>");
+        int activeMachines = machineManager.getActiveMachines().size();
+        int tickingMachines = machineManager.getRegistry().tickingSize();
+        MessageUtils.send(sender, "<gray>Ticking / idle machines:</gray> <aqua>" + tickingMachines
+                + "</aqua> <dark_gray>/</dark_gray> <aqua>" + (activeMachines - tickingMachines) + "</aqua>");
+        MessageUtils.send(sender, "<gray>Machine tick queue:</gray> <aqua>" + scheduler.getLastTickedCount()
+                + "</aqua> <gray>ticked,</gray> <aqua>" + scheduler.getLastPendingCount()
+                + "</aqua> <gray>pending, lag</gray> <aqua>" + scheduler.getLastMaxLagTicks()
+                + "</aqua> <gray>ticks,</gray> <aqua>" + String.format(Locale.ROOT, "%.2f", scheduler.getLastRunNanos() / 1_000_000.0D)
+                + "</aqua> <gray>ms</gray>");
         MessageUtils.send(sender, "<gray>Guide modules:</gray> <aqua>" + guideModules + "</aqua>");
         MessageUtils.send(sender, "<gray>Guide entries:</gray> <aqua>" + guideEntries + "</aqua>");
         MessageUtils.send(sender, "<gray>Enchantments:</gray> <aqua>" + enchantments + "</aqua>");
         MessageUtils.send(sender, "<gray>Tech items:</gray> <aqua>" + items + "</aqua>");
+        MessageUtils.send(sender, "<gray>Energy nodes / links:</gray> <aqua>" + machineManager.getEnergyTopology().getNodeCount()
+                + "</aqua> <dark_gray>/</dark_gray> <aqua>" + machineManager.getEnergyTopology().getEdgeCount() + "</aqua>");
+        MessageUtils.send(sender, "<gray>Energy grids:</gray> <aqua>" + machineManager.getEnergyTopology().getGridCount() + "</aqua>");
+        MessageUtils.send(sender, "<gray>Cargo networks:</gray> <aqua>" + machineManager.getCargoTopology().getNetworkCount()
+                + "</aqua> <gray>(" + machineManager.getCargoTopology().getRouteCount() + " routes)</gray>");
         MessageUtils.send(sender, "<gray>Active networks:</gray> <aqua>" + networkService.getNetworkCount() + "</aqua>");
         MessageUtils.send(sender, "<gray>Network mapped nodes:</gray> <aqua>" + networkService.getMappedNodeCount() + "</aqua>");
+        MessageUtils.send(sender, "<gray>Quantum links:</gray> <aqua>" + networkService.getQuantumLinkCount() + "</aqua>");
+        MessageUtils.send(sender, "<gray>Network items moved (last cycle):</gray> <aqua>" + networkService.getItemsMovedLastCycle() + "</aqua>");
+        MessageUtils.send(sender, "<gray>Crafting jobs / cached recipes:</gray> <aqua>" + networkService.getCraftingJobCount()
+                + "</aqua> <dark_gray>/</dark_gray> <aqua>" + networkService.getCachedCraftingRecipeCount() + "</aqua>");
         MessageUtils.send(sender, "<gray>Research enabled:</gray> <aqua>" + researchService.isEnabled() + "</aqua>");
         if (recipeEngine != null) {
             MessageUtils.send(sender, "<gray>Custom smelting recipes:</gray> <aqua>" + recipeEngine.getCustomSmeltingRecipeCount() + "</aqua>");
@@ -305,15 +496,45 @@ public class DrakesTechCommand implements TabExecutor {
         return true;
     }
 
+    /**
+     * Network subcommands players use on their own machines have their own permissions, granted
+     * by default. Everything else needs {@code drakestech.admin}.
+     */
+    private static String permissionFor(String subcommand) {
+        return switch (subcommand.toLowerCase(Locale.ROOT)) {
+            case "craft" -> "drakestech.craft";
+            case "filter" -> "drakestech.filter";
+            case "link" -> "drakestech.link";
+            case "terminal" -> "drakestech.terminal";
+            default -> ADMIN_PERMISSION;
+        };
+    }
+
     private void sendUsage(CommandSender sender, String label) {
         MessageUtils.send(sender, "<yellow>DrakesTech commands:</yellow>");
-        MessageUtils.send(sender, "<gray>/" + label + " give <player> <machine|item> <id> [amount]</gray>");
-        MessageUtils.send(sender, "<gray>/" + label + " guide [player]</gray>");
-        MessageUtils.send(sender, "<gray>/" + label + " search [player] <query></gray>");
-        MessageUtils.send(sender, "<gray>/" + label + " research <unlock|lock|module|status|list> ...</gray>");
-        MessageUtils.send(sender, "<gray>/" + label + " list <machines|items|modules|entries|enchantments|addons> [module_id]</gray>");
-        MessageUtils.send(sender, "<gray>/" + label + " diagnostics</gray>");
-        MessageUtils.send(sender, "<gray>/" + label + " reload</gray>");
+        if (sender.hasPermission(ADMIN_PERMISSION)) {
+            MessageUtils.send(sender, "<gray>/" + label + " give <player> <machine|item> <id> [amount]</gray>");
+            MessageUtils.send(sender, "<gray>/" + label + " guide [player]</gray>");
+            MessageUtils.send(sender, "<gray>/" + label + " search [player] <query></gray>");
+            MessageUtils.send(sender, "<gray>/" + label + " research <unlock|lock|module|status|list> ...</gray>");
+            MessageUtils.send(sender, "<gray>/" + label + " list <machines|items|modules|entries|enchantments|addons> [module_id]</gray>");
+        }
+        if (sender.hasPermission(permissionFor("craft"))) {
+            MessageUtils.send(sender, "<gray>/" + label + " craft [amount]</gray>");
+        }
+        if (sender.hasPermission(permissionFor("filter"))) {
+            MessageUtils.send(sender, "<gray>/" + label + " filter [whitelist|blacklist|clear] [material|tag:key|item:id...]</gray>");
+        }
+        if (sender.hasPermission(permissionFor("link"))) {
+            MessageUtils.send(sender, "<gray>/" + label + " link <frequency|clear></gray>");
+        }
+        if (sender.hasPermission(permissionFor("terminal"))) {
+            MessageUtils.send(sender, "<gray>/" + label + " terminal <query|clear></gray>");
+        }
+        if (sender.hasPermission(ADMIN_PERMISSION)) {
+            MessageUtils.send(sender, "<gray>/" + label + " diagnostics</gray>");
+            MessageUtils.send(sender, "<gray>/" + label + " reload</gray>");
+        }
     }
 
     private boolean handleResearch(CommandSender sender, String[] args) {
@@ -407,7 +628,11 @@ public class DrakesTechCommand implements TabExecutor {
     public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias,
             @NotNull String[] args) {
         if (args.length == 1) {
-            return matchPrefix(args[0], List.of("give", "guide", "search", "research", "list", "diagnostics", "reload"));
+            List<String> allowed = SUBCOMMANDS.stream().filter(sub -> sender.hasPermission(permissionFor(sub))).toList();
+            return matchPrefix(args[0], allowed);
+        }
+        if (!sender.hasPermission(permissionFor(args[0]))) {
+            return Collections.emptyList();
         }
 
         String sub = args[0].toLowerCase();
@@ -417,6 +642,8 @@ public class DrakesTechCommand implements TabExecutor {
             case "search" -> args.length == 2 ? onlinePlayers(args[1]) : Collections.emptyList();
             case "research" -> tabResearch(args);
             case "list" -> tabList(args);
+            case "filter" -> args.length == 2 ? matchPrefix(args[1], List.of("whitelist", "blacklist", "clear")) : Collections.emptyList();
+            case "terminal" -> args.length == 2 ? matchPrefix(args[1], List.of("clear")) : Collections.emptyList();
             default -> Collections.emptyList();
         };
     }
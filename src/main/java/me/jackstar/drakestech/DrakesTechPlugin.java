@@ -9,14 +9,19 @@ import me.jackstar.drakestech.core.DrakesTechApiService;
 import me.jackstar.drakestech.guide.TechGuideManager;
 import me.jackstar.drakestech.item.TechItemRegistry;
 import me.jackstar.drakestech.listeners.DrakesTechBlockListener;
+import me.jackstar.drakestech.listeners.MachineChunkListener;
+import me.jackstar.drakestech.listeners.MachineWakeListener;
+import me.jackstar.drakestech.listeners.WirelessTerminalListener;
 import me.jackstar.drakestech.manager.MachineManager;
 import me.jackstar.drakestech.machines.factory.MachineFactory;
 import me.jackstar.drakestech.multiblock.MultiblockService;
 import me.jackstar.drakestech.nbt.NbtItemHandler;
+import me.jackstar.drakestech.network.ItemFilter;
 import me.jackstar.drakestech.nbt.PdcNbtItemHandler;
 import me.jackstar.drakestech.recipe.TechCraftingRecipeService;
 import me.jackstar.drakestech.recipe.TechRecipeEngine;
 import me.jackstar.drakestech.research.TechResearchService;
+import me.jackstar.drakestech.terminal.NetworkTerminalManager;
 import me.jackstar.drakestech.tools.TechToolService;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.plugin.ServicePriority;
@@ -49,6 +54,7 @@ public class DrakesTechPlugin extends JavaPlugin {
     private MultiblockService multiblockService;
     private NbtItemHandler nbtItemHandler;
     private TechToolService toolService;
+    private NetworkTerminalManager terminalManager;
 
     @Override
     public void onEnable() {
@@ -67,6 +73,7 @@ public class DrakesTechPlugin extends JavaPlugin {
         logLoading("Loading recipe engine");
         recipeEngine = new TechRecipeEngine(this, itemRegistry);
         craftingRecipeService = new TechCraftingRecipeService(this, itemRegistry);
+        ItemFilter.setTechItemIdReader(itemRegistry::readTechItemId);
 
         logLoading("Loading research service");
         researchService = new TechResearchService(this, settings);
@@ -88,11 +95,14 @@ public class DrakesTechPlugin extends JavaPlugin {
 
         logLoading("Starting machine manager");
         machineManager = new MachineManager(this, machineFactory, settings);
+        machineManager.getNetworkService().setCraftingPatternSource(craftingRecipeService::findPatterns);
         machineManager.start();
         multiblockService = new MultiblockService(this, machineFactory, machineManager);
         multiblockService.reload();
         toolService = new TechToolService(this, apiService, settings, itemRegistry, machineManager);
         toolService.start();
+        terminalManager = new NetworkTerminalManager(this, settings, machineManager);
+        terminalManager.start();
 
         logLoading("Starting addon lifecycle manager");
         addonLifecycleManager = new DrakesTechAddonLifecycleManager(this, apiService, machineManager);
@@ -100,7 +110,7 @@ public class DrakesTechPlugin extends JavaPlugin {
 
         getServer().getScheduler().runTaskLater(this, () -> {
             logLoading("Reloading machines after startup to catch late expansion registrations");
-            machineManager.reloadMachinesFromDisk();
+            machineManager.reloadMachineDefinitions();
         }, 60L);
 
         logLoading("Registering command executors");
@@ -115,6 +125,10 @@ public class DrakesTechPlugin extends JavaPlugin {
 
         logLoading("Registering listeners");
         getServer().getPluginManager().registerEvents(new DrakesTechBlockListener(machineManager, machineFactory, multiblockService), this);
+        getServer().getPluginManager().registerEvents(new MachineChunkListener(machineManager), this);
+        getServer().getPluginManager().registerEvents(new MachineWakeListener(machineManager), this);
+        getServer().getPluginManager().registerEvents(new WirelessTerminalListener(this, settings, itemRegistry, machineManager, terminalManager), this);
+        getServer().getPluginManager().registerEvents(terminalManager, this);
         getServer().getPluginManager().registerEvents(guideManager, this);
         getServer().getPluginManager().registerEvents(researchService, this);
         getServer().getPluginManager().registerEvents(toolService, this);
@@ -139,6 +153,9 @@ public class DrakesTechPlugin extends JavaPlugin {
         if (toolService != null) {
             toolService.stop();
         }
+        if (terminalManager != null) {
+            terminalManager.stop();
+        }
         if (researchService != null) {
             researchService.stop();
         }
@@ -171,6 +188,9 @@ public class DrakesTechPlugin extends JavaPlugin {
         if (toolService != null) {
             toolService.reload();
         }
+        if (terminalManager != null) {
+            terminalManager.start();
+        }
         if (multiblockService != null) {
             multiblockService.reload();
         }
@@ -196,6 +216,10 @@ public class DrakesTechPlugin extends JavaPlugin {
         return craftingRecipeService;
     }
 
+    public NetworkTerminalManager getTerminalManager() {
+        return terminalManager;
+    }
+
     private void saveDefaultResources() {
         File settingsFile = new File(getDataFolder(), "drakestech.yml");
         if (!settingsFile.exists() && getResource("drakestech.yml") != null) {
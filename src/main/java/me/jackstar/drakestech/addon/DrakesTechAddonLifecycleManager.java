@@ -111,7 +111,7 @@ public class DrakesTechAddonLifecycleManager implements Listener {
 
         loadedAddonPlugins.add(plugin.getName());
         if (changed) {
-            machineManager.reloadMachinesFromDisk();
+            machineManager.reloadMachineDefinitions();
         }
         return changed;
     }
@@ -139,7 +139,7 @@ public class DrakesTechAddonLifecycleManager implements Listener {
         loadedAddonPlugins.remove(plugin.getName());
 
         if (changed) {
-            machineManager.reloadMachinesFromDisk();
+            machineManager.reloadMachineDefinitions();
         }
         return changed;
     }
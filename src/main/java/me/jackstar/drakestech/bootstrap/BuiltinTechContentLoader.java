@@ -8,15 +8,25 @@ import me.jackstar.drakestech.api.guide.TechGuideModule;
 import me.jackstar.drakestech.api.item.TechItemDefinition;
 import me.jackstar.drakestech.api.machine.MachineDefinition;
 import me.jackstar.drakestech.config.DrakesTechSettings;
+import me.jackstar.drakestech.machines.ProcessingTier;
+import me.jackstar.drakestech.machines.impl.BulkStorageCellMachine;
 import me.jackstar.drakestech.machines.impl.ElectricFurnace;
+import me.jackstar.drakestech.machines.impl.CargoConnectorMachine;
+import me.jackstar.drakestech.machines.impl.CargoNodeMachine;
+import me.jackstar.drakestech.machines.impl.EnergyCableMachine;
 import me.jackstar.drakestech.machines.impl.NetworkBridgeMachine;
 import me.jackstar.drakestech.machines.impl.NetworkControllerMachine;
+import me.jackstar.drakestech.machines.impl.NetworkCrafterMachine;
 import me.jackstar.drakestech.machines.impl.NetworkExportBusMachine;
 import me.jackstar.drakestech.machines.impl.NetworkImportBusMachine;
+import me.jackstar.drakestech.machines.impl.NetworkPatternHolderMachine;
+import me.jackstar.drakestech.machines.impl.NetworkQuantumBridgeMachine;
+import me.jackstar.drakestech.machines.impl.NetworkTerminalMachine;
 import me.jackstar.drakestech.machines.impl.NetworkStorageBusMachine;
 import me.jackstar.drakestech.machines.impl.ResourceGeneratorMachine;
 import me.jackstar.drakestech.machines.impl.SolarGenerator;
 import me.jackstar.drakestech.machines.impl.TechStorageChestMachine;
+import me.jackstar.drakestech.machines.impl.TieredFurnaceMachine;
 import me.jackstar.drakestech.nbt.NbtItemHandler;
 import me.jackstar.drakestech.recipe.TechRecipeEngine;
 import org.bukkit.Material;
@@ -29,8 +39,10 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public final class BuiltinTechContentLoader {
 
@@ -48,8 +60,13 @@ public final class BuiltinTechContentLoader {
         registerItems(plugin, api, config.getConfigurationSection("items"));
         registerModules(plugin, api, config.getConfigurationSection("modules"));
         registerEnchantments(plugin, api, config.getConfigurationSection("enchantments"));
-        registerMachines(plugin, api, recipeEngine, nbtItemHandler, settings, config.getConfigurationSection("machines"));
+        Map<String, ProcessingTier> tiers = readProcessingTiers(plugin, config.getConfigurationSection("machine-tiers"));
+        registerMachines(plugin, api, recipeEngine, nbtItemHandler, settings, tiers, config.getConfigurationSection("machines"));
         registerNetworkFallbackMachines(plugin, api, settings);
+        registerNetworkFallbackItems(plugin, api, settings);
+        registerEnergyFallbackMachines(plugin, api);
+        registerCargoFallbackMachines(plugin, api);
+        registerProcessingFallbackItems(plugin, api);
         registerGuideEntries(plugin, api, config.getConfigurationSection("entries"));
         registerEnchantmentGuideEntries(plugin, api, config.getBoolean("guide.auto-create-enchantment-entries", true));
     }
@@ -81,7 +98,7 @@ public final class BuiltinTechContentLoader {
     }
 
     private static void registerMachines(JavaPlugin plugin, DrakesTechApi api, TechRecipeEngine recipeEngine,
-            NbtItemHandler nbtItemHandler, DrakesTechSettings settings,
+            NbtItemHandler nbtItemHandler, DrakesTechSettings settings, Map<String, ProcessingTier> tiers,
             ConfigurationSection section) {
         if (section == null) {
             plugin.getLogger().warning("No 'machines' section found in " + CONTENT_FILE_NAME + ".");
@@ -127,6 +144,21 @@ public final class BuiltinTechContentLoader {
                         recipe,
                         machineItem,
                         location -> new ElectricFurnace(location, recipeEngine));
+                case "tiered_furnace" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new TieredFurnaceMachine(
+                                id,
+                                location,
+                                recipeEngine,
+                                resolveTier(plugin, tiers, id, machineSection.getString("tier")),
+                                Math.max(1, machineSection.getInt("ticks-per-cycle", 20)),
+                                Math.max(0.0D, machineSection.getDouble("energy-per-item", 50.0D)),
+                                stack -> TieredFurnaceMachine.SPEED_UPGRADE_ITEM_ID.equals(api.readTechItemId(stack).orElse(null))));
                 case "resource_generator" -> new MachineDefinition(
                         id,
                         moduleId,
@@ -170,6 +202,22 @@ public final class BuiltinTechContentLoader {
                         recipe,
                         machineItem,
                         NetworkBridgeMachine::new);
+                case "network_quantum_bridge" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new NetworkQuantumBridgeMachine(id, location));
+                case "network_terminal" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new NetworkTerminalMachine(id, location));
                 case "network_import_bus" -> new MachineDefinition(
                         id,
                         moduleId,
@@ -177,7 +225,12 @@ public final class BuiltinTechContentLoader {
                         description,
                         recipe,
                         machineItem,
-                        NetworkImportBusMachine::new);
+                        location -> new NetworkImportBusMachine(
+                                id,
+                                location,
+                                Math.max(1, machineSection.getInt("stacks-per-cycle", 9)),
+                                machineSection.getInt("priority", 0),
+                                Math.max(1, machineSection.getInt("weight", 1))));
                 case "network_export_bus" -> new MachineDefinition(
                         id,
                         moduleId,
@@ -186,10 +239,14 @@ public final class BuiltinTechContentLoader {
                         recipe,
                         machineItem,
                         location -> new NetworkExportBusMachine(
+                                id,
                                 location,
                                 Math.max(1,
                                         machineSection.getInt("max-items-per-cycle",
-                                                settings.getNetworkExportMaxItemsPerCycle()))));
+                                                settings.getNetworkExportMaxItemsPerCycle())),
+                                Math.max(1, machineSection.getInt("stacks-per-cycle", 1)),
+                                machineSection.getInt("priority", 0),
+                                Math.max(1, machineSection.getInt("weight", 1))));
                 case "network_storage_bus" -> new MachineDefinition(
                         id,
                         moduleId,
@@ -198,6 +255,62 @@ public final class BuiltinTechContentLoader {
                         recipe,
                         machineItem,
                         NetworkStorageBusMachine::new);
+                case "bulk_storage_cell" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new BulkStorageCellMachine(
+                                id,
+                                location,
+                                Math.max(1, machineSection.getInt("max-types", 63)),
+                                Math.max(1L, machineSection.getLong("capacity", 1_048_576L))));
+                case "network_pattern_holder" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new NetworkPatternHolderMachine(id, location));
+                case "network_crafter" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new NetworkCrafterMachine(
+                                id,
+                                location,
+                                Math.max(1, machineSection.getInt("craft-cycles", 2)),
+                                Math.max(1, machineSection.getInt("batches-per-craft", 8))));
+                case "energy_cable" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        EnergyCableMachine::new);
+                case "cargo_input_node", "cargo_output_node" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new CargoNodeMachine(id, location, "cargo_input_node".equals(template)));
+                case "cargo_connector" -> new MachineDefinition(
+                        id,
+                        moduleId,
+                        displayName,
+                        description,
+                        recipe,
+                        machineItem,
+                        location -> new CargoConnectorMachine(id, location));
                 default -> null;
             };
 
@@ -213,6 +326,47 @@ public final class BuiltinTechContentLoader {
         }
     }
 
+    /**
+     * Reads the machine-tiers section. Tiered machines name one of these ids in their
+     * {@code tier} key.
+     */
+    private static Map<String, ProcessingTier> readProcessingTiers(JavaPlugin plugin, ConfigurationSection section) {
+        Map<String, ProcessingTier> tiers = new HashMap<>();
+        tiers.put(ProcessingTier.BASIC.id(), ProcessingTier.BASIC);
+        if (section == null) {
+            return tiers;
+        }
+
+        for (String id : section.getKeys(false)) {
+            ConfigurationSection tierSection = section.getConfigurationSection(id);
+            String tierId = normalize(id);
+            if (tierSection == null || tierId == null) {
+                continue;
+            }
+            tiers.put(tierId, new ProcessingTier(
+                    tierId,
+                    tierSection.getInt("lanes", 1),
+                    tierSection.getInt("batch-size", 1),
+                    tierSection.getDouble("speed-multiplier", 1.0D),
+                    tierSection.getInt("upgrade-slots", 0),
+                    tierSection.getDouble("upgrade-speed-bonus", 0.25D),
+                    tierSection.getDouble("max-energy", 5_000.0D),
+                    tierSection.getDouble("max-energy-input", 0.0D)));
+        }
+        plugin.getLogger().info("Loaded machine tiers: " + tiers.size());
+        return tiers;
+    }
+
+    private static ProcessingTier resolveTier(JavaPlugin plugin, Map<String, ProcessingTier> tiers, String machineId,
+            String rawTier) {
+        ProcessingTier tier = tiers.get(normalize(rawTier));
+        if (tier == null) {
+            plugin.getLogger().warning("Machine '" + machineId + "' uses unknown tier '" + rawTier + "'. Using basic.");
+            return ProcessingTier.BASIC;
+        }
+        return tier;
+    }
+
     private static void registerEnchantments(JavaPlugin plugin, DrakesTechApi api, ConfigurationSection section) {
         if (section == null) {
             plugin.getLogger().warning("No 'enchantments' section found in " + CONTENT_FILE_NAME + ".");
@@ -364,6 +518,24 @@ public final class BuiltinTechContentLoader {
                 List.of("<gray>Use as low-cost connector between buses and storage.</gray>"),
                 NetworkBridgeMachine::new);
 
+        registerFallbackMachine(plugin, api,
+                "network_quantum_bridge",
+                "machines",
+                "<dark_purple><b>Quantum Bridge</b></dark_purple>",
+                Material.RESPAWN_ANCHOR,
+                List.of("<gray>Links its network to the bridge on the same frequency, in any world.</gray>"),
+                List.of("<gray>Tune two bridges with /drakestech link <frequency>.</gray>"),
+                NetworkQuantumBridgeMachine::new);
+
+        registerFallbackMachine(plugin, api,
+                "network_terminal",
+                "machines",
+                "<aqua><b>Network Terminal</b></aqua>",
+                Material.CARTOGRAPHY_TABLE,
+                List.of("<gray>Browse, take and deposit the items stored in its network.</gray>"),
+                List.of("<gray>Right-click to open; search with /drakestech terminal <query>.</gray>"),
+                NetworkTerminalMachine::new);
+
         registerFallbackMachine(plugin, api,
                 "network_import_bus",
                 "machines",
@@ -379,7 +551,7 @@ public final class BuiltinTechContentLoader {
                 "<aqua><b>Network Export Bus</b></aqua>",
                 Material.DROPPER,
                 List.of("<gray>Template-based item export from the network.</gray>"),
-                List.of("<gray>Put template in slot 1, output appears in slot 2.</gray>"),
+                List.of("<gray>Put template in slot 1, output appears in slots 2-9.</gray>"),
                 location -> new NetworkExportBusMachine(location, settings.getNetworkExportMaxItemsPerCycle()));
 
         registerFallbackMachine(plugin, api,
@@ -390,6 +562,109 @@ public final class BuiltinTechContentLoader {
                 List.of("<gray>Exposes one adjacent vanilla inventory to the network.</gray>"),
                 List.of("<gray>Place adjacent to chest/barrel/shulker container.</gray>"),
                 NetworkStorageBusMachine::new);
+
+        registerFallbackMachine(plugin, api,
+                "bulk_storage_cell",
+                "machines",
+                "<dark_aqua><b>Bulk Storage Cell</b></dark_aqua>",
+                Material.CRYING_OBSIDIAN,
+                List.of("<gray>Stores up to 63 item types as counters instead of stacks.</gray>"),
+                List.of("<gray>Connect to a network; fill it with Import Buses.</gray>"),
+                location -> new BulkStorageCellMachine("bulk_storage_cell", location, 63, 1_048_576L));
+
+        registerFallbackMachine(plugin, api,
+                "network_pattern_holder",
+                "machines",
+                "<light_purple><b>Network Pattern Holder</b></light_purple>",
+                Material.LECTERN,
+                List.of("<gray>Lists the items its network may autocraft.</gray>"),
+                List.of("<gray>Put one of each craftable item into its slots.</gray>"),
+                NetworkPatternHolderMachine::new);
+
+        registerFallbackMachine(plugin, api,
+                "network_crafter",
+                "machines",
+                "<gold><b>Network Crafter</b></gold>",
+                Material.CRAFTING_TABLE,
+                List.of("<gray>Runs autocrafting steps for its network.</gray>"),
+                List.of("<gray>More crafters run more steps in parallel.</gray>"),
+                NetworkCrafterMachine::new);
+    }
+
+    private static void registerNetworkFallbackItems(JavaPlugin plugin, DrakesTechApi api, DrakesTechSettings settings) {
+        String terminalId = settings.getNetworkWirelessItemId();
+        if (api.findTechItem(terminalId).isPresent()) {
+            return;
+        }
+        boolean ok = api.registerTechItem(plugin, new TechItemDefinition(
+                terminalId,
+                "<aqua><b>Wireless Terminal</b></aqua>",
+                Material.RECOVERY_COMPASS,
+                List.of("<gray>Sneak + right-click a network block to bind.</gray>",
+                        "<gray>Right-click to browse the bound network.</gray>"),
+                0,
+                true));
+        if (!ok) {
+            plugin.getLogger().warning("Failed to register fallback item '" + terminalId + "'.");
+        }
+    }
+
+    private static void registerProcessingFallbackItems(JavaPlugin plugin, DrakesTechApi api) {
+        String upgradeId = TieredFurnaceMachine.SPEED_UPGRADE_ITEM_ID;
+        if (api.findTechItem(upgradeId).isPresent()) {
+            return;
+        }
+        boolean ok = api.registerTechItem(plugin, new TechItemDefinition(
+                upgradeId,
+                "<yellow><b>Speed Upgrade</b></yellow>",
+                Material.SUGAR,
+                List.of("<gray>Place in the upgrade row of a tiered machine.</gray>",
+                        "<gray>Each installed upgrade shortens its cycle.</gray>"),
+                0,
+                true));
+        if (!ok) {
+            plugin.getLogger().warning("Failed to register fallback item '" + upgradeId + "'.");
+        }
+    }
+
+    private static void registerEnergyFallbackMachines(JavaPlugin plugin, DrakesTechApi api) {
+        registerFallbackMachine(plugin, api,
+                "energy_cable",
+                "machines",
+                "<gold><b>Energy Cable</b></gold>",
+                Material.LIGHTNING_ROD,
+                List.of("<gray>Joins adjacent generators, batteries and machines into one energy grid.</gray>"),
+                List.of("<gray>Chain cables to carry energy between distant machines.</gray>"),
+                EnergyCableMachine::new);
+    }
+
+    private static void registerCargoFallbackMachines(JavaPlugin plugin, DrakesTechApi api) {
+        registerFallbackMachine(plugin, api,
+                "cargo_input_node",
+                "machines",
+                "<green><b>Cargo Input Node</b></green>",
+                Material.STICKY_PISTON,
+                List.of("<gray>Pulls items out of the machine it faces into its cargo network.</gray>"),
+                List.of("<gray>Place against a machine; right-click with an empty hand to rotate.</gray>"),
+                CargoNodeMachine::input);
+
+        registerFallbackMachine(plugin, api,
+                "cargo_output_node",
+                "machines",
+                "<gold><b>Cargo Output Node</b></gold>",
+                Material.PISTON,
+                List.of("<gray>Pushes cargo items into the machine it faces, nearest node first.</gray>"),
+                List.of("<gray>Place against a machine; right-click with an empty hand to rotate.</gray>"),
+                CargoNodeMachine::output);
+
+        registerFallbackMachine(plugin, api,
+                "cargo_connector",
+                "machines",
+                "<gray><b>Cargo Connector</b></gray>",
+                Material.IRON_BARS,
+                List.of("<gray>Joins adjacent cargo nodes into one cargo network.</gray>"),
+                List.of("<gray>Chain connectors to route items between distant nodes.</gray>"),
+                CargoConnectorMachine::new);
     }
 
     private static void registerFallbackMachine(JavaPlugin plugin,
@@ -0,0 +1,7 @@
+package me.jackstar.drakestech.cargo;
+
+/**
+ * Marker for machines that join adjacent cargo nodes into one cargo network.
+ */
+public interface CargoConnector {
+}
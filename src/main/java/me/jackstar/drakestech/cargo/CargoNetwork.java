@@ -0,0 +1,176 @@
+package me.jackstar.drakestech.cargo;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.manager.MachineRegistry;
+import me.jackstar.drakestech.network.ItemFilter;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One connected group of cargo nodes and connectors. Every input node owns a route listing the
+ * output nodes it can reach, nearest first, compiled by {@link CargoTopology} when the layout
+ * changes. A cycle walks the routes in order and never looks at blocks or neighbours. A route
+ * that could not move anything is skipped until the inventory version of its source or of
+ * one of its sinks changes.
+ */
+public class CargoNetwork {
+
+    private final List<Route> routes;
+    private final int sinkCount;
+
+    CargoNetwork(List<Route> routes) {
+        this.routes = routes;
+        int sinks = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            sinks += routes.get(i).sinks().length;
+        }
+        this.sinkCount = sinks;
+    }
+
+    public int getRouteCount() {
+        return sinkCount;
+    }
+
+    /**
+     * Moves up to {@code maxItemsPerRoute} items along each route. Machines whose inventory
+     * changed are added to {@code touched} so the caller wakes and marks them once per cycle.
+     */
+    void tick(MachineRegistry registry, int maxItemsPerRoute, Set<AbstractMachine> touched) {
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            Endpoint source = route.source();
+            if (!source.isActive(registry)) {
+                continue;
+            }
+            int sourceVersion = source.machine().getInventoryVersion();
+            int sinkVersions = route.sinkVersions();
+            if (route.idle && route.idleSourceVersion == sourceVersion && route.idleSinkVersions == sinkVersions) {
+                continue;
+            }
+
+            boolean complete = true;
+            MachineInventory from = source.machine().getMachineInventory();
+            ItemFilter pull = source.cargo().getItemFilter();
+            int budget = maxItemsPerRoute;
+            for (int slot : source.transport().getOutputSlots()) {
+                if (budget <= 0) {
+                    break;
+                }
+                if (slot < 0 || slot >= from.getSize()) {
+                    continue;
+                }
+                ItemStack stack = from.getItem(slot);
+                if (stack == null || stack.getType().isAir() || !pull.accepts(stack)) {
+                    continue;
+                }
+
+                int left = stack.getAmount();
+                for (Endpoint sink : route.sinks()) {
+                    if (budget <= 0 || left <= 0) {
+                        break;
+                    }
+                    if (!sink.isActive(registry)) {
+                        complete = false;
+                        continue;
+                    }
+                    if (!sink.cargo().getItemFilter().accepts(stack)) {
+                        continue;
+                    }
+                    int moved = insert(sink, stack, Math.min(budget, left));
+                    if (moved > 0) {
+                        left -= moved;
+                        budget -= moved;
+                        touched.add(sink.machine());
+                    }
+                }
+                if (left != stack.getAmount()) {
+                    if (left <= 0) {
+                        from.setItem(slot, null);
+                    } else {
+                        stack.setAmount(left);
+                        from.setItem(slot, stack);
+                    }
+                    touched.add(source.machine());
+                }
+            }
+
+            // With budget left every movable item moved, so nothing changes until an inventory does.
+            route.idle = complete && budget > 0;
+            route.idleSourceVersion = sourceVersion;
+            route.idleSinkVersions = sinkVersions;
+        }
+    }
+
+    private static int insert(Endpoint sink, ItemStack stack, int limit) {
+        MachineInventory inventory = sink.machine().getMachineInventory();
+        int[] slots = sink.transport().getInputSlots();
+        ItemStack probe = null;
+        int moved = 0;
+        // Top up matching stacks first, then open empty slots.
+        for (int pass = 0; pass < 2 && moved < limit; pass++) {
+            boolean emptyPass = pass == 1;
+            for (int slot : slots) {
+                if (moved >= limit) {
+                    break;
+                }
+                if (slot < 0 || slot >= inventory.getSize()) {
+                    continue;
+                }
+                if (inventory.isEmpty(slot) != emptyPass || inventory.space(slot, stack) <= 0) {
+                    continue;
+                }
+                if (probe == null) {
+                    probe = stack.clone();
+                }
+                if (!sink.transport().canAcceptInput(slot, probe)) {
+                    continue;
+                }
+                moved += inventory.insert(slot, stack, limit - moved);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * A cargo node and the machine it faces.
+     */
+    record Endpoint(AbstractMachine node, CargoNode cargo, AbstractMachine machine, ItemTransportNode transport) {
+
+        boolean isActive(MachineRegistry registry) {
+            return registry.isActive(node) && registry.isActive(machine);
+        }
+    }
+
+    static final class Route {
+        private final Endpoint source;
+        private final Endpoint[] sinks;
+        private boolean idle;
+        private int idleSourceVersion;
+        private int idleSinkVersions;
+
+        Route(Endpoint source, Endpoint[] sinks) {
+            this.source = source;
+            this.sinks = sinks;
+        }
+
+        Endpoint source() {
+            return source;
+        }
+
+        Endpoint[] sinks() {
+            return sinks;
+        }
+
+        private int sinkVersions() {
+            int hash = 1;
+            for (Endpoint sink : sinks) {
+                hash = 31 * hash + sink.machine().getInventoryVersion();
+            }
+            return hash;
+        }
+    }
+}
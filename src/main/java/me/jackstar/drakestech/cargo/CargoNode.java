@@ -0,0 +1,17 @@
+package me.jackstar.drakestech.cargo;
+
+import me.jackstar.drakestech.machines.ItemFilterHolder;
+import me.jackstar.drakestech.machines.Rotation;
+
+/**
+ * Cargo endpoint attached to the machine it faces. Input nodes pull from that machine's
+ * output slots, output nodes push into its input slots.
+ */
+public interface CargoNode extends ItemFilterHolder {
+
+    boolean isInput();
+
+    Rotation getFacing();
+
+    void setFacing(Rotation facing);
+}
@@ -0,0 +1,217 @@
+package me.jackstar.drakestech.cargo;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.Rotation;
+import me.jackstar.drakestech.manager.MachineRegistry;
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cargo nodes and connectors grouped into {@link CargoNetwork}s. Placing or breaking a cargo
+ * machine, or a machine a node could face, only marks the layout stale; networks and their
+ * routes are rebuilt on the next cycle.
+ */
+public class CargoTopology {
+
+    private static final BlockFace[] ADJACENT_FACES = {
+            BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP, BlockFace.DOWN
+    };
+
+    private final MachineRegistry registry;
+    private final Set<AbstractMachine> members = new LinkedHashSet<>();
+    private final List<CargoNetwork> networks = new ArrayList<>();
+    private final Set<AbstractMachine> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean dirty;
+
+    public CargoTopology(MachineRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void add(AbstractMachine machine) {
+        if (isMember(machine)) {
+            members.add(machine);
+            dirty = true;
+        } else if (!members.isEmpty() && machine instanceof ItemTransportNode) {
+            dirty = true;
+        }
+    }
+
+    public void remove(AbstractMachine machine) {
+        if (members.remove(machine) || (!members.isEmpty() && machine instanceof ItemTransportNode)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Rebuilds routes on the next cycle, e.g. after a node was rotated.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public void clear() {
+        members.clear();
+        networks.clear();
+        touched.clear();
+        dirty = false;
+    }
+
+    public List<CargoNetwork> getNetworks() {
+        if (dirty) {
+            build();
+        }
+        return networks;
+    }
+
+    public int getNetworkCount() {
+        return getNetworks().size();
+    }
+
+    public int getRouteCount() {
+        int routes = 0;
+        List<CargoNetwork> current = getNetworks();
+        for (int i = 0; i < current.size(); i++) {
+            routes += current.get(i).getRouteCount();
+        }
+        return routes;
+    }
+
+    public void tick(int maxItemsPerRoute) {
+        List<CargoNetwork> current = getNetworks();
+        for (int i = 0; i < current.size(); i++) {
+            current.get(i).tick(registry, maxItemsPerRoute, touched);
+        }
+        if (touched.isEmpty()) {
+            return;
+        }
+        for (AbstractMachine machine : touched) {
+            machine.wake();
+            machine.markInventoryChanged();
+        }
+        touched.clear();
+    }
+
+    private void build() {
+        networks.clear();
+        Set<AbstractMachine> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (AbstractMachine start : members) {
+            if (!visited.add(start)) {
+                continue;
+            }
+
+            List<AbstractMachine> component = new ArrayList<>();
+            component.add(start);
+            for (int head = 0; head < component.size(); head++) {
+                for (AbstractMachine adjacent : neighbours(component.get(head))) {
+                    if (visited.add(adjacent)) {
+                        component.add(adjacent);
+                    }
+                }
+            }
+
+            List<CargoNetwork.Route> routes = compileRoutes(component);
+            if (!routes.isEmpty()) {
+                networks.add(new CargoNetwork(routes));
+            }
+        }
+        dirty = false;
+    }
+
+    /**
+     * One route per input node, listing reachable output nodes by hop distance. Output nodes
+     * facing the same machine as the input are left out.
+     */
+    private List<CargoNetwork.Route> compileRoutes(List<AbstractMachine> component) {
+        Map<AbstractMachine, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < component.size(); i++) {
+            indexOf.put(component.get(i), i);
+        }
+        int[][] adjacency = new int[component.size()][];
+        CargoNetwork.Endpoint[] endpoints = new CargoNetwork.Endpoint[component.size()];
+        boolean hasOutput = false;
+        for (int i = 0; i < component.size(); i++) {
+            List<AbstractMachine> adjacent = neighbours(component.get(i));
+            adjacency[i] = new int[adjacent.size()];
+            for (int j = 0; j < adjacent.size(); j++) {
+                adjacency[i][j] = indexOf.get(adjacent.get(j));
+            }
+            endpoints[i] = endpoint(component.get(i));
+            hasOutput |= endpoints[i] != null && !endpoints[i].cargo().isInput();
+        }
+        if (!hasOutput) {
+            return List.of();
+        }
+
+        List<CargoNetwork.Route> routes = new ArrayList<>();
+        int[] queue = new int[component.size()];
+        boolean[] seen = new boolean[component.size()];
+        for (int start = 0; start < component.size(); start++) {
+            CargoNetwork.Endpoint source = endpoints[start];
+            if (source == null || !source.cargo().isInput()) {
+                continue;
+            }
+
+            // Breadth-first order is already nearest-first.
+            Arrays.fill(seen, false);
+            List<CargoNetwork.Endpoint> sinks = new ArrayList<>();
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            seen[start] = true;
+            while (head < tail) {
+                int index = queue[head++];
+                CargoNetwork.Endpoint sink = endpoints[index];
+                if (sink != null && !sink.cargo().isInput() && sink.machine() != source.machine()) {
+                    sinks.add(sink);
+                }
+                for (int adjacent : adjacency[index]) {
+                    if (!seen[adjacent]) {
+                        seen[adjacent] = true;
+                        queue[tail++] = adjacent;
+                    }
+                }
+            }
+            if (!sinks.isEmpty()) {
+                routes.add(new CargoNetwork.Route(source, sinks.toArray(new CargoNetwork.Endpoint[0])));
+            }
+        }
+        return routes;
+    }
+
+    private List<AbstractMachine> neighbours(AbstractMachine machine) {
+        List<AbstractMachine> adjacent = new ArrayList<>(ADJACENT_FACES.length);
+        for (BlockFace face : ADJACENT_FACES) {
+            AbstractMachine neighbour = registry.getRelative(machine, face.getModX(), face.getModY(), face.getModZ());
+            if (neighbour != null && members.contains(neighbour)) {
+                adjacent.add(neighbour);
+            }
+        }
+        return adjacent;
+    }
+
+    private CargoNetwork.Endpoint endpoint(AbstractMachine machine) {
+        if (!(machine instanceof CargoNode cargo)) {
+            return null;
+        }
+        Rotation facing = cargo.getFacing();
+        AbstractMachine target = registry.getRelative(machine, facing.getModX(), 0, facing.getModZ());
+        if (!(target instanceof ItemTransportNode transport) || target.getMachineInventory() == null) {
+            return null;
+        }
+        return new CargoNetwork.Endpoint(machine, cargo, target, transport);
+    }
+
+    private static boolean isMember(AbstractMachine machine) {
+        return machine instanceof CargoNode || machine instanceof CargoConnector;
+    }
+}
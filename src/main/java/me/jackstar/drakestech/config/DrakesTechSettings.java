@@ -1,5 +1,6 @@
 package me.jackstar.drakestech.config;
 
+import me.jackstar.drakestech.energy.EnergyDistributionPolicy;
 import org.bukkit.Material;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
@@ -30,11 +31,37 @@ public class DrakesTechSettings {
     private boolean automationItemTransferEnabled = true;
     private int automationItemTransferIntervalTicks = 10;
     private int automationItemTransferMaxItemsPerMove = 8;
+    private boolean automationItemTransferAdjacent = true;
     private boolean techStorageOnlyPluginItems = true;
+    private boolean machineChunkAwareTicking = true;
+    private boolean machineCatchUpEnabled = true;
+    private long machineCatchUpMaxTicks = 72_000L;
+    private String machinePersistenceBackend = "binary";
+    private long machineSaveIntervalTicks = 200L;
+    private boolean machineJournalEnabled = true;
+    private long machineJournalFlushIntervalTicks = 10L;
+    private boolean machineJournalFsync = false;
+    private double machineTickBudgetMillis = 2.0D;
+    private int machineMaxElapsedTicks = 20;
+    private boolean energyGridDistribution = true;
+    private EnergyDistributionPolicy energyDistributionPolicy = EnergyDistributionPolicy.FAIR_SHARE;
+    private double energyMaxTransferPerNode = 20.0D;
     private boolean networkEnabled = true;
     private int networkCycleIntervalTicks = 10;
     private int networkMaxNodesPerNetwork = 1024;
     private int networkExportMaxItemsPerCycle = 64;
+    private int networkCatalogReconcileCycles = 20;
+    private long networkBandwidthItemsPerCycle = 4096L;
+    private int networkBulkCellPriority = 30;
+    private int networkTechStoragePriority = 20;
+    private int networkStorageBusPriority = 10;
+    private int networkCraftingMaxJobsPerNetwork = 4;
+    private int networkCraftingMaxPlanSteps = 64;
+    private int networkCraftingRecipeCacheSize = 256;
+    private String networkWirelessItemId = "wireless_terminal";
+    private int networkWirelessRange = 64;
+    private boolean networkWirelessCrossWorld;
+    private int networkTerminalRefreshIntervalTicks = 20;
     private boolean toolsEnabled = true;
     private boolean drillMk1Enabled = true;
     private String drillMk1ItemId = "drill_mk1_3x3";
@@ -92,12 +119,49 @@ public class DrakesTechSettings {
         automationItemTransferEnabled = config.getBoolean("automation.item-transfer.enabled", true);
         automationItemTransferIntervalTicks = Math.max(1, config.getInt("automation.item-transfer.interval-ticks", 10));
         automationItemTransferMaxItemsPerMove = Math.max(1, config.getInt("automation.item-transfer.max-items-per-move", 8));
+        // Configs written before cargo nodes existed have no mode and keep the old adjacent transfer.
+        String transferMode = config.getString("automation.item-transfer.mode");
+        if (transferMode == null) {
+            plugin.getLogger().warning("automation.item-transfer.mode is not set in drakestech.yml; using legacy 'adjacent' "
+                    + "item transfer. Set it to 'cargo' to move items only through cargo nodes.");
+        }
+        automationItemTransferAdjacent = transferMode == null || "adjacent".equalsIgnoreCase(transferMode.trim());
         techStorageOnlyPluginItems = config.getBoolean("automation.tech-storage.only-plugin-items", true);
 
+        machineChunkAwareTicking = config.getBoolean("machines.ticking.chunk-aware", true);
+        machinePersistenceBackend = "yaml".equalsIgnoreCase(config.getString("machines.persistence.backend", "binary").trim())
+                ? "yaml"
+                : "binary";
+        machineSaveIntervalTicks = Math.max(20L, config.getLong("machines.persistence.save-interval-ticks", 200L));
+        machineJournalEnabled = config.getBoolean("machines.persistence.journal.enabled", true);
+        machineJournalFlushIntervalTicks = Math.max(1L, config.getLong("machines.persistence.journal.flush-interval-ticks", 10L));
+        machineJournalFsync = config.getBoolean("machines.persistence.journal.fsync", false);
+        machineTickBudgetMillis = Math.max(0.0D, config.getDouble("machines.ticking.budget-ms", 2.0D));
+        machineMaxElapsedTicks = Math.max(1, config.getInt("machines.ticking.max-elapsed-ticks", 20));
+        machineCatchUpEnabled = config.getBoolean("machines.ticking.catch-up.enabled", true);
+        machineCatchUpMaxTicks = Math.max(0L, config.getLong("machines.ticking.catch-up.max-ticks", 72_000L));
+
+        energyGridDistribution = !"adjacent".equalsIgnoreCase(config.getString("energy.distribution.mode", "grid").trim());
+        energyDistributionPolicy = EnergyDistributionPolicy.parse(
+                config.getString("energy.distribution.policy", "fair-share"), EnergyDistributionPolicy.FAIR_SHARE);
+        energyMaxTransferPerNode = Math.max(1.0D, config.getDouble("energy.distribution.max-transfer-per-node", 20.0D));
+
         networkEnabled = config.getBoolean("network.enabled", true);
         networkCycleIntervalTicks = Math.max(1, config.getInt("network.cycle-interval-ticks", 10));
         networkMaxNodesPerNetwork = Math.max(8, config.getInt("network.max-nodes-per-network", 1024));
         networkExportMaxItemsPerCycle = Math.max(1, config.getInt("network.export.max-items-per-cycle", 64));
+        networkCatalogReconcileCycles = Math.max(1, config.getInt("network.catalog.reconcile-interval-cycles", 20));
+        networkBandwidthItemsPerCycle = Math.max(1L, config.getLong("network.bandwidth.items-per-cycle", 4096L));
+        networkBulkCellPriority = config.getInt("network.bandwidth.storage-priority.bulk-cell", 30);
+        networkTechStoragePriority = config.getInt("network.bandwidth.storage-priority.tech-storage", 20);
+        networkStorageBusPriority = config.getInt("network.bandwidth.storage-priority.storage-bus", 10);
+        networkCraftingMaxJobsPerNetwork = Math.max(1, config.getInt("network.crafting.max-jobs-per-network", 4));
+        networkCraftingMaxPlanSteps = Math.max(1, config.getInt("network.crafting.max-plan-steps", 64));
+        networkCraftingRecipeCacheSize = Math.max(16, config.getInt("network.crafting.recipe-cache-size", 256));
+        networkWirelessItemId = normalizeId(config.getString("network.wireless.item-id"), "wireless_terminal");
+        networkWirelessRange = Math.max(0, config.getInt("network.wireless.range", 64));
+        networkWirelessCrossWorld = config.getBoolean("network.wireless.cross-world", false);
+        networkTerminalRefreshIntervalTicks = Math.max(1, config.getInt("network.terminal.refresh-interval-ticks", 20));
 
         toolsEnabled = config.getBoolean("tools.enabled", true);
 
@@ -183,10 +247,66 @@ public class DrakesTechSettings {
         return automationItemTransferMaxItemsPerMove;
     }
 
+    public boolean isAutomationItemTransferAdjacent() {
+        return automationItemTransferAdjacent;
+    }
+
     public boolean isTechStorageOnlyPluginItems() {
         return techStorageOnlyPluginItems;
     }
 
+    public boolean isMachineChunkAwareTicking() {
+        return machineChunkAwareTicking;
+    }
+
+    public String getMachinePersistenceBackend() {
+        return machinePersistenceBackend;
+    }
+
+    public long getMachineSaveIntervalTicks() {
+        return machineSaveIntervalTicks;
+    }
+
+    public boolean isMachineJournalEnabled() {
+        return machineJournalEnabled;
+    }
+
+    public long getMachineJournalFlushIntervalTicks() {
+        return machineJournalFlushIntervalTicks;
+    }
+
+    public boolean isMachineJournalFsync() {
+        return machineJournalFsync;
+    }
+
+    public double getMachineTickBudgetMillis() {
+        return machineTickBudgetMillis;
+    }
+
+    public int getMachineMaxElapsedTicks() {
+        return machineMaxElapsedTicks;
+    }
+
+    public boolean isMachineCatchUpEnabled() {
+        return machineCatchUpEnabled;
+    }
+
+    public long getMachineCatchUpMaxTicks() {
+        return machineCatchUpMaxTicks;
+    }
+
+    public boolean isEnergyGridDistribution() {
+        return energyGridDistribution;
+    }
+
+    public EnergyDistributionPolicy getEnergyDistributionPolicy() {
+        return energyDistributionPolicy;
+    }
+
+    public double getEnergyMaxTransferPerNode() {
+        return energyMaxTransferPerNode;
+    }
+
     public boolean isNetworkEnabled() {
         return networkEnabled;
     }
@@ -203,6 +323,54 @@ public class DrakesTechSettings {
         return networkExportMaxItemsPerCycle;
     }
 
+    public int getNetworkCatalogReconcileCycles() {
+        return networkCatalogReconcileCycles;
+    }
+
+    public long getNetworkBandwidthItemsPerCycle() {
+        return networkBandwidthItemsPerCycle;
+    }
+
+    public int getNetworkBulkCellPriority() {
+        return networkBulkCellPriority;
+    }
+
+    public int getNetworkTechStoragePriority() {
+        return networkTechStoragePriority;
+    }
+
+    public int getNetworkStorageBusPriority() {
+        return networkStorageBusPriority;
+    }
+
+    public int getNetworkCraftingMaxJobsPerNetwork() {
+        return networkCraftingMaxJobsPerNetwork;
+    }
+
+    public int getNetworkCraftingMaxPlanSteps() {
+        return networkCraftingMaxPlanSteps;
+    }
+
+    public int getNetworkCraftingRecipeCacheSize() {
+        return networkCraftingRecipeCacheSize;
+    }
+
+    public String getNetworkWirelessItemId() {
+        return networkWirelessItemId;
+    }
+
+    public int getNetworkWirelessRange() {
+        return networkWirelessRange;
+    }
+
+    public boolean isNetworkWirelessCrossWorld() {
+        return networkWirelessCrossWorld;
+    }
+
+    public int getNetworkTerminalRefreshIntervalTicks() {
+        return networkTerminalRefreshIntervalTicks;
+    }
+
     public boolean isToolsEnabled() {
         return toolsEnabled;
     }
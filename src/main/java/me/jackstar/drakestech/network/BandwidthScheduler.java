@@ -0,0 +1,83 @@
+package me.jackstar.drakestech.network;
+
+import java.util.Arrays;
+
+/**
+ * Splits a network's per-cycle item budget between its buses. Priorities are served in
+ * descending order; inside one priority the budget is shared max-min fairly by weight, so a bus
+ * that wants little gets all of it and the rest is split among the hungrier ones.
+ */
+final class BandwidthScheduler {
+
+    private BandwidthScheduler() {
+    }
+
+    /**
+     * Returns the allowance per bus. {@code rotation} decides which bus of a priority gets the
+     * rounding leftovers first and should advance every cycle.
+     */
+    static long[] allocate(int[] priorities, int[] weights, long[] demands, long budget, int rotation) {
+        int count = demands.length;
+        long[] allowances = new long[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (left, right) -> Integer.compare(priorities[right], priorities[left]));
+
+        long remaining = budget;
+        int start = 0;
+        while (start < count && remaining > 0L) {
+            int end = start + 1;
+            while (end < count && priorities[order[end]] == priorities[order[start]]) {
+                end++;
+            }
+            remaining = share(order, start, end, weights, demands, allowances, remaining, rotation);
+            start = end;
+        }
+        return allowances;
+    }
+
+    private static long share(Integer[] order, int start, int end, int[] weights, long[] demands, long[] allowances,
+            long budget, int rotation) {
+        long remaining = budget;
+        while (remaining > 0L) {
+            long totalWeight = 0L;
+            for (int i = start; i < end; i++) {
+                int bus = order[i];
+                if (allowances[bus] < demands[bus]) {
+                    totalWeight += weights[bus];
+                }
+            }
+            if (totalWeight == 0L) {
+                return remaining;
+            }
+
+            long perWeight = remaining / totalWeight;
+            if (perWeight == 0L) {
+                // Fewer items left than weight: hand them out one by one, starting at the rotation.
+                int size = end - start;
+                for (int step = 0; step < size && remaining > 0L; step++) {
+                    int bus = order[start + Math.floorMod(rotation + step, size)];
+                    if (allowances[bus] < demands[bus]) {
+                        allowances[bus]++;
+                        remaining--;
+                    }
+                }
+                continue;
+            }
+
+            for (int i = start; i < end; i++) {
+                int bus = order[i];
+                long wanted = demands[bus] - allowances[bus];
+                if (wanted <= 0L) {
+                    continue;
+                }
+                long granted = Math.min(wanted, perWeight * weights[bus]);
+                allowances[bus] += granted;
+                remaining -= granted;
+            }
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,167 @@
+package me.jackstar.drakestech.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Item storage that keeps one template and a counter per item type instead of stacks in
+ * slots. Capacity is limited by the number of types and the total item count.
+ */
+public final class BulkItemStore {
+
+    private static final int FORMAT = 1;
+
+    private final int maxTypes;
+    private final long capacity;
+    private final Map<ItemKey, Entry> entries = new LinkedHashMap<>();
+    private long total;
+
+    public BulkItemStore(int maxTypes, long capacity) {
+        this.maxTypes = Math.max(1, maxTypes);
+        this.capacity = Math.max(1L, capacity);
+    }
+
+    public long count(ItemKey key) {
+        Entry entry = key == null ? null : entries.get(key);
+        return entry == null ? 0L : entry.count;
+    }
+
+    /**
+     * How many items of {@code key} this store would accept right now.
+     */
+    public long space(ItemKey key) {
+        if (key == null || (!entries.containsKey(key) && entries.size() >= maxTypes)) {
+            return 0L;
+        }
+        return capacity - total;
+    }
+
+    /**
+     * Adds up to {@code amount} items and returns how many were accepted.
+     */
+    public long insert(ItemKey key, long amount) {
+        long accepted = Math.min(amount, space(key));
+        if (accepted <= 0L) {
+            return 0L;
+        }
+        entries.computeIfAbsent(key, ignored -> new Entry()).count += accepted;
+        total += accepted;
+        return accepted;
+    }
+
+    /**
+     * Removes up to {@code amount} items and returns how many were removed.
+     */
+    public long extract(ItemKey key, long amount) {
+        Entry entry = key == null ? null : entries.get(key);
+        if (entry == null || amount <= 0L) {
+            return 0L;
+        }
+        long removed = Math.min(amount, entry.count);
+        entry.count -= removed;
+        total -= removed;
+        if (entry.count <= 0L) {
+            entries.remove(key);
+        }
+        return removed;
+    }
+
+    public Map<ItemKey, Long> snapshot() {
+        Map<ItemKey, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<ItemKey, Entry> entry : entries.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().count);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int getTypeCount() {
+        return entries.size();
+    }
+
+    public int getMaxTypes() {
+        return maxTypes;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Encodes every type as its serialized template and a counter. Templates are serialized
+     * once per type and reused by later saves.
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + entries.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(FORMAT);
+            out.writeInt(entries.size());
+            for (Map.Entry<ItemKey, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                if (value.template == null) {
+                    value.template = entry.getKey().serialize();
+                }
+                out.writeInt(value.template.length);
+                out.write(value.template);
+                out.writeLong(value.count);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("In-memory write failed.", ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    public void decode(byte[] data, Logger logger) {
+        entries.clear();
+        total = 0L;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported bulk storage format " + format + ".");
+            }
+            int types = in.readInt();
+            for (int i = 0; i < types; i++) {
+                byte[] template = new byte[in.readInt()];
+                in.readFully(template);
+                long count = in.readLong();
+                ItemKey key;
+                try {
+                    key = ItemKey.deserialize(template);
+                } catch (Exception ex) {
+                    logger.log(Level.WARNING, "Dropping " + count + " unreadable item(s) from bulk storage.", ex);
+                    continue;
+                }
+                if (key == null || count <= 0L) {
+                    continue;
+                }
+                Entry entry = entries.computeIfAbsent(key, ignored -> new Entry());
+                entry.template = template;
+                entry.count += count;
+                total += count;
+            }
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Failed to read bulk storage contents.", ex);
+        }
+    }
+
+    private static final class Entry {
+        private long count;
+        private byte[] template;
+    }
+}
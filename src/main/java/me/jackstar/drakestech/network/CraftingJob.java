@@ -0,0 +1,167 @@
+package me.jackstar.drakestech.network;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A planned crafting request being worked off by a network's crafters. Everything the job still
+ * needs from storage, planned stock as well as intermediate results, stays reserved in the
+ * catalog until the step that consumes it completes or the job ends.
+ */
+final class CraftingJob {
+
+    private final List<CraftingPlanner.Step> steps;
+    private final CraftingPlanner.Step root;
+    private final Map<ItemKey, Long> reserved = new HashMap<>();
+    private boolean cancelled;
+
+    CraftingJob(CraftingPlanner.Plan plan, NetworkItemCatalog catalog) {
+        this.steps = plan.steps();
+        this.root = plan.root();
+        for (Map.Entry<ItemKey, Long> entry : plan.reserved().entrySet()) {
+            reserve(catalog, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Hands up to {@code maxBatches} runs of the first ready step to a crafter, or returns null
+     * when every remaining step still waits for its dependencies.
+     */
+    Assignment assign(int maxBatches, int cycles) {
+        for (CraftingPlanner.Step step : steps) {
+            if (!step.isReady()) {
+                continue;
+            }
+            long batches = Math.min(step.pendingBatches, maxBatches);
+            step.pendingBatches -= batches;
+            step.runningBatches += batches;
+            return new Assignment(this, step, batches, cycles);
+        }
+        return null;
+    }
+
+    void requeue(Assignment assignment) {
+        assignment.step.runningBatches -= assignment.batches;
+        assignment.step.pendingBatches += assignment.batches;
+    }
+
+    /**
+     * Consumes the ingredients of a finished assignment and stores its result. Results that do
+     * not fit into storage go to {@code overflow}. Returns false and puts back what it took when
+     * storage no longer holds the reserved ingredients.
+     */
+    boolean complete(Assignment assignment, NetworkItemCatalog catalog, BiConsumer<ItemKey, Long> overflow) {
+        CraftingPlanner.Step step = assignment.step;
+        Map<ItemKey, Long> taken = new LinkedHashMap<>();
+        boolean complete = true;
+        for (CraftingPlanner.Input input : step.recipe.inputs()) {
+            long needed = assignment.batches * input.amount();
+            for (ItemKey choice : input.choices()) {
+                long budget = step.budget.getOrDefault(choice, 0L);
+                long take = Math.min(budget, needed);
+                if (take <= 0L) {
+                    continue;
+                }
+                step.budget.put(choice, budget - take);
+                release(catalog, choice, take);
+                long extracted = catalog.extract(choice, take);
+                if (extracted > 0L) {
+                    taken.merge(choice, extracted, Long::sum);
+                }
+                needed -= extracted;
+                if (extracted < take || needed <= 0L) {
+                    break;
+                }
+            }
+            if (needed > 0L) {
+                complete = false;
+                break;
+            }
+        }
+
+        step.runningBatches -= assignment.batches;
+        if (!complete) {
+            for (Map.Entry<ItemKey, Long> entry : taken.entrySet()) {
+                store(catalog, entry.getKey(), entry.getValue(), overflow);
+            }
+            return false;
+        }
+
+        ItemKey result = step.recipe.result();
+        long stored = store(catalog, result, assignment.batches * step.recipe.outputAmount(), overflow);
+        if (step != root) {
+            reserve(catalog, result, stored);
+        }
+        return true;
+    }
+
+    boolean isDone() {
+        for (CraftingPlanner.Step step : steps) {
+            if (!step.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void releaseAll(NetworkItemCatalog catalog) {
+        for (Map.Entry<ItemKey, Long> entry : reserved.entrySet()) {
+            catalog.release(entry.getKey(), entry.getValue());
+        }
+        reserved.clear();
+    }
+
+    private long store(NetworkItemCatalog catalog, ItemKey key, long amount, BiConsumer<ItemKey, Long> overflow) {
+        long stored = catalog.insert(key, amount);
+        if (stored < amount) {
+            overflow.accept(key, amount - stored);
+        }
+        return stored;
+    }
+
+    private void reserve(NetworkItemCatalog catalog, ItemKey key, long amount) {
+        if (amount > 0L) {
+            reserved.merge(key, amount, Long::sum);
+            catalog.reserve(key, amount);
+        }
+    }
+
+    private void release(NetworkItemCatalog catalog, ItemKey key, long amount) {
+        long held = reserved.getOrDefault(key, 0L);
+        long released = Math.min(held, amount);
+        if (released <= 0L) {
+            return;
+        }
+        if (released == held) {
+            reserved.remove(key);
+        } else {
+            reserved.put(key, held - released);
+        }
+        catalog.release(key, released);
+    }
+
+    static final class Assignment {
+        final CraftingJob job;
+        final CraftingPlanner.Step step;
+        final long batches;
+        int cyclesLeft;
+
+        private Assignment(CraftingJob job, CraftingPlanner.Step step, long batches, int cycles) {
+            this.job = job;
+            this.step = step;
+            this.batches = batches;
+            this.cyclesLeft = cycles;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package me.jackstar.drakestech.network;
+
+import me.jackstar.drakestech.recipe.CraftingPattern;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Expands a crafting request into ordered steps. Recipes are resolved once per item and kept in
+ * a small LRU cache; stock and surplus are accounted per request, so repeated requests for the
+ * same item only redo the arithmetic.
+ */
+final class CraftingPlanner {
+
+    private final Map<ItemKey, Optional<Recipe>> recipes;
+    private Function<ItemStack, List<CraftingPattern>> patternSource = item -> List.of();
+
+    CraftingPlanner(int cacheSize) {
+        int limit = Math.max(16, cacheSize);
+        this.recipes = new LinkedHashMap<>(64, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ItemKey, Optional<Recipe>> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    void setPatternSource(Function<ItemStack, List<CraftingPattern>> patternSource) {
+        this.patternSource = patternSource == null ? item -> List.of() : patternSource;
+        recipes.clear();
+    }
+
+    void invalidate() {
+        recipes.clear();
+    }
+
+    int getCachedRecipeCount() {
+        return recipes.size();
+    }
+
+    /**
+     * Plans {@code amount} crafted {@code target} items. Only items in {@code patterns} are
+     * crafted; everything else must come from what {@code catalog} has available.
+     */
+    Plan plan(ItemKey target, long amount, NetworkItemCatalog catalog, Set<ItemKey> patterns, int maxSteps) {
+        Context context = new Context(catalog, patterns, maxSteps);
+        Step root = craft(context, target, amount);
+        if (root == null && context.missing.isEmpty()) {
+            context.missing.put(target, amount);
+        }
+        return new Plan(root, context.steps, context.reserved, context.missing, context.tooComplex);
+    }
+
+    private Step craft(Context context, ItemKey key, long amount) {
+        Recipe recipe = context.patterns.contains(key) ? resolve(key) : null;
+        if (recipe == null || !context.path.add(key)) {
+            return null;
+        }
+        if (context.steps.size() >= context.maxSteps) {
+            context.tooComplex = true;
+            context.path.remove(key);
+            return null;
+        }
+
+        long batches = (amount + recipe.outputAmount() - 1) / recipe.outputAmount();
+        Step step = new Step(recipe, batches);
+        for (Input input : recipe.inputs()) {
+            supply(context, step, input, batches * input.amount());
+        }
+        context.path.remove(key);
+
+        long surplus = batches * recipe.outputAmount() - amount;
+        if (surplus > 0L) {
+            context.surplus.merge(key, surplus, Long::sum);
+            context.producers.computeIfAbsent(key, ignored -> new ArrayList<>()).add(step);
+        }
+        context.steps.add(step);
+        return step;
+    }
+
+    private void supply(Context context, Step consumer, Input input, long amount) {
+        long remaining = amount;
+        for (ItemKey choice : input.choices()) {
+            long surplus = context.surplus.getOrDefault(choice, 0L);
+            if (surplus <= 0L) {
+                continue;
+            }
+            long take = Math.min(surplus, remaining);
+            context.surplus.put(choice, surplus - take);
+            consumer.budget.merge(choice, take, Long::sum);
+            consumer.dependencies.addAll(context.producers.get(choice));
+            remaining -= take;
+            if (remaining <= 0L) {
+                return;
+            }
+        }
+
+        List<ItemKey> byStock = new ArrayList<>(input.choices());
+        byStock.sort(Comparator.comparingLong((ItemKey choice) -> context.stock(choice)).reversed());
+        for (ItemKey choice : byStock) {
+            long take = Math.min(context.stock(choice), remaining);
+            if (take <= 0L) {
+                continue;
+            }
+            context.reserved.merge(choice, take, Long::sum);
+            consumer.budget.merge(choice, take, Long::sum);
+            remaining -= take;
+            if (remaining <= 0L) {
+                return;
+            }
+        }
+
+        for (ItemKey choice : input.choices()) {
+            if (!context.patterns.contains(choice)) {
+                continue;
+            }
+            Step producer = craft(context, choice, remaining);
+            if (producer == null) {
+                continue;
+            }
+            consumer.budget.merge(choice, remaining, Long::sum);
+            consumer.dependencies.add(producer);
+            return;
+        }
+        context.missing.merge(input.choices().get(0), remaining, Long::sum);
+    }
+
+    private Recipe resolve(ItemKey key) {
+        Optional<Recipe> cached = recipes.get(key);
+        if (cached == null) {
+            cached = Optional.empty();
+            for (CraftingPattern pattern : patternSource.apply(key.toStack(1))) {
+                Recipe recipe = Recipe.of(pattern);
+                if (recipe != null && key.equals(recipe.result())) {
+                    cached = Optional.of(recipe);
+                    break;
+                }
+            }
+            recipes.put(key, cached);
+        }
+        return cached.orElse(null);
+    }
+
+    record Input(List<ItemKey> choices, int amount) {
+    }
+
+    record Recipe(ItemKey result, int outputAmount, List<Input> inputs) {
+
+        static Recipe of(CraftingPattern pattern) {
+            ItemStack output = pattern.result();
+            ItemKey result = ItemKey.of(output);
+            if (result == null) {
+                return null;
+            }
+            List<Input> inputs = new ArrayList<>(pattern.ingredients().size());
+            for (CraftingPattern.Ingredient ingredient : pattern.ingredients()) {
+                List<ItemKey> choices = new ArrayList<>(ingredient.choices().size());
+                for (ItemStack choice : ingredient.choices()) {
+                    ItemKey key = ItemKey.of(choice);
+                    if (key != null) {
+                        choices.add(key);
+                    }
+                }
+                if (choices.isEmpty()) {
+                    return null;
+                }
+                inputs.add(new Input(List.copyOf(choices), ingredient.amount()));
+            }
+            return new Recipe(result, Math.max(1, output.getAmount()), List.copyOf(inputs));
+        }
+    }
+
+    /**
+     * One recipe run {@code batches} times. {@code budget} is what the plan set aside for it per
+     * ingredient item, which matters when an ingredient accepts several items.
+     */
+    static final class Step {
+        final Recipe recipe;
+        final long batches;
+        final Map<ItemKey, Long> budget = new HashMap<>();
+        final Set<Step> dependencies = new HashSet<>();
+        long pendingBatches;
+        long runningBatches;
+
+        private Step(Recipe recipe, long batches) {
+            this.recipe = recipe;
+            this.batches = batches;
+            this.pendingBatches = batches;
+        }
+
+        boolean isDone() {
+            return pendingBatches <= 0L && runningBatches <= 0L;
+        }
+
+        boolean isReady() {
+            if (pendingBatches <= 0L) {
+                return false;
+            }
+            for (Step dependency : dependencies) {
+                if (!dependency.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Steps come dependencies first and end with {@code root}. {@code reserved} is the stock the
+     * plan takes from storage.
+     */
+    record Plan(Step root, List<Step> steps, Map<ItemKey, Long> reserved, Map<ItemKey, Long> missing,
+            boolean tooComplex) {
+
+        boolean isComplete() {
+            return root != null && missing.isEmpty() && !tooComplex;
+        }
+    }
+
+    private static final class Context {
+        private final NetworkItemCatalog catalog;
+        private final Set<ItemKey> patterns;
+        private final int maxSteps;
+        private final List<Step> steps = new ArrayList<>();
+        private final Map<ItemKey, Long> reserved = new LinkedHashMap<>();
+        private final Map<ItemKey, Long> surplus = new HashMap<>();
+        private final Map<ItemKey, List<Step>> producers = new HashMap<>();
+        private final Map<ItemKey, Long> missing = new LinkedHashMap<>();
+        private final Set<ItemKey> path = new HashSet<>();
+        private boolean tooComplex;
+
+        private Context(NetworkItemCatalog catalog, Set<ItemKey> patterns, int maxSteps) {
+            this.catalog = catalog;
+            this.patterns = patterns;
+            this.maxSteps = maxSteps;
+        }
+
+        private long stock(ItemKey key) {
+            return catalog.available(key) - reserved.getOrDefault(key, 0L);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.jackstar.drakestech.network;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * Outcome of {@link TechNetworkService#requestCraft(String, ItemStack, int)}. {@code missing}
+ * lists what the network lacks when the status is {@link Status#MISSING_INGREDIENTS}.
+ */
+public record CraftingRequestResult(Status status, List<ItemStack> missing) {
+
+    public CraftingRequestResult {
+        missing = List.copyOf(missing);
+    }
+
+    static CraftingRequestResult of(Status status) {
+        return new CraftingRequestResult(status, List.of());
+    }
+
+    public boolean isStarted() {
+        return status == Status.STARTED;
+    }
+
+    public enum Status {
+        STARTED,
+        UNKNOWN_NETWORK,
+        NO_PATTERN,
+        NO_CRAFTERS,
+        TOO_MANY_JOBS,
+        TOO_COMPLEX,
+        MISSING_INGREDIENTS
+    }
+}
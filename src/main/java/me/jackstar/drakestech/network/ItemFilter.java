@@ -0,0 +1,205 @@
+package me.jackstar.drakestech.network;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Whitelist or blacklist of item rules, compiled once into a material set and a TechItem id set.
+ * Verdicts are memoized per {@link ItemKey}, so a bus or storage asks about each item in O(1).
+ * <p>
+ * Rules: {@code MATERIAL} or {@code material:MATERIAL} matches the material regardless of NBT,
+ * {@code tag:key} matches a vanilla item tag, {@code item:id} matches a TechItem.
+ */
+public final class ItemFilter {
+
+    public static final ItemFilter ACCEPT_ALL = new ItemFilter(Mode.BLACKLIST, List.of(), EnumSet.noneOf(Material.class), Set.of());
+
+    private static final int FORMAT = 1;
+    private static final int MAX_MEMO = 4096;
+
+    private static Function<ItemStack, Optional<String>> techItemIds = stack -> Optional.empty();
+
+    private final Mode mode;
+    private final List<String> rules;
+    private final EnumSet<Material> materials;
+    private final Set<String> itemIds;
+    private final Map<ItemKey, Boolean> verdicts = new HashMap<>();
+
+    private ItemFilter(Mode mode, List<String> rules, EnumSet<Material> materials, Set<String> itemIds) {
+        this.mode = mode;
+        this.rules = rules;
+        this.materials = materials;
+        this.itemIds = itemIds;
+    }
+
+    /**
+     * Sets how {@code item:} rules read a stack's TechItem id.
+     */
+    public static void setTechItemIdReader(Function<ItemStack, Optional<String>> reader) {
+        techItemIds = reader == null ? stack -> Optional.empty() : reader;
+    }
+
+    /**
+     * Compiles {@code rules}. Throws {@link IllegalArgumentException} naming the first rule that
+     * is not a known material, item tag or TechItem rule.
+     */
+    public static ItemFilter compile(Mode mode, List<String> rules) {
+        EnumSet<Material> materials = EnumSet.noneOf(Material.class);
+        Set<String> itemIds = new HashSet<>();
+        List<String> normalized = new ArrayList<>(rules.size());
+        for (String raw : rules) {
+            String rule = raw == null ? "" : raw.trim().toLowerCase(Locale.ROOT);
+            if (rule.isEmpty()) {
+                continue;
+            }
+            if (rule.startsWith("item:")) {
+                String id = rule.substring("item:".length());
+                if (id.isEmpty()) {
+                    throw new IllegalArgumentException(raw);
+                }
+                itemIds.add(id);
+            } else if (rule.startsWith("tag:")) {
+                Tag<Material> tag = resolveTag(rule.substring("tag:".length()));
+                if (tag == null) {
+                    throw new IllegalArgumentException(raw);
+                }
+                materials.addAll(tag.getValues());
+            } else {
+                Material material = Material.matchMaterial(rule.startsWith("material:") ? rule.substring("material:".length()) : rule);
+                if (material == null || material.isAir()) {
+                    throw new IllegalArgumentException(raw);
+                }
+                materials.add(material);
+            }
+            normalized.add(rule);
+        }
+        if (mode == Mode.BLACKLIST && normalized.isEmpty()) {
+            return ACCEPT_ALL;
+        }
+        return new ItemFilter(mode, List.copyOf(normalized), materials, Set.copyOf(itemIds));
+    }
+
+    public boolean accepts(ItemKey key) {
+        if (this == ACCEPT_ALL) {
+            return true;
+        }
+        if (key == null) {
+            return false;
+        }
+        Boolean verdict = verdicts.get(key);
+        if (verdict == null) {
+            verdict = matches(key) == (mode == Mode.WHITELIST);
+            if (verdicts.size() >= MAX_MEMO) {
+                verdicts.clear();
+            }
+            verdicts.put(key, verdict);
+        }
+        return verdict;
+    }
+
+    public boolean accepts(ItemStack stack) {
+        return this == ACCEPT_ALL || accepts(ItemKey.of(stack));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public List<String> getRules() {
+        return rules;
+    }
+
+    public boolean isAcceptAll() {
+        return this == ACCEPT_ALL;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + rules.size() * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(FORMAT);
+            out.writeByte(mode.ordinal());
+            out.writeShort(rules.size());
+            for (String rule : rules) {
+                out.writeUTF(rule);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("In-memory write failed.", ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a filter written by {@link #encode()}. Rules that no longer compile, e.g. after a
+     * tag was removed, are dropped with a warning.
+     */
+    public static ItemFilter decode(byte[] data, Logger logger) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IOException("Unsupported item filter format " + format + ".");
+            }
+            Mode mode = Mode.values()[in.readUnsignedByte() % Mode.values().length];
+            int count = in.readUnsignedShort();
+            List<String> rules = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String rule = in.readUTF();
+                try {
+                    compile(Mode.WHITELIST, List.of(rule));
+                    rules.add(rule);
+                } catch (IllegalArgumentException ex) {
+                    logger.warning("Dropping unknown item filter rule '" + rule + "'.");
+                }
+            }
+            return compile(mode, rules);
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Failed to read item filter.", ex);
+            return ACCEPT_ALL;
+        }
+    }
+
+    private boolean matches(ItemKey key) {
+        if (materials.contains(key.getType())) {
+            return true;
+        }
+        if (itemIds.isEmpty()) {
+            return false;
+        }
+        return techItemIds.apply(key.toStack(1)).map(itemIds::contains).orElse(false);
+    }
+
+    private static Tag<Material> resolveTag(String raw) {
+        NamespacedKey key = NamespacedKey.fromString(raw);
+        if (key == null) {
+            return null;
+        }
+        Tag<Material> tag = Bukkit.getTag(Tag.REGISTRY_ITEMS, key, Material.class);
+        return tag != null ? tag : Bukkit.getTag(Tag.REGISTRY_BLOCKS, key, Material.class);
+    }
+
+    public enum Mode {
+        WHITELIST,
+        BLACKLIST
+    }
+}
@@ -0,0 +1,75 @@
+package me.jackstar.drakestech.network;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Canonical identity of an item regardless of stack size. Two stacks map to equal keys
+ * exactly when {@link ItemStack#isSimilar(ItemStack)} holds, and the hash is computed once.
+ */
+public final class ItemKey {
+
+    private final ItemStack prototype;
+    private final int hash;
+
+    private ItemKey(ItemStack prototype) {
+        this.prototype = prototype;
+        this.hash = prototype.hashCode();
+    }
+
+    public static ItemKey of(ItemStack stack) {
+        if (stack == null || stack.getType().isAir()) {
+            return null;
+        }
+        ItemStack prototype = stack.clone();
+        prototype.setAmount(1);
+        return new ItemKey(prototype);
+    }
+
+    public boolean matches(ItemStack stack) {
+        return stack != null && prototype.isSimilar(stack);
+    }
+
+    public Material getType() {
+        return prototype.getType();
+    }
+
+    public int getMaxStackSize() {
+        return prototype.getMaxStackSize();
+    }
+
+    /**
+     * Returns a new stack of this item. Callers own the result.
+     */
+    public ItemStack toStack(int amount) {
+        ItemStack stack = prototype.clone();
+        stack.setAmount(amount);
+        return stack;
+    }
+
+    public byte[] serialize() {
+        return prototype.serializeAsBytes();
+    }
+
+    public static ItemKey deserialize(byte[] data) {
+        return of(ItemStack.deserializeBytes(data));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof ItemKey key && hash == key.hash && prototype.equals(key.prototype);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemKey[" + prototype.getType() + "]";
+    }
+}
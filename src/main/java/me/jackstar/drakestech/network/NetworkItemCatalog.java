@@ -0,0 +1,449 @@
+package me.jackstar.drakestech.network;
+
+import me.jackstar.drakestech.machines.MachineInventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Index of the items stored across one network's providers: total amount and slot locations
+ * per {@link ItemKey}, where a bulk store counts as one location per type. Buses insert and extract through the index instead of scanning every
+ * slot. A slot that no longer holds what the index expects marks its provider stale, and stale
+ * providers are rescanned on the next {@link #sync(List)}.
+ */
+final class NetworkItemCatalog {
+
+    private static final int BULK_SLOT = -1;
+
+    private final List<ProviderState> providers = new ArrayList<>();
+    private final Map<ItemKey, KeyEntry> entries = new HashMap<>();
+    private final BitSet staleProviders = new BitSet();
+    private final Map<ItemKey, Long> reservations = new HashMap<>();
+    private int version;
+
+    /**
+     * Adopts the current provider list. A changed list is indexed from scratch, otherwise only
+     * stale providers are rescanned.
+     */
+    void sync(List<StorageProvider> current) {
+        if (!sameProviders(current)) {
+            providers.clear();
+            entries.clear();
+            staleProviders.clear();
+            for (StorageProvider provider : current) {
+                providers.add(new ProviderState(provider));
+            }
+            staleProviders.set(0, providers.size());
+        }
+        if (!staleProviders.isEmpty()) {
+            version++;
+        }
+        for (int index = staleProviders.nextSetBit(0); index >= 0; index = staleProviders.nextSetBit(index + 1)) {
+            scan(index);
+        }
+        staleProviders.clear();
+    }
+
+    void invalidateAll() {
+        staleProviders.set(0, providers.size());
+    }
+
+    void invalidate(MachineInventory inventory) {
+        for (int index = 0; index < providers.size(); index++) {
+            if (inventory.equals(providers.get(index).provider.inventory())) {
+                staleProviders.set(index);
+            }
+        }
+    }
+
+    long count(ItemKey key) {
+        KeyEntry entry = key == null ? null : entries.get(key);
+        return entry == null ? 0L : entry.total;
+    }
+
+    /**
+     * Stored amount of {@code key} that is not reserved by a crafting job.
+     */
+    long available(ItemKey key) {
+        return Math.max(0L, count(key) - reservations.getOrDefault(key, 0L));
+    }
+
+    void reserve(ItemKey key, long amount) {
+        if (amount > 0L) {
+            reservations.merge(key, amount, Long::sum);
+        }
+    }
+
+    void release(ItemKey key, long amount) {
+        if (amount > 0L) {
+            reservations.computeIfPresent(key, (ignored, reserved) -> reserved > amount ? reserved - amount : null);
+            version++;
+        }
+    }
+
+    /**
+     * First indexed item with an unreserved amount that {@code filter} accepts, or null.
+     */
+    ItemKey firstAvailable(ItemFilter filter) {
+        for (ItemKey key : entries.keySet()) {
+            if (filter.accepts(key) && available(key) > 0L) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Every indexed item with its stored amount, most plentiful first.
+     */
+    List<StoredItem> stored() {
+        List<StoredItem> stored = new ArrayList<>(entries.size());
+        for (Map.Entry<ItemKey, KeyEntry> entry : entries.entrySet()) {
+            if (entry.getValue().total > 0L) {
+                stored.add(new StoredItem(entry.getKey(), entry.getValue().total));
+            }
+        }
+        stored.sort(Comparator.comparingLong(StoredItem::amount).reversed());
+        return stored;
+    }
+
+    int getKeyCount() {
+        return entries.size();
+    }
+
+    /**
+     * Moves whenever stored contents may have changed, so a bus that found nothing to do can
+     * tell whether trying again is worth it.
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * Stores up to {@code amount} items of {@code key}, topping up matching stacks and bulk
+     * counters before using empty slots. Providers whose item filter rejects {@code key} are
+     * skipped. Returns how many were stored.
+     */
+    long insert(ItemKey key, long amount) {
+        long stored = store(key, amount);
+        if (stored > 0L) {
+            version++;
+        }
+        return stored;
+    }
+
+    private long store(ItemKey key, long amount) {
+        if (key == null || amount <= 0L) {
+            return 0L;
+        }
+
+        long remaining = amount;
+        ItemStack probe = null;
+        KeyEntry entry = entries.get(key);
+        if (entry != null) {
+            for (long ref : entry.snapshot()) {
+                int providerIndex = (int) (ref >>> 32);
+                int slot = (int) ref;
+                ProviderState state = providers.get(providerIndex);
+                if (!state.provider.items().accepts(key)) {
+                    continue;
+                }
+                if (slot == BULK_SLOT) {
+                    remaining -= insertBulk(providerIndex, key, remaining);
+                    if (remaining <= 0L) {
+                        return amount;
+                    }
+                    continue;
+                }
+                if (!state.inputs.get(slot)) {
+                    continue;
+                }
+                MachineInventory inventory = state.provider.inventory();
+                ItemStack existing = inventory.getItem(slot);
+                if (!key.matches(existing)) {
+                    staleProviders.set(providerIndex);
+                    continue;
+                }
+                int free = existing.getMaxStackSize() - existing.getAmount();
+                if (free <= 0) {
+                    continue;
+                }
+                if (probe == null) {
+                    probe = key.toStack(1);
+                }
+                if (!state.provider.filter().canInsert(slot, probe)) {
+                    continue;
+                }
+
+                int move = (int) Math.min(free, remaining);
+                existing.setAmount(existing.getAmount() + move);
+                inventory.setItem(slot, existing);
+                record(providerIndex, slot, key, existing.getAmount());
+                state.provider.markChanged();
+                remaining -= move;
+                if (remaining <= 0L) {
+                    return amount;
+                }
+            }
+        }
+
+        for (int providerIndex = 0; providerIndex < providers.size(); providerIndex++) {
+            ProviderState state = providers.get(providerIndex);
+            if (!state.provider.items().accepts(key)) {
+                continue;
+            }
+            if (state.provider.bulk() != null) {
+                remaining -= insertBulk(providerIndex, key, remaining);
+                if (remaining <= 0L) {
+                    return amount;
+                }
+                continue;
+            }
+            MachineInventory inventory = state.provider.inventory();
+            for (int slot = state.freeInputs.nextSetBit(0); slot >= 0; slot = state.freeInputs.nextSetBit(slot + 1)) {
+                ItemStack existing = inventory.getItem(slot);
+                if (existing != null && !existing.getType().isAir()) {
+                    staleProviders.set(providerIndex);
+                    continue;
+                }
+                if (probe == null) {
+                    probe = key.toStack(1);
+                }
+                if (!state.provider.filter().canInsert(slot, probe)) {
+                    continue;
+                }
+
+                int move = (int) Math.min(remaining, key.getMaxStackSize());
+                inventory.setItem(slot, key.toStack(move));
+                record(providerIndex, slot, key, move);
+                state.provider.markChanged();
+                remaining -= move;
+                if (remaining <= 0L) {
+                    return amount;
+                }
+            }
+        }
+        return amount - remaining;
+    }
+
+    /**
+     * Removes up to {@code amount} items of {@code key} from output slots and bulk counters.
+     * Returns how many were removed.
+     */
+    long extract(ItemKey key, long amount) {
+        KeyEntry entry = key == null ? null : entries.get(key);
+        if (entry == null || amount <= 0L) {
+            return 0L;
+        }
+
+        long remaining = amount;
+        for (long ref : entry.snapshot()) {
+            if (remaining <= 0L) {
+                break;
+            }
+            int providerIndex = (int) (ref >>> 32);
+            int slot = (int) ref;
+            ProviderState state = providers.get(providerIndex);
+            if (slot == BULK_SLOT) {
+                BulkItemStore bulk = state.provider.bulk();
+                long take = bulk.extract(key, remaining);
+                if (take <= 0L) {
+                    continue;
+                }
+                recordBulk(providerIndex, key, bulk.count(key));
+                state.provider.markChanged();
+                remaining -= take;
+                continue;
+            }
+            if (!state.outputs.get(slot)) {
+                continue;
+            }
+            MachineInventory inventory = state.provider.inventory();
+            ItemStack existing = inventory.getItem(slot);
+            if (!key.matches(existing)) {
+                staleProviders.set(providerIndex);
+                continue;
+            }
+
+            int take = (int) Math.min(existing.getAmount(), remaining);
+            if (take <= 0) {
+                continue;
+            }
+            existing.setAmount(existing.getAmount() - take);
+            if (existing.getAmount() <= 0) {
+                inventory.setItem(slot, null);
+                record(providerIndex, slot, null, 0);
+            } else {
+                inventory.setItem(slot, existing);
+                record(providerIndex, slot, key, existing.getAmount());
+            }
+            state.provider.markChanged();
+            remaining -= take;
+        }
+        if (remaining < amount) {
+            version++;
+        }
+        return amount - remaining;
+    }
+
+    private boolean sameProviders(List<StorageProvider> current) {
+        if (current.size() != providers.size()) {
+            return false;
+        }
+        for (int index = 0; index < current.size(); index++) {
+            StorageProvider cached = providers.get(index).provider;
+            StorageProvider provider = current.get(index);
+            // Block inventories come back as new wrappers every lookup; equals compares the wrapped handle.
+            if (!Objects.equals(cached.inventory(), provider.inventory())
+                    || cached.owner() != provider.owner()
+                    || cached.bulk() != provider.bulk()
+                    || cached.items() != provider.items()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long insertBulk(int providerIndex, ItemKey key, long amount) {
+        ProviderState state = providers.get(providerIndex);
+        BulkItemStore bulk = state.provider.bulk();
+        long accepted = bulk.insert(key, amount);
+        if (accepted > 0L) {
+            recordBulk(providerIndex, key, bulk.count(key));
+            state.provider.markChanged();
+        }
+        return accepted;
+    }
+
+    private void scan(int providerIndex) {
+        ProviderState state = providers.get(providerIndex);
+        if (state.provider.bulk() != null) {
+            for (ItemKey key : new ArrayList<>(state.bulkCounts.keySet())) {
+                recordBulk(providerIndex, key, 0L);
+            }
+            for (Map.Entry<ItemKey, Long> stored : state.provider.bulk().snapshot().entrySet()) {
+                recordBulk(providerIndex, stored.getKey(), stored.getValue());
+            }
+            return;
+        }
+        MachineInventory inventory = state.provider.inventory();
+        for (int slot = state.tracked.nextSetBit(0); slot >= 0; slot = state.tracked.nextSetBit(slot + 1)) {
+            ItemStack stack = inventory.getItem(slot);
+            if (stack == null || stack.getType().isAir()) {
+                record(providerIndex, slot, null, 0);
+                continue;
+            }
+            ItemKey previous = state.keys[slot];
+            // Reuse the existing key when the slot still holds the same item to avoid a clone.
+            ItemKey key = previous != null && previous.matches(stack) ? previous : ItemKey.of(stack);
+            record(providerIndex, slot, key, stack.getAmount());
+        }
+    }
+
+    private void record(int providerIndex, int slot, ItemKey key, int amount) {
+        ProviderState state = providers.get(providerIndex);
+        long ref = ((long) providerIndex << 32) | (slot & 0xFFFFFFFFL);
+        ItemKey previous = state.keys[slot];
+        boolean sameKey = previous != null && previous.equals(key);
+        if (previous != null) {
+            KeyEntry entry = entries.get(previous);
+            entry.total -= state.amounts[slot];
+            if (!sameKey) {
+                entry.refs.remove(ref);
+                if (entry.refs.isEmpty()) {
+                    entries.remove(previous);
+                }
+            }
+        }
+
+        if (key != null) {
+            KeyEntry entry = entries.computeIfAbsent(key, ignored -> new KeyEntry());
+            entry.total += amount;
+            if (!sameKey) {
+                entry.refs.add(ref);
+            }
+            state.freeInputs.clear(slot);
+            state.keys[slot] = sameKey ? previous : key;
+            state.amounts[slot] = amount;
+            return;
+        }
+
+        if (state.inputs.get(slot)) {
+            state.freeInputs.set(slot);
+        }
+        state.keys[slot] = null;
+        state.amounts[slot] = 0;
+    }
+
+    private void recordBulk(int providerIndex, ItemKey key, long count) {
+        ProviderState state = providers.get(providerIndex);
+        long ref = ((long) providerIndex << 32) | (BULK_SLOT & 0xFFFFFFFFL);
+        Long previous = count > 0L ? state.bulkCounts.put(key, count) : state.bulkCounts.remove(key);
+        long delta = count - (previous == null ? 0L : previous);
+        if (previous == null && count <= 0L) {
+            return;
+        }
+
+        KeyEntry entry = entries.computeIfAbsent(key, ignored -> new KeyEntry());
+        entry.total += delta;
+        if (previous == null) {
+            entry.refs.add(ref);
+        } else if (count <= 0L) {
+            entry.refs.remove(ref);
+            if (entry.refs.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private static final class ProviderState {
+        private final StorageProvider provider;
+        private final BitSet inputs = new BitSet();
+        private final BitSet outputs = new BitSet();
+        private final BitSet tracked = new BitSet();
+        private final BitSet freeInputs = new BitSet();
+        private final Map<ItemKey, Long> bulkCounts = new HashMap<>();
+        private final ItemKey[] keys;
+        private final int[] amounts;
+
+        private ProviderState(StorageProvider provider) {
+            this.provider = provider;
+            int size = provider.inventory() == null ? 0 : provider.inventory().getSize();
+            for (int slot : provider.inputSlots()) {
+                if (slot >= 0 && slot < size) {
+                    inputs.set(slot);
+                }
+            }
+            for (int slot : provider.outputSlots()) {
+                if (slot >= 0 && slot < size) {
+                    outputs.set(slot);
+                }
+            }
+            tracked.or(inputs);
+            tracked.or(outputs);
+            this.keys = new ItemKey[size];
+            this.amounts = new int[size];
+        }
+    }
+
+    private static final class KeyEntry {
+        private final LinkedHashSet<Long> refs = new LinkedHashSet<>();
+        private long total;
+
+        private long[] snapshot() {
+            long[] copy = new long[refs.size()];
+            int index = 0;
+            for (long ref : refs) {
+                copy[index++] = ref;
+            }
+            return copy;
+        }
+    }
+}
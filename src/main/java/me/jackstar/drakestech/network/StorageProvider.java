@@ -0,0 +1,43 @@
+package me.jackstar.drakestech.network;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineInventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * One inventory a network can store items in, with the slots buses may use, or a bulk store
+ * that holds counters instead of slots. {@code items} decides which items may be inserted at all.
+ */
+record StorageProvider(MachineInventory inventory,
+        int[] inputSlots,
+        int[] outputSlots,
+        SlotInsertFilter filter,
+        AbstractMachine owner,
+        BulkItemStore bulk,
+        ItemFilter items) {
+
+    private static final int[] NO_SLOTS = new int[0];
+
+    StorageProvider(MachineInventory inventory, int[] inputSlots, int[] outputSlots, SlotInsertFilter filter, AbstractMachine owner) {
+        this(inventory, inputSlots, outputSlots, filter, owner, null, ItemFilter.ACCEPT_ALL);
+    }
+
+    StorageProvider(MachineInventory inventory, int[] slots, ItemFilter items) {
+        this(inventory, slots, slots, (slot, stack) -> true, null, null, items);
+    }
+
+    static StorageProvider bulk(BulkItemStore bulk, AbstractMachine owner) {
+        return new StorageProvider(null, NO_SLOTS, NO_SLOTS, (slot, stack) -> false, owner, bulk, ItemFilter.ACCEPT_ALL);
+    }
+
+    void markChanged() {
+        if (owner != null) {
+            owner.markInventoryChanged();
+        }
+    }
+
+    @FunctionalInterface
+    interface SlotInsertFilter {
+        boolean canInsert(int slot, ItemStack stack);
+    }
+}
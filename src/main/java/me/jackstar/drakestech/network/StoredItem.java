@@ -0,0 +1,13 @@
+package me.jackstar.drakestech.network;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * One item type stored in a network and its total amount.
+ */
+public record StoredItem(ItemKey key, long amount) {
+
+    public ItemStack toStack(int amount) {
+        return key.toStack(amount);
+    }
+}
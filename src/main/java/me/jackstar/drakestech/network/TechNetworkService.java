@@ -2,435 +2,934 @@ package me.jackstar.drakestech.network;
 
 import me.jackstar.drakestech.config.DrakesTechSettings;
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.NetworkBusNode;
+import me.jackstar.drakestech.machines.impl.BulkStorageCellMachine;
 import me.jackstar.drakestech.machines.impl.NetworkBridgeMachine;
 import me.jackstar.drakestech.machines.impl.NetworkControllerMachine;
+import me.jackstar.drakestech.machines.impl.NetworkCrafterMachine;
 import me.jackstar.drakestech.machines.impl.NetworkExportBusMachine;
 import me.jackstar.drakestech.machines.impl.NetworkImportBusMachine;
+import me.jackstar.drakestech.machines.impl.NetworkPatternHolderMachine;
+import me.jackstar.drakestech.machines.impl.NetworkQuantumBridgeMachine;
 import me.jackstar.drakestech.machines.impl.NetworkStorageBusMachine;
+import me.jackstar.drakestech.machines.impl.NetworkTerminalMachine;
 import me.jackstar.drakestech.machines.impl.TechStorageChestMachine;
+import me.jackstar.drakestech.manager.MachineRegistry;
+import me.jackstar.drakestech.recipe.CraftingPattern;
 import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class TechNetworkService {
 
+    private static final BlockFace[] ADJACENT_FACES = {
+            BlockFace.NORTH,
+            BlockFace.EAST,
+            BlockFace.SOUTH,
+            BlockFace.WEST,
+            BlockFace.UP,
+            BlockFace.DOWN
+    };
+    // Where several controllers reach the same members, the first controller in this order owns them.
+    private static final Comparator<AbstractMachine> CONTROLLER_ORDER = Comparator
+            .comparing((AbstractMachine machine) -> worldName(machine.getLocation()))
+            .thenComparingInt(machine -> machine.getLocation().getBlockX())
+            .thenComparingInt(machine -> machine.getLocation().getBlockY())
+            .thenComparingInt(machine -> machine.getLocation().getBlockZ());
+
     private final DrakesTechSettings settings;
+    private final MachineRegistry registry;
+    private final Predicate<Block> machineBlockFilter;
+    private final CraftingPlanner craftingPlanner;
 
     private final Map<String, NetworkGraph> networks = new ConcurrentHashMap<>();
-    private final Map<Location, String> locationToNetwork = new ConcurrentHashMap<>();
+    private final Map<AbstractMachine, NetworkGraph> machineToNetwork = new HashMap<>();
+    private final Map<String, List<NetworkQuantumBridgeMachine>> quantumFrequencies = new HashMap<>();
+    private boolean built;
+    private int cyclesSinceReconcile;
 
-    public TechNetworkService(DrakesTechSettings settings) {
+    public TechNetworkService(DrakesTechSettings settings, MachineRegistry registry) {
         this.settings = settings;
+        this.registry = registry;
+        this.machineBlockFilter = block -> registry.get(block) != null;
+        this.craftingPlanner = new CraftingPlanner(settings.getNetworkCraftingRecipeCacheSize());
     }
 
-    public void tick(Collection<AbstractMachine> machines) {
+    public void tick() {
         if (!settings.isNetworkEnabled()) {
             clear();
             return;
         }
 
-        if (machines == null || machines.isEmpty()) {
-            clear();
-            return;
+        if (!built) {
+            rebuild();
         }
-
-        Map<Location, AbstractMachine> byLocation = indexMachines(machines);
-        rebuild(byLocation);
-        processNetworks(byLocation);
+        processNetworks();
     }
 
     public void clear() {
         networks.clear();
-        locationToNetwork.clear();
+        machineToNetwork.clear();
+        quantumFrequencies.clear();
+        built = false;
+        craftingPlanner.invalidate();
     }
 
-    public Optional<String> getNetworkId(Location location) {
-        if (location == null || location.getWorld() == null) {
-            return Optional.empty();
+    /**
+     * Sets where crafters look up recipes, typically
+     * {@link me.jackstar.drakestech.recipe.TechCraftingRecipeService#findPatterns(ItemStack)}.
+     */
+    public void setCraftingPatternSource(Function<ItemStack, List<CraftingPattern>> patternSource) {
+        craftingPlanner.setPatternSource(patternSource);
+    }
+
+    /**
+     * Attaches a newly placed machine to the network it touches. A controller opens its own
+     * network; other members join the adjacent or quantum-linked network whose controller comes
+     * first in {@link #CONTROLLER_ORDER}. Networks the machine connects to a network ahead of
+     * them are merged into it, leaving what only their own controller reaches, as a rebuild
+     * would.
+     */
+    public void handleMachineAdded(AbstractMachine machine) {
+        if (!built || !isNetworkMemberMachine(machine) || machineToNetwork.containsKey(machine)) {
+            return;
+        }
+        if (machine instanceof NetworkQuantumBridgeMachine bridge) {
+            indexQuantumBridge(bridge);
+        }
+
+        List<NetworkGraph> touching = touchingGraphs(machine);
+        NetworkGraph target;
+        if (machine instanceof NetworkControllerMachine) {
+            target = new NetworkGraph(toNetworkId(machine.getLocation()), machine);
+            networks.put(target.id, target);
+        } else {
+            target = firstGraph(touching);
+            if (target == null) {
+                return;
+            }
+        }
+
+        List<NetworkGraph> absorbed = new ArrayList<>();
+        for (NetworkGraph graph : touching) {
+            if (graph != target && CONTROLLER_ORDER.compare(target.controller, graph.controller) < 0) {
+                release(graph);
+                absorbed.add(graph);
+            }
+        }
+        flood(target, machine);
+        for (NetworkGraph graph : absorbed) {
+            flood(graph, graph.controller);
         }
-        return Optional.ofNullable(locationToNetwork.get(normalize(location)));
     }
 
-    public int getNetworkCount() {
-        return networks.size();
+    /**
+     * Detaches a broken machine. Only its own network is re-flooded from the controller; members
+     * that lost their path to it are offered to adjacent networks, all other networks keep
+     * their members and ids.
+     */
+    public void handleMachineRemoved(AbstractMachine machine) {
+        if (!built) {
+            return;
+        }
+        if (machine instanceof NetworkQuantumBridgeMachine bridge) {
+            unindexQuantumBridge(bridge);
+        }
+        NetworkGraph graph = machineToNetwork.remove(machine);
+        if (graph == null) {
+            return;
+        }
+
+        graph.members.remove(machine);
+        reflood(graph, machine == graph.controller);
     }
 
-    public int getMappedNodeCount() {
-        return locationToNetwork.size();
+    /**
+     * Tunes {@code bridge} to {@code frequency}, or unlinks it when the frequency is null.
+     * Returns false when two other bridges already share the frequency.
+     */
+    public boolean tuneQuantumBridge(NetworkQuantumBridgeMachine bridge, String frequency) {
+        List<NetworkQuantumBridgeMachine> tuned = frequency == null ? null : quantumFrequencies.get(frequency);
+        if (tuned != null && tuned.size() >= 2 && !tuned.contains(bridge)) {
+            return false;
+        }
+
+        if (!built) {
+            bridge.setFrequency(frequency);
+            return true;
+        }
+        AbstractMachine oldPartner = linkedPartner(bridge);
+        unindexQuantumBridge(bridge);
+        bridge.setFrequency(frequency);
+        indexQuantumBridge(bridge);
+
+        NetworkGraph graph = machineToNetwork.get(bridge);
+        NetworkGraph oldPartnerGraph = oldPartner == null ? null : machineToNetwork.get(oldPartner);
+        if (graph != null) {
+            reflood(graph, false);
+        }
+        if (oldPartnerGraph != null && oldPartnerGraph != graph && networks.containsKey(oldPartnerGraph.id)) {
+            reflood(oldPartnerGraph, false);
+        }
+        if (!machineToNetwork.containsKey(bridge)) {
+            handleMachineAdded(bridge);
+        }
+
+        // A new link between two networks merges them like a placed connector would.
+        AbstractMachine partner = linkedPartner(bridge);
+        NetworkGraph bridgeGraph = machineToNetwork.get(bridge);
+        NetworkGraph partnerGraph = partner == null ? null : machineToNetwork.get(partner);
+        if (bridgeGraph != null && partnerGraph != null && bridgeGraph != partnerGraph) {
+            boolean bridgeFirst = CONTROLLER_ORDER.compare(bridgeGraph.controller, partnerGraph.controller) < 0;
+            NetworkGraph loser = bridgeFirst ? partnerGraph : bridgeGraph;
+            release(loser);
+            flood(bridgeFirst ? bridgeGraph : partnerGraph, bridgeFirst ? partner : bridge);
+            flood(loser, loser.controller);
+        }
+        return true;
     }
 
-    public Set<String> getNetworkIds() {
-        return Collections.unmodifiableSet(new HashSet<>(networks.keySet()));
+    public Optional<String> getNetworkId(Location location) {
+        AbstractMachine machine = registry.get(location);
+        if (machine == null) {
+            return Optional.empty();
+        }
+        NetworkGraph graph = machineToNetwork.get(machine);
+        return graph == null ? Optional.empty() : Optional.of(graph.id);
     }
 
-    private Map<Location, AbstractMachine> indexMachines(Collection<AbstractMachine> machines) {
-        Map<Location, AbstractMachine> byLocation = new HashMap<>();
-        for (AbstractMachine machine : machines) {
-            if (machine == null || machine.getLocation() == null || machine.getLocation().getWorld() == null) {
-                continue;
-            }
-            byLocation.put(normalize(machine.getLocation()), machine);
+    /**
+     * Re-indexes a storage machine whose inventory was edited outside the network, e.g. by a
+     * player, before the next cycle uses it.
+     */
+    public void handleInventoryChange(AbstractMachine machine) {
+        NetworkGraph graph = machineToNetwork.get(machine);
+        if (graph == null) {
+            return;
+        }
+        if (machine instanceof NetworkPatternHolderMachine) {
+            graph.patternsDirty = true;
+        } else if (machine.getMachineInventory() != null) {
+            graph.catalog.invalidate(machine.getMachineInventory());
         }
-        return byLocation;
     }
 
-    private void rebuild(Map<Location, AbstractMachine> byLocation) {
-        networks.clear();
-        locationToNetwork.clear();
+    /**
+     * Plans {@code amount} of {@code item} on a network and queues the plan for its crafters.
+     * The item needs a template in one of the network's pattern holders, as does every
+     * intermediate item the plan crafts; ingredients it takes from storage are reserved at once.
+     */
+    public CraftingRequestResult requestCraft(String networkId, ItemStack item, int amount) {
+        NetworkGraph graph = networkId == null ? null : networks.get(networkId);
+        if (graph == null) {
+            return CraftingRequestResult.of(CraftingRequestResult.Status.UNKNOWN_NETWORK);
+        }
+
+        graph.refreshRoles();
+        ItemKey key = ItemKey.of(item);
+        if (key == null || amount <= 0 || !graph.patterns.contains(key)) {
+            return CraftingRequestResult.of(CraftingRequestResult.Status.NO_PATTERN);
+        }
+        if (graph.crafters.isEmpty()) {
+            return CraftingRequestResult.of(CraftingRequestResult.Status.NO_CRAFTERS);
+        }
+        if (graph.craftingJobs.size() >= settings.getNetworkCraftingMaxJobsPerNetwork()) {
+            return CraftingRequestResult.of(CraftingRequestResult.Status.TOO_MANY_JOBS);
+        }
 
-        List<Location> controllers = new ArrayList<>();
-        for (Map.Entry<Location, AbstractMachine> entry : byLocation.entrySet()) {
-            if (entry.getValue() instanceof NetworkControllerMachine) {
-                controllers.add(entry.getKey());
+        CraftingPlanner.Plan plan = craftingPlanner.plan(key, amount, graph.catalog, graph.patterns,
+                settings.getNetworkCraftingMaxPlanSteps());
+        if (plan.tooComplex()) {
+            return CraftingRequestResult.of(CraftingRequestResult.Status.TOO_COMPLEX);
+        }
+        if (!plan.isComplete()) {
+            List<ItemStack> missing = new ArrayList<>();
+            for (Map.Entry<ItemKey, Long> entry : plan.missing().entrySet()) {
+                missing.add(entry.getKey().toStack((int) Math.min(Integer.MAX_VALUE, entry.getValue())));
             }
+            return new CraftingRequestResult(CraftingRequestResult.Status.MISSING_INGREDIENTS, missing);
         }
 
-        controllers.sort(Comparator
-                .comparing((Location location) -> location.getWorld() == null ? "" : location.getWorld().getName())
-                .thenComparingInt(Location::getBlockX)
-                .thenComparingInt(Location::getBlockY)
-                .thenComparingInt(Location::getBlockZ));
+        graph.craftingJobs.add(new CraftingJob(plan, graph.catalog));
+        return CraftingRequestResult.of(CraftingRequestResult.Status.STARTED);
+    }
 
-        Set<Location> globallyAssigned = new HashSet<>();
-        int maxNodes = Math.max(8, settings.getNetworkMaxNodesPerNetwork());
+    /**
+     * Items moved by all buses during the last network cycle.
+     */
+    public long getItemsMovedLastCycle() {
+        long moved = 0L;
+        for (NetworkGraph graph : networks.values()) {
+            moved += graph.itemsMovedLastCycle;
+        }
+        return moved;
+    }
 
-        for (Location controllerLocation : controllers) {
-            if (globallyAssigned.contains(controllerLocation)) {
-                continue;
-            }
+    public int getCraftingJobCount() {
+        int jobs = 0;
+        for (NetworkGraph graph : networks.values()) {
+            jobs += graph.craftingJobs.size();
+        }
+        return jobs;
+    }
 
-            String networkId = toNetworkId(controllerLocation);
-            NetworkGraph graph = new NetworkGraph(networkId, controllerLocation);
+    public int getCachedCraftingRecipeCount() {
+        return craftingPlanner.getCachedRecipeCount();
+    }
 
-            ArrayDeque<Location> queue = new ArrayDeque<>();
-            queue.add(controllerLocation);
+    /**
+     * Amount of {@code item} stored in a network as of its last cycle.
+     */
+    public long getItemCount(String networkId, ItemStack item) {
+        NetworkGraph graph = networkId == null ? null : networks.get(networkId);
+        return graph == null ? 0L : graph.catalog.count(ItemKey.of(item));
+    }
 
-            while (!queue.isEmpty()) {
-                Location current = queue.poll();
-                if (graph.members.contains(current) || graph.members.size() >= maxNodes) {
-                    continue;
-                }
+    /**
+     * Items stored in a network as of its last cycle, most plentiful first.
+     */
+    public List<StoredItem> getStoredItems(String networkId) {
+        NetworkGraph graph = networkId == null ? null : networks.get(networkId);
+        return graph == null ? List.of() : graph.catalog.stored();
+    }
 
-                AbstractMachine currentMachine = byLocation.get(current);
-                if (!isNetworkMemberMachine(currentMachine)) {
-                    continue;
-                }
+    /**
+     * Stores {@code item} in a network the way an import bus would, by storage priority and
+     * filters. Returns how many items were stored.
+     */
+    public long insertItem(String networkId, ItemStack item) {
+        NetworkGraph graph = networkId == null ? null : networks.get(networkId);
+        ItemKey key = ItemKey.of(item);
+        return graph == null || key == null ? 0L : graph.catalog.insert(key, item.getAmount());
+    }
 
-                // Do not merge two controllers into one graph.
-                if (currentMachine instanceof NetworkControllerMachine && !current.equals(controllerLocation)) {
-                    continue;
-                }
+    /**
+     * Takes up to {@code amount} of {@code item} from a network, leaving crafting reservations
+     * alone. Returns how many items were taken.
+     */
+    public long extractItem(String networkId, ItemStack item, long amount) {
+        NetworkGraph graph = networkId == null ? null : networks.get(networkId);
+        ItemKey key = ItemKey.of(item);
+        if (graph == null || key == null) {
+            return 0L;
+        }
+        return graph.catalog.extract(key, Math.min(amount, graph.catalog.available(key)));
+    }
 
-                graph.members.add(current);
-                globallyAssigned.add(current);
-                locationToNetwork.put(current, networkId);
+    public Optional<Location> getControllerLocation(String networkId) {
+        NetworkGraph graph = networkId == null ? null : networks.get(networkId);
+        return graph == null ? Optional.empty() : Optional.of(graph.controller.getLocation().clone());
+    }
 
-                classifyNode(currentMachine, current, graph);
+    public int getNetworkCount() {
+        return networks.size();
+    }
 
-                for (BlockFace face : cardinalFaces()) {
-                    Location adjacent = normalize(current.getBlock().getRelative(face).getLocation());
-                    if (!graph.members.contains(adjacent)) {
-                        AbstractMachine adjacentMachine = byLocation.get(adjacent);
-                        if (isNetworkMemberMachine(adjacentMachine)) {
-                            queue.add(adjacent);
-                        }
-                    }
-                }
-            }
+    public int getMappedNodeCount() {
+        return machineToNetwork.size();
+    }
 
-            networks.put(networkId, graph);
+    public int getQuantumLinkCount() {
+        int links = 0;
+        for (List<NetworkQuantumBridgeMachine> tuned : quantumFrequencies.values()) {
+            if (tuned.size() == 2) {
+                links++;
+            }
         }
+        return links;
     }
 
-    private void processNetworks(Map<Location, AbstractMachine> byLocation) {
-        for (NetworkGraph graph : networks.values()) {
-            List<StorageProvider> providers = resolveProviders(graph, byLocation);
-            processImportBuses(graph, byLocation, providers);
-            processExportBuses(graph, byLocation, providers);
-        }
+    public Set<String> getNetworkIds() {
+        return Collections.unmodifiableSet(new HashSet<>(networks.keySet()));
     }
 
-    private void processImportBuses(NetworkGraph graph,
-            Map<Location, AbstractMachine> byLocation,
-            List<StorageProvider> providers) {
-        for (Location location : graph.importBusLocations) {
-            AbstractMachine machine = byLocation.get(location);
-            if (!(machine instanceof NetworkImportBusMachine importBus)) {
-                continue;
+    private void rebuild() {
+        networks.clear();
+        machineToNetwork.clear();
+
+        List<AbstractMachine> controllers = new ArrayList<>();
+        quantumFrequencies.clear();
+        for (AbstractMachine machine : registry.getMachines()) {
+            if (machine instanceof NetworkControllerMachine) {
+                controllers.add(machine);
+            } else if (machine instanceof NetworkQuantumBridgeMachine bridge) {
+                indexQuantumBridge(bridge);
             }
+        }
 
-            Inventory inventory = importBus.getInventory();
-            if (inventory == null) {
+        controllers.sort(CONTROLLER_ORDER);
+
+        for (AbstractMachine controller : controllers) {
+            NetworkGraph graph = new NetworkGraph(toNetworkId(controller.getLocation()), controller);
+            networks.put(graph.id, graph);
+            flood(graph, controller);
+        }
+        built = true;
+    }
+
+    /**
+     * Claims every unattached member reachable from {@code start} for {@code graph}, up to the
+     * configured node limit.
+     */
+    private void flood(NetworkGraph graph, AbstractMachine start) {
+        int maxNodes = Math.max(8, settings.getNetworkMaxNodesPerNetwork());
+        ArrayDeque<AbstractMachine> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty() && graph.members.size() < maxNodes) {
+            AbstractMachine current = queue.poll();
+            if (!canClaim(graph, current)) {
                 continue;
             }
 
-            for (int slot : importBus.getInputSlots()) {
-                if (slot < 0 || slot >= inventory.getSize()) {
-                    continue;
-                }
-
-                ItemStack stack = inventory.getItem(slot);
-                if (stack == null || stack.getType().isAir()) {
-                    continue;
-                }
+            graph.members.add(current);
+            graph.rolesDirty = true;
+            machineToNetwork.put(current, graph);
 
-                pushIntoProviders(stack, providers);
-                if (stack.getAmount() <= 0) {
-                    inventory.setItem(slot, null);
-                } else {
-                    inventory.setItem(slot, stack);
+            for (BlockFace face : ADJACENT_FACES) {
+                AbstractMachine adjacent = registry.getRelative(current, face.getModX(), face.getModY(), face.getModZ());
+                if (adjacent != null && canClaim(graph, adjacent)) {
+                    queue.add(adjacent);
                 }
             }
+            AbstractMachine partner = linkedPartner(current);
+            if (partner != null && canClaim(graph, partner)) {
+                queue.add(partner);
+            }
         }
     }
 
-    private void processExportBuses(NetworkGraph graph,
-            Map<Location, AbstractMachine> byLocation,
-            List<StorageProvider> providers) {
-        for (Location location : graph.exportBusLocations) {
-            AbstractMachine machine = byLocation.get(location);
-            if (!(machine instanceof NetworkExportBusMachine exportBus)) {
-                continue;
-            }
+    /**
+     * Releases every member of {@code graph} and floods it again from its controller, or drops
+     * the network when {@code dissolve} is set. Members left unattached join a neighbouring
+     * network if they touch one.
+     */
+    private void reflood(NetworkGraph graph, boolean dissolve) {
+        List<AbstractMachine> released = release(graph);
+        if (dissolve) {
+            networks.remove(graph.id);
+        } else {
+            flood(graph, graph.controller);
+        }
 
-            Inventory inventory = exportBus.getInventory();
-            if (inventory == null) {
+        for (AbstractMachine orphan : released) {
+            if (machineToNetwork.containsKey(orphan)) {
                 continue;
             }
-
-            ItemStack output = inventory.getItem(NetworkExportBusMachine.OUTPUT_SLOT);
-            if (output != null && !output.getType().isAir()) {
-                continue;
+            NetworkGraph neighbour = firstGraph(touchingGraphs(orphan));
+            if (neighbour != null) {
+                flood(neighbour, orphan);
             }
+        }
+    }
 
-            ItemStack template = inventory.getItem(NetworkExportBusMachine.TEMPLATE_SLOT);
-            if (template == null || template.getType().isAir()) {
-                continue;
+    /**
+     * Detaches every member of {@code graph}, controller included, and returns them.
+     */
+    private List<AbstractMachine> release(NetworkGraph graph) {
+        List<AbstractMachine> released = new ArrayList<>(graph.members);
+        for (AbstractMachine member : released) {
+            machineToNetwork.remove(member);
+        }
+        graph.members.clear();
+        graph.rolesDirty = true;
+        return released;
+    }
+
+    /**
+     * Networks of the machines adjacent or quantum-linked to {@code machine}, without duplicates.
+     */
+    private List<NetworkGraph> touchingGraphs(AbstractMachine machine) {
+        List<NetworkGraph> graphs = new ArrayList<>(2);
+        for (BlockFace face : ADJACENT_FACES) {
+            AbstractMachine adjacent = registry.getRelative(machine, face.getModX(), face.getModY(), face.getModZ());
+            NetworkGraph graph = adjacent == null ? null : machineToNetwork.get(adjacent);
+            if (graph != null && !graphs.contains(graph)) {
+                graphs.add(graph);
             }
+        }
+        AbstractMachine partner = linkedPartner(machine);
+        NetworkGraph linked = partner == null ? null : machineToNetwork.get(partner);
+        if (linked != null && !graphs.contains(linked)) {
+            graphs.add(linked);
+        }
+        return graphs;
+    }
 
-            int maxRequest = Math.min(template.getMaxStackSize(), exportBus.getMaxItemsPerCycle());
-            if (maxRequest <= 0) {
-                continue;
+    private static NetworkGraph firstGraph(List<NetworkGraph> graphs) {
+        NetworkGraph first = null;
+        for (NetworkGraph graph : graphs) {
+            if (first == null || CONTROLLER_ORDER.compare(graph.controller, first.controller) < 0) {
+                first = graph;
             }
+        }
+        return first;
+    }
 
-            ItemStack fetched = pullFromProviders(template, maxRequest, providers);
-            if (fetched == null || fetched.getType().isAir() || fetched.getAmount() <= 0) {
-                continue;
+    /**
+     * The other bridge on the same frequency when {@code machine} is a linked quantum bridge.
+     * A frequency only links when exactly two bridges are tuned to it.
+     */
+    private AbstractMachine linkedPartner(AbstractMachine machine) {
+        if (!(machine instanceof NetworkQuantumBridgeMachine bridge) || bridge.getFrequency() == null) {
+            return null;
+        }
+        List<NetworkQuantumBridgeMachine> tuned = quantumFrequencies.get(bridge.getFrequency());
+        if (tuned == null || tuned.size() != 2) {
+            return null;
+        }
+        return tuned.get(0) == bridge ? tuned.get(1) : tuned.get(0);
+    }
+
+    private void indexQuantumBridge(NetworkQuantumBridgeMachine bridge) {
+        if (bridge.getFrequency() == null) {
+            return;
+        }
+        List<NetworkQuantumBridgeMachine> tuned = quantumFrequencies.computeIfAbsent(bridge.getFrequency(), ignored -> new ArrayList<>(2));
+        if (!tuned.contains(bridge)) {
+            tuned.add(bridge);
+        }
+    }
+
+    private void unindexQuantumBridge(NetworkQuantumBridgeMachine bridge) {
+        if (bridge.getFrequency() == null) {
+            return;
+        }
+        List<NetworkQuantumBridgeMachine> tuned = quantumFrequencies.get(bridge.getFrequency());
+        if (tuned != null) {
+            tuned.remove(bridge);
+            if (tuned.isEmpty()) {
+                quantumFrequencies.remove(bridge.getFrequency());
             }
+        }
+    }
 
-            inventory.setItem(NetworkExportBusMachine.OUTPUT_SLOT, fetched);
+    private boolean canClaim(NetworkGraph graph, AbstractMachine machine) {
+        if (machineToNetwork.containsKey(machine) || !isNetworkMemberMachine(machine)) {
+            return false;
         }
+        // Do not merge two controllers into one graph.
+        return !(machine instanceof NetworkControllerMachine) || machine == graph.controller;
     }
 
-    private List<StorageProvider> resolveProviders(NetworkGraph graph, Map<Location, AbstractMachine> byLocation) {
-        List<StorageProvider> providers = new ArrayList<>();
-        Set<Location> machineLocations = byLocation.keySet();
+    private void processNetworks() {
+        cyclesSinceReconcile++;
+        boolean reconcile = cyclesSinceReconcile >= settings.getNetworkCatalogReconcileCycles();
+        if (reconcile) {
+            cyclesSinceReconcile = 0;
+        }
+        for (NetworkGraph graph : networks.values()) {
+            graph.refreshRoles();
+            if (reconcile) {
+                graph.catalog.invalidateAll();
+            }
+            graph.catalog.sync(resolveProviders(graph));
+            processBuses(graph);
+            processCrafting(graph);
+        }
+    }
 
-        for (Location location : graph.techStorageLocations) {
-            AbstractMachine machine = byLocation.get(location);
-            if (!(machine instanceof TechStorageChestMachine storageChest)) {
+    /**
+     * Moves items for every bus of a network in one batch. Each active bus states how much it
+     * could move, {@link BandwidthScheduler} turns that into allowances within the network's
+     * budget, and then every item is inserted into or extracted from the catalog once and
+     * written back to the buses in priority order. A bus that had nothing to move is skipped
+     * until its inventory version, or the stored contents it was waiting on, change.
+     */
+    private void processBuses(NetworkGraph graph) {
+        List<NetworkBusNode> buses = new ArrayList<>();
+        List<List<BusSlot>> sources = new ArrayList<>();
+        List<Long> demands = new ArrayList<>();
+        for (NetworkImportBusMachine importBus : graph.importBuses) {
+            if (graph.isIdle(importBus) || !registry.isActive(importBus) || importBus.getMachineInventory() == null) {
                 continue;
             }
-            Inventory inventory = storageChest.getInventory();
-            if (inventory == null) {
-                continue;
+            List<BusSlot> slots = collectImportSlots(importBus);
+            long demand = 0L;
+            for (BusSlot slot : slots) {
+                demand += slot.amount();
+            }
+            if (demand > 0L) {
+                buses.add(importBus);
+                sources.add(slots);
+                demands.add(demand);
+            } else {
+                graph.markIdle(importBus, false);
             }
-            providers.add(new StorageProvider(inventory,
-                    storageChest.getInputSlots(),
-                    storageChest.getOutputSlots(),
-                    storageChest::canAcceptInput));
         }
-
-        for (Location location : graph.storageBusLocations) {
-            AbstractMachine machine = byLocation.get(location);
-            if (!(machine instanceof NetworkStorageBusMachine storageBus)) {
+        for (NetworkExportBusMachine exportBus : graph.exportBuses) {
+            if (graph.isIdle(exportBus) || !registry.isActive(exportBus) || exportBus.getMachineInventory() == null) {
                 continue;
             }
-
-            Inventory inventory = storageBus.resolveTargetInventory(machineLocations).orElse(null);
-            if (inventory == null) {
+            ItemStack template = exportBus.getMachineInventory().getItem(NetworkExportBusMachine.TEMPLATE_SLOT);
+            ItemFilter filter = exportBus.getItemFilter();
+            if (template == null || template.getType().isAir()) {
+                // No template: a whitelist picks the first matching item the network has.
+                ItemKey match = filter.getMode() == ItemFilter.Mode.WHITELIST ? graph.catalog.firstAvailable(filter) : null;
+                if (match == null) {
+                    graph.markIdle(exportBus, filter.getMode() == ItemFilter.Mode.WHITELIST);
+                    continue;
+                }
+                template = match.toStack(1);
+            } else if (!filter.accepts(template)) {
+                graph.markIdle(exportBus, false);
                 continue;
             }
-
-            int[] allSlots = buildAllSlots(inventory.getSize());
-            providers.add(new StorageProvider(inventory, allSlots, allSlots, (slot, stack) -> true));
+            long capacity = exportCapacity(exportBus, exportBus.getMachineInventory(), template, null);
+            if (capacity <= 0L) {
+                graph.markIdle(exportBus, false);
+                continue;
+            }
+            long demand = Math.min(capacity, graph.catalog.available(ItemKey.of(template)));
+            if (demand <= 0L) {
+                graph.markIdle(exportBus, true);
+            } else {
+                buses.add(exportBus);
+                sources.add(List.of(new BusSlot(exportBus, NetworkExportBusMachine.TEMPLATE_SLOT, template, (int) demand)));
+                demands.add(demand);
+            }
         }
 
-        return providers;
-    }
-
-    private void pushIntoProviders(ItemStack incoming, List<StorageProvider> providers) {
-        if (incoming == null || incoming.getType().isAir() || incoming.getAmount() <= 0) {
+        graph.itemsMovedLastCycle = 0L;
+        if (buses.isEmpty()) {
             return;
         }
 
-        // First pass: fill matching stacks.
-        for (StorageProvider provider : providers) {
-            mergeIntoProvider(incoming, provider, true);
-            if (incoming.getAmount() <= 0) {
-                return;
+        int count = buses.size();
+        int[] priorities = new int[count];
+        int[] weights = new int[count];
+        long[] wanted = new long[count];
+        for (int i = 0; i < count; i++) {
+            priorities[i] = buses.get(i).getPriority();
+            weights[i] = buses.get(i).getWeight();
+            wanted[i] = demands.get(i);
+        }
+        long[] allowances = BandwidthScheduler.allocate(priorities, weights, wanted,
+                settings.getNetworkBandwidthItemsPerCycle(), graph.cycle++);
+
+        Map<ItemKey, List<BusSlot>> imports = new LinkedHashMap<>();
+        Map<ItemKey, List<BusSlot>> exports = new LinkedHashMap<>();
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (left, right) -> Integer.compare(priorities[right], priorities[left]));
+        for (int bus : order) {
+            long allowance = allowances[bus];
+            for (BusSlot slot : sources.get(bus)) {
+                if (allowance <= 0L) {
+                    break;
+                }
+                int amount = (int) Math.min(slot.amount(), allowance);
+                Map<ItemKey, List<BusSlot>> target = buses.get(bus) instanceof NetworkImportBusMachine ? imports : exports;
+                target.computeIfAbsent(ItemKey.of(slot.stack()), ignored -> new ArrayList<>())
+                        .add(new BusSlot(slot.bus(), slot.slot(), slot.stack(), amount));
+                allowance -= amount;
             }
         }
 
-        // Second pass: use empty slots.
-        for (StorageProvider provider : providers) {
-            mergeIntoProvider(incoming, provider, false);
-            if (incoming.getAmount() <= 0) {
-                return;
+        Set<AbstractMachine> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<ItemKey, List<BusSlot>> entry : imports.entrySet()) {
+            long remaining = graph.catalog.insert(entry.getKey(), sum(entry.getValue()));
+            graph.itemsMovedLastCycle += remaining;
+            for (BusSlot source : entry.getValue()) {
+                if (remaining <= 0L) {
+                    break;
+                }
+                int take = (int) Math.min(source.amount(), remaining);
+                ItemStack stack = source.stack();
+                stack.setAmount(stack.getAmount() - take);
+                source.bus().getMachineInventory().setItem(source.slot(), stack.getAmount() <= 0 ? null : stack);
+                source.bus().markInventoryChanged();
+                moved.add(source.bus());
+                remaining -= take;
+            }
+        }
+        for (int bus = 0; bus < count; bus++) {
+            // Storage had no room for anything this bus offered in full.
+            if (buses.get(bus) instanceof NetworkImportBusMachine importBus && !moved.contains(importBus)
+                    && allowances[bus] >= wanted[bus]) {
+                graph.markIdle(importBus, true);
+            }
+        }
+
+        for (Map.Entry<ItemKey, List<BusSlot>> entry : exports.entrySet()) {
+            long remaining = graph.catalog.extract(entry.getKey(),
+                    Math.min(sum(entry.getValue()), graph.catalog.available(entry.getKey())));
+            graph.itemsMovedLastCycle += remaining;
+            for (BusSlot target : entry.getValue()) {
+                if (remaining <= 0L) {
+                    break;
+                }
+                int give = (int) Math.min(target.amount(), remaining);
+                int placed = exportCapacity((NetworkExportBusMachine) target.bus(), target.bus().getMachineInventory(),
+                        target.stack(), entry.getKey().toStack(give));
+                if (placed > 0) {
+                    target.bus().markInventoryChanged();
+                    remaining -= placed;
+                }
+            }
+            // Buses that filled up since their capacity was counted hand the rest back to storage.
+            if (remaining > 0L) {
+                graph.itemsMovedLastCycle -= graph.catalog.insert(entry.getKey(), remaining);
             }
         }
     }
 
-    private void mergeIntoProvider(ItemStack incoming, StorageProvider provider, boolean mergeOnly) {
-        Inventory inventory = provider.inventory();
-        for (int slot : provider.inputSlots()) {
-            if (incoming.getAmount() <= 0) {
-                return;
+    private List<BusSlot> collectImportSlots(NetworkImportBusMachine importBus) {
+        MachineInventory inventory = importBus.getMachineInventory();
+        if (!registry.isActive(importBus) || inventory == null) {
+            return List.of();
+        }
+
+        List<BusSlot> slots = new ArrayList<>();
+        int stacks = importBus.getStacksPerCycle();
+        for (int slot : importBus.getInputSlots()) {
+            if (stacks <= 0) {
+                break;
             }
             if (slot < 0 || slot >= inventory.getSize()) {
                 continue;
             }
-            if (!provider.filter().canInsert(slot, incoming.clone())) {
+
+            ItemStack stack = inventory.getItem(slot);
+            if (stack == null || stack.getType().isAir() || !importBus.getItemFilter().accepts(stack)) {
                 continue;
             }
+            slots.add(new BusSlot(importBus, slot, stack, stack.getAmount()));
+            stacks--;
+        }
+        return slots;
+    }
 
-            ItemStack existing = inventory.getItem(slot);
-            if (existing == null || existing.getType().isAir()) {
-                if (mergeOnly) {
-                    continue;
-                }
-                int move = Math.min(incoming.getAmount(), incoming.getMaxStackSize());
-                if (move <= 0) {
-                    continue;
-                }
-                ItemStack placed = incoming.clone();
-                placed.setAmount(move);
-                inventory.setItem(slot, placed);
-                incoming.setAmount(incoming.getAmount() - move);
+    private static long sum(List<BusSlot> slots) {
+        long total = 0L;
+        for (BusSlot slot : slots) {
+            total += slot.amount();
+        }
+        return total;
+    }
+
+    /**
+     * Walks the output slots of {@code exportBus} within its stack budget. Without
+     * {@code incoming} it only returns how many items fit; with it, the items are placed and the
+     * amount placed is returned.
+     */
+    private int exportCapacity(NetworkExportBusMachine exportBus, MachineInventory inventory, ItemStack template,
+            ItemStack incoming) {
+        int perStack = Math.min(template.getMaxStackSize(), exportBus.getMaxItemsPerCycle());
+        int stacks = exportBus.getStacksPerCycle();
+        int total = 0;
+        for (int slot : exportBus.getOutputSlots()) {
+            if (stacks <= 0 || (incoming != null && total >= incoming.getAmount())) {
+                break;
+            }
+            if (slot < 0 || slot >= inventory.getSize()) {
                 continue;
             }
 
-            if (!existing.isSimilar(incoming)) {
+            ItemStack output = inventory.getItem(slot);
+            int fits;
+            if (output == null || output.getType().isAir()) {
+                fits = perStack;
+            } else if (template.isSimilar(output)) {
+                fits = Math.min(perStack, output.getMaxStackSize() - output.getAmount());
+            } else {
                 continue;
             }
-
-            int free = existing.getMaxStackSize() - existing.getAmount();
-            if (free <= 0) {
+            if (fits <= 0) {
                 continue;
             }
+            stacks--;
 
-            int move = Math.min(free, incoming.getAmount());
-            existing.setAmount(existing.getAmount() + move);
-            inventory.setItem(slot, existing);
-            incoming.setAmount(incoming.getAmount() - move);
+            if (incoming == null) {
+                total += fits;
+                continue;
+            }
+            total += inventory.insert(slot, incoming, Math.min(fits, incoming.getAmount() - total));
         }
+        return total;
     }
 
-    private ItemStack pullFromProviders(ItemStack template, int amount, List<StorageProvider> providers) {
-        if (template == null || template.getType().isAir() || amount <= 0) {
-            return null;
+    /**
+     * Finishes crafts whose time is up, drops jobs that are done or failed, and hands ready steps
+     * to idle crafters so that independent steps run side by side.
+     */
+    private void processCrafting(NetworkGraph graph) {
+        if (graph.craftingJobs.isEmpty()) {
+            return;
         }
 
-        ItemStack result = null;
-        int remaining = amount;
+        Iterator<Map.Entry<NetworkCrafterMachine, CraftingJob.Assignment>> running = graph.activeCrafts.entrySet().iterator();
+        while (running.hasNext()) {
+            Map.Entry<NetworkCrafterMachine, CraftingJob.Assignment> entry = running.next();
+            NetworkCrafterMachine crafter = entry.getKey();
+            CraftingJob.Assignment assignment = entry.getValue();
+            if (assignment.job.isCancelled()) {
+                running.remove();
+                continue;
+            }
+            if (!graph.members.contains(crafter) || !registry.isActive(crafter)) {
+                assignment.job.requeue(assignment);
+                running.remove();
+                continue;
+            }
+            if (--assignment.cyclesLeft > 0) {
+                continue;
+            }
+
+            running.remove();
+            boolean completed = assignment.job.complete(assignment, graph.catalog,
+                    (key, amount) -> dropOverflow(crafter, key, amount));
+            if (!completed) {
+                assignment.job.cancel();
+            }
+        }
+
+        graph.craftingJobs.removeIf(job -> {
+            if (!job.isCancelled() && !job.isDone()) {
+                return false;
+            }
+            job.cancel();
+            job.releaseAll(graph.catalog);
+            return true;
+        });
 
-        for (StorageProvider provider : providers) {
-            Inventory inventory = provider.inventory();
-            for (int slot : provider.outputSlots()) {
-                if (remaining <= 0) {
+        for (NetworkCrafterMachine crafter : graph.crafters) {
+            if (graph.activeCrafts.containsKey(crafter) || !registry.isActive(crafter)) {
+                continue;
+            }
+            CraftingJob.Assignment assignment = null;
+            for (CraftingJob job : graph.craftingJobs) {
+                assignment = job.assign(crafter.getBatchesPerCraft(), crafter.getCraftCycles());
+                if (assignment != null) {
                     break;
                 }
-                if (slot < 0 || slot >= inventory.getSize()) {
-                    continue;
-                }
+            }
+            if (assignment == null) {
+                break;
+            }
+            graph.activeCrafts.put(crafter, assignment);
+        }
+    }
 
-                ItemStack existing = inventory.getItem(slot);
-                if (existing == null || existing.getType().isAir() || !existing.isSimilar(template)) {
-                    continue;
-                }
+    private void dropOverflow(AbstractMachine crafter, ItemKey key, long amount) {
+        World world = crafter.getLocation().getWorld();
+        if (world == null) {
+            return;
+        }
+        Location drop = crafter.getLocation().clone().add(0.5, 1.0, 0.5);
+        long remaining = amount;
+        while (remaining > 0L) {
+            int stack = (int) Math.min(remaining, key.getMaxStackSize());
+            world.dropItemNaturally(drop, key.toStack(stack));
+            remaining -= stack;
+        }
+    }
 
-                int take = Math.min(existing.getAmount(), remaining);
-                if (take <= 0) {
-                    continue;
-                }
+    private List<StorageProvider> resolveProviders(NetworkGraph graph) {
+        List<StorageProvider> providers = new ArrayList<>();
+        List<Integer> priorities = new ArrayList<>();
 
-                if (result == null) {
-                    result = existing.clone();
-                    result.setAmount(0);
-                }
+        for (BulkStorageCellMachine bulkCell : graph.bulkCells) {
+            if (registry.isActive(bulkCell)) {
+                providers.add(StorageProvider.bulk(bulkCell.getStore(), bulkCell));
+                priorities.add(settings.getNetworkBulkCellPriority());
+            }
+        }
 
-                result.setAmount(result.getAmount() + take);
-                existing.setAmount(existing.getAmount() - take);
-                if (existing.getAmount() <= 0) {
-                    inventory.setItem(slot, null);
-                } else {
-                    inventory.setItem(slot, existing);
-                }
+        for (TechStorageChestMachine storageChest : graph.techStorages) {
+            if (!registry.isActive(storageChest)) {
+                continue;
+            }
+            MachineInventory inventory = storageChest.getMachineInventory();
+            if (inventory == null) {
+                continue;
+            }
+            providers.add(new StorageProvider(inventory,
+                    storageChest.getInputSlots(),
+                    storageChest.getOutputSlots(),
+                    storageChest::canAcceptInput,
+                    storageChest));
+            priorities.add(settings.getNetworkTechStoragePriority());
+        }
 
-                remaining -= take;
+        for (NetworkStorageBusMachine storageBus : graph.storageBuses) {
+            if (!registry.isActive(storageBus)) {
+                continue;
             }
 
-            if (remaining <= 0) {
-                break;
+            Inventory inventory = storageBus.resolveTargetInventory(machineBlockFilter).orElse(null);
+            if (inventory == null) {
+                continue;
             }
+
+            providers.add(new StorageProvider(MachineInventory.wrap(inventory), buildAllSlots(inventory.getSize()),
+                    storageBus.getItemFilter()));
+            priorities.add(settings.getNetworkStorageBusPriority());
         }
 
-        return result;
+        // Stable sort: equal priorities keep the order above. The catalog fills providers in list order.
+        Integer[] order = new Integer[providers.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (left, right) -> Integer.compare(priorities.get(right), priorities.get(left)));
+        List<StorageProvider> sorted = new ArrayList<>(providers.size());
+        for (int index : order) {
+            sorted.add(providers.get(index));
+        }
+        providers = sorted;
+        return providers;
     }
 
     private boolean isNetworkMemberMachine(AbstractMachine machine) {
         return machine instanceof NetworkControllerMachine
                 || machine instanceof NetworkBridgeMachine
+                || machine instanceof NetworkQuantumBridgeMachine
+                || machine instanceof NetworkTerminalMachine
                 || machine instanceof NetworkImportBusMachine
                 || machine instanceof NetworkExportBusMachine
                 || machine instanceof NetworkStorageBusMachine
-                || machine instanceof TechStorageChestMachine;
+                || machine instanceof TechStorageChestMachine
+                || machine instanceof BulkStorageCellMachine
+                || machine instanceof NetworkPatternHolderMachine
+                || machine instanceof NetworkCrafterMachine;
     }
 
-    private void classifyNode(AbstractMachine machine, Location location, NetworkGraph graph) {
-        if (machine instanceof NetworkImportBusMachine) {
-            graph.importBusLocations.add(location);
-        }
-        if (machine instanceof NetworkExportBusMachine) {
-            graph.exportBusLocations.add(location);
-        }
-        if (machine instanceof NetworkStorageBusMachine) {
-            graph.storageBusLocations.add(location);
-        }
-        if (machine instanceof TechStorageChestMachine) {
-            graph.techStorageLocations.add(location);
-        }
+    private static String worldName(Location location) {
+        return location.getWorld() == null ? "world" : location.getWorld().getName();
     }
 
     private String toNetworkId(Location location) {
-        return (location.getWorld() == null ? "world" : location.getWorld().getName())
+        return worldName(location)
                 + ":" + location.getBlockX()
                 + ":" + location.getBlockY()
                 + ":" + location.getBlockZ();
     }
 
-    private Location normalize(Location location) {
-        return new Location(
-                location.getWorld(),
-                location.getBlockX(),
-                location.getBlockY(),
-                location.getBlockZ());
-    }
-
     private int[] buildAllSlots(int size) {
         int[] slots = new int[size];
         for (int i = 0; i < size; i++) {
@@ -439,41 +938,110 @@ public class TechNetworkService {
         return slots;
     }
 
-    private BlockFace[] cardinalFaces() {
-        return new BlockFace[] {
-                BlockFace.NORTH,
-                BlockFace.EAST,
-                BlockFace.SOUTH,
-                BlockFace.WEST,
-                BlockFace.UP,
-                BlockFace.DOWN
-        };
+    private record BusSlot(AbstractMachine bus, int slot, ItemStack stack, int amount) {
     }
 
     private static final class NetworkGraph {
+        private static final long ANY_CATALOG_VERSION = Long.MIN_VALUE;
+
         private final String id;
-        private final Location controller;
-        private final Set<Location> members = new HashSet<>();
-        private final Set<Location> importBusLocations = new HashSet<>();
-        private final Set<Location> exportBusLocations = new HashSet<>();
-        private final Set<Location> storageBusLocations = new HashSet<>();
-        private final Set<Location> techStorageLocations = new HashSet<>();
-
-        private NetworkGraph(String id, Location controller) {
+        private final AbstractMachine controller;
+        private final Set<AbstractMachine> members = new LinkedHashSet<>();
+        private final List<NetworkImportBusMachine> importBuses = new ArrayList<>();
+        private final List<NetworkExportBusMachine> exportBuses = new ArrayList<>();
+        private final List<NetworkStorageBusMachine> storageBuses = new ArrayList<>();
+        private final List<TechStorageChestMachine> techStorages = new ArrayList<>();
+        private final List<BulkStorageCellMachine> bulkCells = new ArrayList<>();
+        private final List<NetworkPatternHolderMachine> patternHolders = new ArrayList<>();
+        private final List<NetworkCrafterMachine> crafters = new ArrayList<>();
+        private final Set<ItemKey> patterns = new HashSet<>();
+        private final List<CraftingJob> craftingJobs = new ArrayList<>();
+        private final Map<NetworkCrafterMachine, CraftingJob.Assignment> activeCrafts = new LinkedHashMap<>();
+        private final NetworkItemCatalog catalog = new NetworkItemCatalog();
+        // Bus -> inventory and catalog versions at which it had nothing to move.
+        private final Map<AbstractMachine, long[]> idleBuses = new IdentityHashMap<>();
+        private boolean rolesDirty = true;
+        private boolean patternsDirty = true;
+        private int cycle;
+        private long itemsMovedLastCycle;
+
+        private NetworkGraph(String id, AbstractMachine controller) {
             this.id = id;
             this.controller = controller;
         }
-    }
 
-    private record StorageProvider(Inventory inventory,
-            int[] inputSlots,
-            int[] outputSlots,
-            SlotInsertFilter filter) {
-    }
+        private void refreshRoles() {
+            if (!rolesDirty) {
+                refreshPatterns();
+                return;
+            }
+            importBuses.clear();
+            exportBuses.clear();
+            idleBuses.clear();
+            storageBuses.clear();
+            techStorages.clear();
+            bulkCells.clear();
+            patternHolders.clear();
+            crafters.clear();
+            for (AbstractMachine machine : members) {
+                if (machine instanceof NetworkImportBusMachine importBus) {
+                    importBuses.add(importBus);
+                }
+                if (machine instanceof NetworkExportBusMachine exportBus) {
+                    exportBuses.add(exportBus);
+                }
+                if (machine instanceof NetworkStorageBusMachine storageBus) {
+                    storageBuses.add(storageBus);
+                }
+                if (machine instanceof TechStorageChestMachine storageChest) {
+                    techStorages.add(storageChest);
+                }
+                if (machine instanceof BulkStorageCellMachine bulkCell) {
+                    bulkCells.add(bulkCell);
+                }
+                if (machine instanceof NetworkPatternHolderMachine patternHolder) {
+                    patternHolders.add(patternHolder);
+                }
+                if (machine instanceof NetworkCrafterMachine crafter) {
+                    crafters.add(crafter);
+                }
+            }
+            rolesDirty = false;
+            patternsDirty = true;
+            refreshPatterns();
+        }
+
+        private boolean isIdle(AbstractMachine bus) {
+            long[] idle = idleBuses.get(bus);
+            return idle != null && idle[0] == bus.getInventoryVersion()
+                    && (idle[1] == ANY_CATALOG_VERSION || idle[1] == catalog.getVersion());
+        }
 
-    @FunctionalInterface
-    private interface SlotInsertFilter {
-        boolean canInsert(int slot, ItemStack stack);
+        /**
+         * Skips {@code bus} until its inventory changes or, when it waits on storage, until the
+         * stored contents change.
+         */
+        private void markIdle(AbstractMachine bus, boolean waitsOnStorage) {
+            idleBuses.put(bus, new long[] {
+                    bus.getInventoryVersion(),
+                    waitsOnStorage ? catalog.getVersion() : ANY_CATALOG_VERSION
+            });
+        }
+
+        private void refreshPatterns() {
+            if (!patternsDirty) {
+                return;
+            }
+            patterns.clear();
+            for (NetworkPatternHolderMachine patternHolder : patternHolders) {
+                for (ItemStack template : patternHolder.getMachineInventory().getContents()) {
+                    ItemKey key = ItemKey.of(template);
+                    if (key != null) {
+                        patterns.add(key);
+                    }
+                }
+            }
+            patternsDirty = false;
+        }
     }
 }
-
@@ -0,0 +1,102 @@
+package me.jackstar.drakestech.persistence;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-only slot map that keeps items in their serialized form. Stacks are decoded on every
+ * iteration and never cached, so records of machines that were never materialized cost only
+ * their bytes, and re-encoding them writes the original bytes back untouched.
+ */
+final class EncodedItemMap extends AbstractMap<Integer, ItemStack> {
+
+    private final int[] slots;
+    private final byte[][] data;
+    private final String machineId;
+    private final Logger logger;
+
+    EncodedItemMap(int[] slots, byte[][] data, String machineId, Logger logger) {
+        this.slots = slots;
+        this.data = data;
+        this.machineId = machineId;
+        this.logger = logger;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeShort(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            out.writeShort(slots[i]);
+            out.writeInt(data[i].length);
+            out.write(data[i]);
+        }
+    }
+
+    @Override
+    public int size() {
+        return slots.length;
+    }
+
+    @Override
+    public Set<Entry<Integer, ItemStack>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, ItemStack>> iterator() {
+                return new Iterator<>() {
+                    private ItemStack decoded;
+                    private int next = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < slots.length;
+                    }
+
+                    @Override
+                    public Entry<Integer, ItemStack> next() {
+                        if (next >= slots.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next;
+                        ItemStack stack = decoded;
+                        decoded = null;
+                        next = advance(index + 1);
+                        return new SimpleImmutableEntry<>(slots[index], stack);
+                    }
+
+                    private int advance(int from) {
+                        // Unreadable stacks are skipped, matching the eager decoder.
+                        for (int index = from; index < slots.length; index++) {
+                            decoded = decode(index);
+                            if (decoded != null) {
+                                return index;
+                            }
+                        }
+                        return slots.length;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return slots.length;
+            }
+        };
+    }
+
+    private ItemStack decode(int index) {
+        try {
+            return ItemStack.deserializeBytes(data[index]);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Dropping unreadable item in slot " + slots[index] + " of machine '" + machineId + "'.", ex);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package me.jackstar.drakestech.persistence;
+
+import me.jackstar.drakestech.energy.EnergyNode;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineInventory;
+import org.bukkit.Location;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of machine changes between two store checkpoints. The main thread
+ * encodes compact change records (placed, removed, slot changed, energy, progress, machine
+ * data) into a
+ * buffer by diffing dirty machines against their last journaled state; the buffer is appended
+ * to {@code active.wal} on the persistence writer thread. A checkpoint seals the active file
+ * by atomic rename and deletes sealed files once the store write that covers them succeeded.
+ */
+public class MachineJournal {
+
+    private static final int MAGIC = 0x44544D4A;
+    private static final int VERSION = 1;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_SLOT = 3;
+    private static final byte OP_ENERGY = 4;
+    private static final byte OP_PROGRESS = 5;
+    private static final byte OP_DATA = 6;
+    private static final byte OP_PUT_DATA = 7;
+    private static final String ACTIVE_FILE = "active.wal";
+    private static final String SEALED_PREFIX = "sealed-";
+    private static final String SEALED_SUFFIX = ".wal";
+    private static final int MAX_ENTRY_BYTES = 16 * 1024 * 1024;
+
+    private final File folder;
+    private final Logger logger;
+    private final boolean fsync;
+    private final Map<AbstractMachine, Shadow> shadows = new IdentityHashMap<>();
+    private final CRC32 crc = new CRC32();
+    private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(256);
+    private final DataOutputStream entryOut = new DataOutputStream(entryBytes);
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+    private long nextGeneration;
+    private long pendingEntries;
+
+    // Writer thread only.
+    private FileOutputStream activeStream;
+
+    public MachineJournal(File folder, Logger logger, boolean fsync) {
+        this.folder = folder;
+        this.logger = logger;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Seals a leftover active file and applies every sealed file, oldest first, to
+     * {@code records}. Returns the records touched by the replay; removed positions map to the
+     * record that was removed.
+     */
+    public ReplayResult replay(Map<String, MachineRecord> records) {
+        Map<String, MachineRecord> upserts = new LinkedHashMap<>();
+        Map<String, MachineRecord> removals = new LinkedHashMap<>();
+        if (!folder.exists() && !folder.mkdirs()) {
+            logger.warning("Could not create machine journal folder " + folder + ".");
+            return new ReplayResult(upserts, removals, 0);
+        }
+
+        TreeMap<Long, File> sealed = sealedFiles();
+        long generation = sealed.isEmpty() ? 0L : sealed.lastKey() + 1L;
+        File active = new File(folder, ACTIVE_FILE);
+        if (active.exists()) {
+            File target = sealedFile(generation);
+            if (active.renameTo(target)) {
+                sealed.put(generation, target);
+                generation++;
+            } else {
+                logger.warning("Could not seal leftover machine journal " + active + ".");
+            }
+        }
+        nextGeneration = generation;
+
+        int applied = 0;
+        for (File file : sealed.values()) {
+            applied += replayFile(file, records, upserts, removals);
+        }
+        return new ReplayResult(upserts, removals, applied);
+    }
+
+    public void recordPlace(AbstractMachine machine) {
+        MachineRecord record = MachineRecord.capture(machine);
+        shadows.put(machine, Shadow.of(record, machine.getMachineInventory()));
+        try {
+            DataOutputStream out = begin(record.data() == null ? OP_PUT : OP_PUT_DATA,
+                    record.worldName(), record.x(), record.y(), record.z());
+            MachineRecordCodec.writeState(out, record);
+            if (record.data() != null) {
+                MachineRecordCodec.writeData(out, record.data());
+            }
+            end(out);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to journal machine placement at " + machine.getLocation() + ".", ex);
+        }
+    }
+
+    public void recordRemove(AbstractMachine machine) {
+        shadows.remove(machine);
+        Location location = machine.getLocation();
+        try {
+            end(begin(OP_REMOVE, location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to journal machine removal at " + location + ".", ex);
+        }
+    }
+
+    /**
+     * Journals what changed on a dirty machine since it was last journaled.
+     */
+    public void recordChanges(AbstractMachine machine) {
+        Shadow shadow = shadows.get(machine);
+        if (shadow == null) {
+            recordPlace(machine);
+            return;
+        }
+
+        Location location = machine.getLocation();
+        String worldName = location.getWorld().getName();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        try {
+            if (machine instanceof EnergyNode energyNode && energyNode.getStoredEnergy() != shadow.energy) {
+                shadow.energy = energyNode.getStoredEnergy();
+                DataOutputStream out = begin(OP_ENERGY, worldName, x, y, z);
+                out.writeDouble(shadow.energy);
+                end(out);
+            }
+
+            int progress = machine.getProgressTicks();
+            if (progress != shadow.progress) {
+                shadow.progress = progress;
+                DataOutputStream out = begin(OP_PROGRESS, worldName, x, y, z);
+                out.writeInt(progress);
+                end(out);
+            }
+
+            byte[] data = machine.getPersistentData();
+            if (!Arrays.equals(data, shadow.data)) {
+                shadow.data = data;
+                DataOutputStream out = begin(OP_DATA, worldName, x, y, z);
+                out.writeBoolean(data != null);
+                if (data != null) {
+                    MachineRecordCodec.writeData(out, data);
+                }
+                end(out);
+            }
+
+            MachineInventory inventory = machine.getMachineInventory();
+            if (inventory == null) {
+                return;
+            }
+            int size = Math.min(inventory.getSize(), shadow.slots.length);
+            for (int slot = 0; slot < size; slot++) {
+                ItemStack current = inventory.getItem(slot);
+                if (current != null && current.getType().isAir()) {
+                    current = null;
+                }
+                ItemStack previous = shadow.slots[slot];
+                if (current == null ? previous == null : current.equals(previous)) {
+                    continue;
+                }
+                shadow.slots[slot] = current == null ? null : current.clone();
+                DataOutputStream out = begin(OP_SLOT, worldName, x, y, z);
+                out.writeShort(slot);
+                MachineRecordCodec.writeItem(out, current);
+                end(out);
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to journal machine changes at " + location + ".", ex);
+        }
+    }
+
+    public void forgetAll() {
+        shadows.clear();
+    }
+
+    public long getPendingEntries() {
+        return pendingEntries;
+    }
+
+    /**
+     * Hands the buffered entries to the writer thread.
+     */
+    public void flush(Executor writer) {
+        if (buffer.size() == 0) {
+            return;
+        }
+        byte[] data = buffer.toByteArray();
+        buffer = new ByteArrayOutputStream(Math.max(4096, data.length));
+        pendingEntries = 0L;
+        writer.execute(() -> append(data));
+    }
+
+    /**
+     * Flushes and seals the active journal. Returns the generation that a successful
+     * checkpoint may delete up to.
+     */
+    public long seal(Executor writer) {
+        flush(writer);
+        long generation = nextGeneration++;
+        writer.execute(() -> sealActive(generation));
+        return generation;
+    }
+
+    /**
+     * Writer thread: deletes sealed files made redundant by a successful checkpoint.
+     */
+    public void deleteSealedUpTo(long generation) {
+        for (Map.Entry<Long, File> entry : sealedFiles().entrySet()) {
+            if (entry.getKey() <= generation && !entry.getValue().delete()) {
+                logger.warning("Could not delete checkpointed machine journal " + entry.getValue() + ".");
+            }
+        }
+    }
+
+    public void close() {
+        closeActive();
+    }
+
+    private DataOutputStream begin(byte op, String worldName, int x, int y, int z) throws IOException {
+        entryBytes.reset();
+        DataOutputStream out = entryOut;
+        out.writeByte(op);
+        out.writeUTF(worldName);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(z);
+        return out;
+    }
+
+    private void end(DataOutputStream entry) throws IOException {
+        entry.flush();
+        byte[] payload = entryBytes.toByteArray();
+        crc.reset();
+        crc.update(payload, 0, payload.length);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+        pendingEntries++;
+    }
+
+    private void append(byte[] data) {
+        try {
+            if (activeStream == null) {
+                if (!folder.exists() && !folder.mkdirs()) {
+                    throw new IOException("Could not create machine journal folder " + folder + ".");
+                }
+                File active = new File(folder, ACTIVE_FILE);
+                boolean fresh = !active.exists() || active.length() == 0L;
+                activeStream = new FileOutputStream(active, true);
+                if (fresh) {
+                    DataOutputStream header = new DataOutputStream(activeStream);
+                    header.writeInt(MAGIC);
+                    header.writeInt(VERSION);
+                }
+            }
+            activeStream.write(data);
+            activeStream.flush();
+            if (fsync) {
+                activeStream.getFD().sync();
+            }
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Failed to append to machine journal.", ex);
+            closeActive();
+        }
+    }
+
+    private void sealActive(long generation) {
+        closeActive();
+        File active = new File(folder, ACTIVE_FILE);
+        if (!active.exists()) {
+            return;
+        }
+        try {
+            PersistenceFiles.moveAtomically(active.toPath(), sealedFile(generation).toPath());
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Failed to seal machine journal.", ex);
+        }
+    }
+
+    private void closeActive() {
+        if (activeStream == null) {
+            return;
+        }
+        try {
+            activeStream.close();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to close machine journal.", ex);
+        }
+        activeStream = null;
+    }
+
+    private int replayFile(File file,
+            Map<String, MachineRecord> records,
+            Map<String, MachineRecord> upserts,
+            Map<String, MachineRecord> removals) {
+        int applied = 0;
+        CRC32 check = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warning("Skipping unreadable machine journal " + file + ".");
+                return 0;
+            }
+            while (true) {
+                int length;
+                int expected;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    expected = in.readInt();
+                    if (length <= 0 || length > MAX_ENTRY_BYTES) {
+                        logger.warning("Stopping replay of " + file.getName() + " at a corrupt entry.");
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException end) {
+                    break;
+                }
+                check.reset();
+                check.update(payload, 0, payload.length);
+                if ((int) check.getValue() != expected) {
+                    logger.warning("Stopping replay of " + file.getName() + " at an entry with a bad checksum.");
+                    break;
+                }
+                apply(payload, records, upserts, removals);
+                applied++;
+            }
+        } catch (EOFException ex) {
+            logger.warning("Skipping truncated machine journal " + file + ".");
+        } catch (IOException ex) {
+            logger.log(Level.SEVERE, "Failed to replay machine journal " + file + ".", ex);
+        }
+        return applied;
+    }
+
+    private void apply(byte[] payload,
+            Map<String, MachineRecord> records,
+            Map<String, MachineRecord> upserts,
+            Map<String, MachineRecord> removals) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String worldName = in.readUTF();
+        int x = in.readInt();
+        int y = in.readInt();
+        int z = in.readInt();
+        String key = MachineRecord.key(worldName, x, y, z);
+
+        if (op == OP_PUT || op == OP_PUT_DATA) {
+            MachineRecord record = MachineRecordCodec.readState(in, worldName, x, y, z, logger);
+            if (op == OP_PUT_DATA) {
+                record = record.withData(MachineRecordCodec.readData(in));
+            }
+            records.put(key, record);
+            upserts.put(key, record);
+            removals.remove(key);
+            return;
+        }
+        if (op == OP_REMOVE) {
+            MachineRecord removed = records.remove(key);
+            upserts.remove(key);
+            if (removed != null) {
+                removals.put(key, removed);
+            }
+            return;
+        }
+
+        MachineRecord current = records.get(key);
+        if (current == null) {
+            return;
+        }
+        MachineRecord updated = switch (op) {
+            case OP_ENERGY -> new MachineRecord(current.machineId(), worldName, x, y, z,
+                    true, in.readDouble(), current.progress(), current.items(), current.data());
+            case OP_PROGRESS -> new MachineRecord(current.machineId(), worldName, x, y, z,
+                    current.hasEnergy(), current.energy(), in.readInt(), current.items(), current.data());
+            case OP_SLOT -> {
+                int slot = in.readUnsignedShort();
+                ItemStack stack = MachineRecordCodec.readItem(in, logger, current.machineId(), slot);
+                Map<Integer, ItemStack> items = new TreeMap<>(current.items());
+                if (stack == null) {
+                    items.remove(slot);
+                } else {
+                    items.put(slot, stack);
+                }
+                yield new MachineRecord(current.machineId(), worldName, x, y, z,
+                        current.hasEnergy(), current.energy(), current.progress(), items, current.data());
+            }
+            case OP_DATA -> current.withData(in.readBoolean() ? MachineRecordCodec.readData(in) : null);
+            default -> throw new IOException("Unknown machine journal entry type " + op + ".");
+        };
+        records.put(key, updated);
+        upserts.put(key, updated);
+    }
+
+    private TreeMap<Long, File> sealedFiles() {
+        TreeMap<Long, File> sealed = new TreeMap<>();
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(SEALED_PREFIX) && name.endsWith(SEALED_SUFFIX));
+        if (files == null) {
+            return sealed;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                sealed.put(Long.parseLong(name.substring(SEALED_PREFIX.length(), name.length() - SEALED_SUFFIX.length())), file);
+            } catch (NumberFormatException ignored) {
+                // Not one of ours.
+            }
+        }
+        return sealed;
+    }
+
+    private File sealedFile(long generation) {
+        return new File(folder, SEALED_PREFIX + generation + SEALED_SUFFIX);
+    }
+
+    public record ReplayResult(Map<String, MachineRecord> upserts, Map<String, MachineRecord> removals, int entries) {
+    }
+
+    private static final class Shadow {
+        private final ItemStack[] slots;
+        private double energy;
+        private int progress;
+        private byte[] data;
+
+        private Shadow(int size) {
+            this.slots = new ItemStack[size];
+        }
+
+        private static Shadow of(MachineRecord record, MachineInventory inventory) {
+            Shadow shadow = new Shadow(inventory == null ? 0 : inventory.getSize());
+            shadow.energy = record.energy();
+            shadow.progress = record.progress();
+            shadow.data = record.data();
+            for (Map.Entry<Integer, ItemStack> item : record.items().entrySet()) {
+                if (item.getKey() < shadow.slots.length) {
+                    shadow.slots[item.getKey()] = item.getValue();
+                }
+            }
+            return shadow;
+        }
+    }
+}
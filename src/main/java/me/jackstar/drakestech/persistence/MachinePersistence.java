@@ -0,0 +1,243 @@
+package me.jackstar.drakestech.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Owns the persisted machine records. The main thread replaces records of changed machines
+ * only; changes are coalesced into one batch per flush and handed to the {@link MachineStore}
+ * on a single background thread. With a {@link MachineJournal} attached, every flush is also
+ * a checkpoint that retires the journal files it covers.
+ */
+public class MachinePersistence {
+
+    private final MachineStore store;
+    private final Logger logger;
+    private final Map<String, MachineRecord> records = new LinkedHashMap<>();
+    private final Map<String, MachineRecord> pendingUpserts = new LinkedHashMap<>();
+    private final Map<String, MachineRecord> pendingRemovals = new LinkedHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "DrakesTech-MachineWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Executor writerExecutor = task -> {
+        if (writer.isShutdown()) {
+            task.run();
+        } else {
+            writer.execute(task);
+        }
+    };
+    private final Queue<MachineStoreBatch> failedBatches = new ConcurrentLinkedQueue<>();
+
+    private MachineJournal journal;
+    private Future<?> lastWrite;
+    private boolean writesDisabled;
+
+    public MachinePersistence(MachineStore store, Logger logger) {
+        this.store = store;
+        this.logger = logger;
+    }
+
+    public MachineStore getStore() {
+        return store;
+    }
+
+    public void attachJournal(MachineJournal journal) {
+        this.journal = journal;
+    }
+
+    public MachineJournal getJournal() {
+        return journal;
+    }
+
+    public Executor getWriterExecutor() {
+        return writerExecutor;
+    }
+
+    public List<MachineRecord> load() {
+        awaitWrites();
+        records.clear();
+        pendingUpserts.clear();
+        pendingRemovals.clear();
+        writesDisabled = false;
+        try {
+            for (MachineRecord record : store.loadAll()) {
+                records.put(record.key(), record);
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Saving now would write a snapshot of only the machines placed from here on.
+            writesDisabled = true;
+            logger.log(Level.SEVERE, "Failed to load DrakesTech machines from " + store.getName()
+                    + " store. Machine saves are disabled until it loads cleanly; the journal keeps recording changes.", ex);
+        }
+
+        if (journal != null) {
+            MachineJournal.ReplayResult replay = journal.replay(records);
+            pendingUpserts.putAll(replay.upserts());
+            for (Map.Entry<String, MachineRecord> removal : replay.removals().entrySet()) {
+                pendingUpserts.remove(removal.getKey());
+                pendingRemovals.put(removal.getKey(), removal.getValue());
+            }
+            if (replay.entries() > 0) {
+                logger.info("Recovered " + replay.entries() + " machine change(s) from the journal.");
+            }
+        }
+        return new ArrayList<>(records.values());
+    }
+
+    public void put(MachineRecord record) {
+        String key = record.key();
+        records.put(key, record);
+        pendingUpserts.put(key, record);
+        pendingRemovals.remove(key);
+    }
+
+    public void remove(String key) {
+        MachineRecord removed = records.remove(key);
+        if (removed == null) {
+            return;
+        }
+        pendingUpserts.remove(key);
+        pendingRemovals.put(key, removed);
+    }
+
+    /**
+     * True after a failed load, when saving would overwrite the machines that could not be read.
+     */
+    public boolean isWritesDisabled() {
+        return writesDisabled;
+    }
+
+    public boolean hasChanges() {
+        return !pendingUpserts.isEmpty() || !pendingRemovals.isEmpty();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public Collection<MachineRecord> getRecords() {
+        return Collections.unmodifiableCollection(records.values());
+    }
+
+    /**
+     * Queues a write of everything changed since the last flush.
+     */
+    public void flushAsync() {
+        if (writesDisabled) {
+            return;
+        }
+        requeueFailedBatches();
+        long sealedGeneration = journal == null ? -1L : journal.seal(writerExecutor);
+        if (!hasChanges()) {
+            if (sealedGeneration >= 0L) {
+                MachineJournal sealedJournal = journal;
+                lastWrite = submit(() -> sealedJournal.deleteSealedUpTo(sealedGeneration));
+            }
+            return;
+        }
+        MachineStoreBatch batch = new MachineStoreBatch(
+                store.requiresSnapshot() ? List.copyOf(records.values()) : List.of(),
+                List.copyOf(pendingUpserts.values()),
+                List.copyOf(pendingRemovals.values()));
+        pendingUpserts.clear();
+        pendingRemovals.clear();
+        MachineJournal sealedJournal = journal;
+        lastWrite = submit(() -> {
+            if (write(batch) && sealedGeneration >= 0L) {
+                sealedJournal.deleteSealedUpTo(sealedGeneration);
+            }
+        });
+    }
+
+    public void flushSync() {
+        flushAsync();
+        awaitWrites();
+    }
+
+    public void shutdown() {
+        flushSync();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30L, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for DrakesTech machine writer to finish.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        store.close();
+    }
+
+    private void awaitWrites() {
+        Future<?> pending = lastWrite;
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get(30L, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Failed to wait for DrakesTech machine save.", ex);
+        }
+    }
+
+    private Future<?> submit(Runnable task) {
+        if (writer.isShutdown()) {
+            task.run();
+            return null;
+        }
+        return writer.submit(task);
+    }
+
+    private boolean write(MachineStoreBatch batch) {
+        try {
+            store.write(batch);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            logger.log(Level.SEVERE, "Failed to save DrakesTech machines to " + store.getName() + " store.", ex);
+            failedBatches.add(batch);
+            return false;
+        }
+    }
+
+    /**
+     * Puts the positions of failed writes back into the pending set so the next flush retries
+     * them with the current state.
+     */
+    private void requeueFailedBatches() {
+        MachineStoreBatch failed;
+        while ((failed = failedBatches.poll()) != null) {
+            for (MachineRecord upsert : failed.upserts()) {
+                MachineRecord current = records.get(upsert.key());
+                if (current != null) {
+                    pendingUpserts.putIfAbsent(upsert.key(), current);
+                }
+            }
+            for (MachineRecord removal : failed.removals()) {
+                if (!records.containsKey(removal.key())) {
+                    pendingRemovals.putIfAbsent(removal.key(), removal);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package me.jackstar.drakestech.persistence;
+
+import me.jackstar.drakestech.energy.EnergyNode;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineInventory;
+import org.bukkit.Location;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable persisted state of one placed machine. Item stacks are private clones, so a
+ * record can be serialized off the main thread while the live machine keeps changing.
+ * Records read from the region store keep their items serialized until iterated.
+ * {@code data} is the machine's own persisted state, or null when it has none.
+ */
+public record MachineRecord(String machineId,
+        String worldName,
+        int x,
+        int y,
+        int z,
+        boolean hasEnergy,
+        double energy,
+        int progress,
+        Map<Integer, ItemStack> items,
+        byte[] data) {
+
+    public MachineRecord {
+        if (!(items instanceof EncodedItemMap)) {
+            items = items == null || items.isEmpty() ? Map.of() : Collections.unmodifiableMap(new TreeMap<>(items));
+        }
+    }
+
+    public static MachineRecord capture(AbstractMachine machine) {
+        Location location = machine.getLocation();
+        Map<Integer, ItemStack> items = new TreeMap<>();
+        MachineInventory inventory = machine.getMachineInventory();
+        if (inventory != null) {
+            for (int slot = 0; slot < inventory.getSize(); slot++) {
+                ItemStack stack = inventory.getItem(slot);
+                if (stack != null && !stack.getType().isAir()) {
+                    items.put(slot, stack.clone());
+                }
+            }
+        }
+
+        boolean hasEnergy = machine instanceof EnergyNode;
+        double energy = machine instanceof EnergyNode energyNode ? energyNode.getStoredEnergy() : 0.0D;
+        return new MachineRecord(machine.getId(),
+                location.getWorld().getName(),
+                location.getBlockX(),
+                location.getBlockY(),
+                location.getBlockZ(),
+                hasEnergy,
+                energy,
+                machine.getProgressTicks(),
+                items,
+                machine.getPersistentData());
+    }
+
+    public MachineRecord withData(byte[] data) {
+        return new MachineRecord(machineId, worldName, x, y, z, hasEnergy, energy, progress, items, data);
+    }
+
+    public int chunkX() {
+        return x >> 4;
+    }
+
+    public int chunkZ() {
+        return z >> 4;
+    }
+
+    public String key() {
+        return key(worldName, x, y, z);
+    }
+
+    public static String key(String worldName, int x, int y, int z) {
+        return worldName + ";" + x + ";" + y + ";" + z;
+    }
+
+    public static String key(Location location) {
+        return key(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+}
@@ -0,0 +1,132 @@
+package me.jackstar.drakestech.persistence;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary layout of a machine's persisted state, shared by the region store and the journal.
+ */
+final class MachineRecordCodec {
+
+    private MachineRecordCodec() {
+    }
+
+    static void writeState(DataOutputStream out, MachineRecord record) throws IOException {
+        out.writeUTF(record.machineId());
+        out.writeBoolean(record.hasEnergy());
+        out.writeDouble(record.energy());
+        out.writeInt(record.progress());
+        if (record.items() instanceof EncodedItemMap encoded) {
+            encoded.writeTo(out);
+            return;
+        }
+        out.writeShort(record.items().size());
+        for (Map.Entry<Integer, ItemStack> item : record.items().entrySet()) {
+            out.writeShort(item.getKey());
+            writeItem(out, item.getValue());
+        }
+    }
+
+    static MachineRecord readState(DataInputStream in, String worldName, int x, int y, int z, Logger logger) throws IOException {
+        String machineId = in.readUTF();
+        boolean hasEnergy = in.readBoolean();
+        double energy = in.readDouble();
+        int progress = in.readInt();
+        int itemCount = in.readUnsignedShort();
+        Map<Integer, ItemStack> items = new TreeMap<>();
+        for (int i = 0; i < itemCount; i++) {
+            int slot = in.readUnsignedShort();
+            ItemStack stack = readItem(in, logger, machineId, slot);
+            if (stack != null) {
+                items.put(slot, stack);
+            }
+        }
+        return new MachineRecord(machineId, worldName, x, y, z, hasEnergy, energy, progress, items, null);
+    }
+
+    /**
+     * Like {@link #readState} but leaves the items serialized until the record is materialized.
+     */
+    static MachineRecord readStateEncoded(DataInputStream in, String worldName, int x, int y, int z, Logger logger) throws IOException {
+        String machineId = in.readUTF();
+        boolean hasEnergy = in.readBoolean();
+        double energy = in.readDouble();
+        int progress = in.readInt();
+        int itemCount = in.readUnsignedShort();
+        int[] slots = new int[itemCount];
+        byte[][] data = new byte[itemCount][];
+        int count = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int slot = in.readUnsignedShort();
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Negative item length in machine record.");
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            if (length > 0) {
+                slots[count] = slot;
+                data[count] = bytes;
+                count++;
+            }
+        }
+        Map<Integer, ItemStack> items = count == 0
+                ? Map.of()
+                : new EncodedItemMap(Arrays.copyOf(slots, count), Arrays.copyOf(data, count), machineId, logger);
+        return new MachineRecord(machineId, worldName, x, y, z, hasEnergy, energy, progress, items, null);
+    }
+
+    static void writeData(DataOutputStream out, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    static byte[] readData(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative data length in machine record.");
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return data;
+    }
+
+    /**
+     * Writes an item as a length-prefixed byte block; length 0 encodes an empty slot.
+     */
+    static void writeItem(DataOutputStream out, ItemStack stack) throws IOException {
+        if (stack == null || stack.getType().isAir()) {
+            out.writeInt(0);
+            return;
+        }
+        byte[] data = stack.serializeAsBytes();
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    static ItemStack readItem(DataInputStream in, Logger logger, String machineId, int slot) throws IOException {
+        int length = in.readInt();
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Negative item length in machine record.");
+        }
+        byte[] data = new byte[length];
+        in.readFully(data);
+        try {
+            return ItemStack.deserializeBytes(data);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Dropping unreadable item in slot " + slot + " of machine '" + machineId + "'.", ex);
+            return null;
+        }
+    }
+}
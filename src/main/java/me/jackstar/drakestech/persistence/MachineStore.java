@@ -0,0 +1,29 @@
+package me.jackstar.drakestech.persistence;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Backend for persisted machine records. Implementations are called from the main thread
+ * for loads and from the persistence writer thread for writes, so they must synchronize
+ * internally.
+ */
+public interface MachineStore {
+
+    String getName();
+
+    boolean isEmpty();
+
+    /**
+     * Whether {@link #write(MachineStoreBatch)} needs the full record set instead of only the
+     * changes since the previous write.
+     */
+    boolean requiresSnapshot();
+
+    List<MachineRecord> loadAll() throws IOException;
+
+    void write(MachineStoreBatch batch) throws IOException;
+
+    default void close() {
+    }
+}
@@ -0,0 +1,16 @@
+package me.jackstar.drakestech.persistence;
+
+import java.util.List;
+
+/**
+ * Changes accumulated between two flushes. {@code snapshot} is only filled for stores that
+ * rewrite everything on each write.
+ */
+public record MachineStoreBatch(List<MachineRecord> snapshot,
+        List<MachineRecord> upserts,
+        List<MachineRecord> removals) {
+
+    public boolean isEmpty() {
+        return upserts.isEmpty() && removals.isEmpty();
+    }
+}
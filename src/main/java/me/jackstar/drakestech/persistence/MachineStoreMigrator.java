@@ -0,0 +1,43 @@
+package me.jackstar.drakestech.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One-shot import of the legacy {@code drakestech-machines.yml} into the binary region store.
+ * The YAML file is renamed afterwards so the migration never runs twice. When the YAML file
+ * cannot be read it is left in place and the migration is retried on the next start. Returns
+ * false when the YAML file still holds the only copy of the machines.
+ */
+public final class MachineStoreMigrator {
+
+    private MachineStoreMigrator() {
+    }
+
+    public static boolean migrateIfNeeded(File yamlFile, RegionMachineStore target, Logger logger) {
+        if (!yamlFile.exists() || !target.isEmpty()) {
+            return true;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            List<MachineRecord> records = new YamlMachineStore(yamlFile, logger).loadAll();
+            target.importAll(records);
+            File migrated = new File(yamlFile.getParentFile(), yamlFile.getName() + ".migrated");
+            if (!yamlFile.renameTo(migrated)) {
+                logger.warning("Migrated machines but could not rename " + yamlFile.getName()
+                        + "; delete it manually to avoid confusion.");
+            }
+            logger.info("Migrated " + records.size() + " machine(s) from " + yamlFile.getName()
+                    + " to the binary store in " + (System.currentTimeMillis() - start) + " ms.");
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            logger.log(Level.SEVERE, "Failed to migrate " + yamlFile.getName() + " to the binary machine store.", ex);
+            target.deleteAll();
+            return false;
+        }
+    }
+}
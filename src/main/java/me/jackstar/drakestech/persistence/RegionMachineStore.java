@@ -0,0 +1,384 @@
+package me.jackstar.drakestech.persistence;
+
+import me.jackstar.drakestech.manager.MachineRegistry;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary machine store split into one append-only log per world region (32x32 chunks):
+ * {@code <root>/<world>/r.<rx>.<rz>.dtm}. Each entry is a length-prefixed put or remove
+ * record; the last entry for a position wins. Items are stored with
+ * {@link ItemStack#serializeAsBytes()}. A region is compacted once most of its entries are
+ * superseded. A torn or corrupt tail is cut off on read so appends stay readable, and a region
+ * that cannot be read at all is moved aside instead of failing the whole load.
+ */
+public class RegionMachineStore implements MachineStore {
+
+    private static final int MAGIC = 0x44544D53;
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 8L;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_PUT_DATA = 3;
+    private static final int REGION_SHIFT = 5;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final int COMPACT_MIN_RECORDS = 64;
+    private static final String EXTENSION = ".dtm";
+
+    private final File root;
+    private final Logger logger;
+    private final Map<File, RegionStats> stats = new HashMap<>();
+
+    public RegionMachineStore(File root, Logger logger) {
+        this.root = root;
+        this.logger = logger;
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        File[] worlds = root.listFiles(File::isDirectory);
+        if (worlds == null) {
+            return true;
+        }
+        for (File world : worlds) {
+            File[] regions = world.listFiles((dir, name) -> name.endsWith(EXTENSION));
+            if (regions != null && regions.length > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean requiresSnapshot() {
+        return false;
+    }
+
+    @Override
+    public synchronized List<MachineRecord> loadAll() throws IOException {
+        List<MachineRecord> records = new ArrayList<>();
+        File[] worlds = root.listFiles(File::isDirectory);
+        if (worlds == null) {
+            return records;
+        }
+        for (File world : worlds) {
+            File[] regions = world.listFiles((dir, name) -> name.endsWith(EXTENSION));
+            if (regions == null) {
+                continue;
+            }
+            for (File region : regions) {
+                records.addAll(readRegionSafely(world.getName(), region).values());
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void write(MachineStoreBatch batch) throws IOException {
+        Map<File, List<byte[]>> pending = new LinkedHashMap<>();
+        Map<File, String> worldByRegion = new HashMap<>();
+        for (MachineRecord removal : batch.removals()) {
+            File region = regionFile(removal);
+            worldByRegion.put(region, removal.worldName());
+            pending.computeIfAbsent(region, ignored -> new ArrayList<>()).add(encodeRemove(removal));
+            stats(removal.worldName(), region).live.remove(blockKey(removal));
+        }
+        for (MachineRecord upsert : batch.upserts()) {
+            File region = regionFile(upsert);
+            worldByRegion.put(region, upsert.worldName());
+            pending.computeIfAbsent(region, ignored -> new ArrayList<>()).add(encodePut(upsert));
+            stats(upsert.worldName(), region).live.add(blockKey(upsert));
+        }
+
+        for (Map.Entry<File, List<byte[]>> entry : pending.entrySet()) {
+            File region = entry.getKey();
+            RegionStats regionStats = stats(worldByRegion.get(region), region);
+            append(region, entry.getValue());
+            regionStats.records += entry.getValue().size();
+            if (regionStats.records >= COMPACT_MIN_RECORDS && regionStats.records > regionStats.live.size() * 2) {
+                compact(worldByRegion.get(region), region, regionStats);
+            }
+        }
+    }
+
+    /**
+     * Writes every record as a fresh region set. Used by the one-shot migration.
+     */
+    public synchronized void importAll(List<MachineRecord> records) throws IOException {
+        Map<File, List<byte[]>> byRegion = new LinkedHashMap<>();
+        for (MachineRecord record : records) {
+            byRegion.computeIfAbsent(regionFile(record), ignored -> new ArrayList<>()).add(encodePut(record));
+        }
+        for (Map.Entry<File, List<byte[]>> entry : byRegion.entrySet()) {
+            writeFresh(entry.getKey(), entry.getValue());
+        }
+        stats.clear();
+    }
+
+    synchronized void deleteAll() {
+        File[] worlds = root.listFiles(File::isDirectory);
+        if (worlds != null) {
+            for (File world : worlds) {
+                File[] regions = world.listFiles((dir, name) -> name.endsWith(EXTENSION));
+                if (regions == null) {
+                    continue;
+                }
+                for (File region : regions) {
+                    if (!region.delete()) {
+                        logger.warning("Could not delete machine region " + region + ".");
+                    }
+                }
+            }
+        }
+        stats.clear();
+    }
+
+    /**
+     * Reads a region, setting aside one that cannot be read at all (bad header or I/O error) so
+     * the rest of the world still loads and later saves start a fresh file.
+     */
+    private Map<Long, MachineRecord> readRegionSafely(String worldName, File file) {
+        try {
+            return readRegion(worldName, file);
+        } catch (IOException | RuntimeException ex) {
+            File aside = corruptSibling(file);
+            logger.log(Level.SEVERE, "Unreadable machine region " + file + "; moved it to " + aside
+                    + " and skipped its machines.", ex);
+            stats.remove(file);
+            try {
+                PersistenceFiles.moveAtomically(file.toPath(), aside.toPath());
+            } catch (IOException moveFailed) {
+                logger.log(Level.SEVERE, "Could not move unreadable machine region " + file + ".", moveFailed);
+            }
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private Map<Long, MachineRecord> readRegion(String worldName, File file) throws IOException {
+        Map<Long, MachineRecord> live = new LinkedHashMap<>();
+        int records = 0;
+        long goodLength = HEADER_BYTES;
+        boolean damagedTail = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a DrakesTech machine region: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported machine region version " + version + ": " + file);
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    // A partial length prefix still leaves bytes past goodLength.
+                    damagedTail = file.length() > goodLength;
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    logger.warning("Corrupt tail in machine region " + file + " after " + records + " record(s).");
+                    damagedTail = true;
+                    break;
+                }
+                byte[] payload = new byte[length];
+                try {
+                    in.readFully(payload);
+                } catch (EOFException torn) {
+                    logger.warning("Torn record at the end of machine region " + file + ".");
+                    damagedTail = true;
+                    break;
+                }
+                goodLength += 4L + length;
+                records++;
+                try {
+                    decode(worldName, payload, live);
+                } catch (IOException | RuntimeException ex) {
+                    logger.log(Level.WARNING, "Skipping unreadable record " + records + " in machine region " + file + ".", ex);
+                }
+            }
+        } catch (EOFException ex) {
+            throw new IOException("Machine region header is truncated: " + file, ex);
+        }
+
+        if (damagedTail) {
+            // Appending after the damaged bytes would make every later record unreadable.
+            Files.copy(file.toPath(), corruptSibling(file).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(goodLength);
+                channel.force(true);
+            }
+            logger.warning("Truncated machine region " + file + " to its last complete record; the original is kept as "
+                    + corruptSibling(file) + ".");
+        }
+
+        RegionStats regionStats = new RegionStats();
+        regionStats.records = records;
+        regionStats.live.addAll(live.keySet());
+        stats.put(file, regionStats);
+        return live;
+    }
+
+    private void decode(String worldName, byte[] payload, Map<Long, MachineRecord> live) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        int x = in.readInt();
+        int y = in.readInt();
+        int z = in.readInt();
+        long key = MachineRegistry.blockKey(x, y, z);
+        if (op == OP_REMOVE) {
+            live.remove(key);
+            return;
+        }
+        if (op != OP_PUT && op != OP_PUT_DATA) {
+            throw new IOException("Unknown machine record type " + op + ".");
+        }
+
+        MachineRecord record = MachineRecordCodec.readStateEncoded(in, worldName, x, y, z, logger);
+        live.put(key, op == OP_PUT_DATA ? record.withData(MachineRecordCodec.readData(in)) : record);
+    }
+
+    private static byte[] encodePut(MachineRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + record.items().size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(record.data() == null ? OP_PUT : OP_PUT_DATA);
+        out.writeInt(record.x());
+        out.writeInt(record.y());
+        out.writeInt(record.z());
+        MachineRecordCodec.writeState(out, record);
+        if (record.data() != null) {
+            MachineRecordCodec.writeData(out, record.data());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRemove(MachineRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(13);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OP_REMOVE);
+        out.writeInt(record.x());
+        out.writeInt(record.y());
+        out.writeInt(record.z());
+        return bytes.toByteArray();
+    }
+
+    private void append(File region, List<byte[]> payloads) throws IOException {
+        boolean fresh = !region.exists();
+        if (fresh) {
+            File folder = region.getParentFile();
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("Could not create machine region folder " + folder + ".");
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(region, true), 1 << 16))) {
+            if (fresh) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+            for (byte[] payload : payloads) {
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        }
+    }
+
+    private void writeFresh(File region, List<byte[]> payloads) throws IOException {
+        File folder = region.getParentFile();
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Could not create machine region folder " + folder + ".");
+        }
+        Path target = region.toPath();
+        Path temp = PersistenceFiles.tempSibling(target);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (byte[] payload : payloads) {
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        }
+        PersistenceFiles.moveAtomically(temp, target);
+    }
+
+    private void compact(String worldName, File region, RegionStats regionStats) throws IOException {
+        Map<Long, MachineRecord> live = readRegion(worldName, region);
+        List<byte[]> payloads = new ArrayList<>(live.size());
+        for (MachineRecord record : live.values()) {
+            payloads.add(encodePut(record));
+        }
+        writeFresh(region, payloads);
+        regionStats.records = payloads.size();
+        regionStats.live.clear();
+        regionStats.live.addAll(live.keySet());
+        stats.put(region, regionStats);
+    }
+
+    private RegionStats stats(String worldName, File region) throws IOException {
+        RegionStats regionStats = stats.get(region);
+        if (regionStats != null) {
+            return regionStats;
+        }
+        if (region.exists()) {
+            readRegionSafely(worldName, region);
+            regionStats = stats.get(region);
+            if (regionStats != null) {
+                return regionStats;
+            }
+        }
+        regionStats = new RegionStats();
+        stats.put(region, regionStats);
+        return regionStats;
+    }
+
+    private static File corruptSibling(File region) {
+        return new File(region.getParentFile(), region.getName() + ".corrupt");
+    }
+
+    private File regionFile(MachineRecord record) {
+        return regionFile(record.worldName(), record.chunkX() >> REGION_SHIFT, record.chunkZ() >> REGION_SHIFT);
+    }
+
+    private File regionFile(String worldName, int regionX, int regionZ) {
+        return new File(new File(root, worldName), "r." + regionX + "." + regionZ + EXTENSION);
+    }
+
+    private static long blockKey(MachineRecord record) {
+        return MachineRegistry.blockKey(record.x(), record.y(), record.z());
+    }
+
+    private static final class RegionStats {
+        private final Set<Long> live = new HashSet<>();
+        private int records;
+    }
+}
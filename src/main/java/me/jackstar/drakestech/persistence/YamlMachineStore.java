@@ -0,0 +1,156 @@
+package me.jackstar.drakestech.persistence;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Legacy single-file store ({@code drakestech-machines.yml}). Every write rewrites the whole
+ * file from a snapshot.
+ */
+public class YamlMachineStore implements MachineStore {
+
+    private final File file;
+    private final Logger logger;
+
+    public YamlMachineStore(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return !file.exists();
+    }
+
+    @Override
+    public boolean requiresSnapshot() {
+        return true;
+    }
+
+    @Override
+    public synchronized List<MachineRecord> loadAll() throws IOException {
+        List<MachineRecord> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+
+        // loadConfiguration would log a parse error and hand back an empty config, which reads as
+        // "no machines" and lets the next save overwrite the file.
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(file);
+        } catch (InvalidConfigurationException ex) {
+            throw new IOException("Could not parse " + file.getName() + ".", ex);
+        }
+        ConfigurationSection machinesSection = config.getConfigurationSection("machines");
+        if (machinesSection == null) {
+            return records;
+        }
+
+        for (String key : machinesSection.getKeys(false)) {
+            try {
+                ConfigurationSection section = machinesSection.getConfigurationSection(key);
+                if (section == null) {
+                    continue;
+                }
+
+                String machineId = section.getString("id");
+                String worldName = section.getString("world");
+                if (machineId == null || worldName == null) {
+                    continue;
+                }
+
+                Map<Integer, ItemStack> items = new HashMap<>();
+                ConfigurationSection invSection = section.getConfigurationSection("inventory");
+                if (invSection != null) {
+                    for (String slotKey : invSection.getKeys(false)) {
+                        int slot;
+                        try {
+                            slot = Integer.parseInt(slotKey);
+                        } catch (NumberFormatException ignored) {
+                            continue;
+                        }
+                        ItemStack stack = invSection.getItemStack(slotKey);
+                        if (slot >= 0 && stack != null && !stack.getType().isAir()) {
+                            items.put(slot, stack);
+                        }
+                    }
+                }
+
+                records.add(new MachineRecord(machineId,
+                        worldName,
+                        section.getInt("x"),
+                        section.getInt("y"),
+                        section.getInt("z"),
+                        section.contains("energy"),
+                        Math.max(0.0D, section.getDouble("energy", 0.0D)),
+                        Math.max(0, section.getInt("progress", 0)),
+                        items,
+                        section.contains("data") ? Base64.getDecoder().decode(section.getString("data", "")) : null));
+            } catch (Exception ex) {
+                logger.log(Level.WARNING, "Failed to load machine entry '" + key + "'.", ex);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void write(MachineStoreBatch batch) throws IOException {
+        File folder = file.getParentFile();
+        if (folder != null && !folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Could not create plugin data folder for DrakesTech persistence.");
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        int index = 0;
+        for (MachineRecord record : batch.snapshot()) {
+            String path = "machines." + index++;
+            config.set(path + ".id", record.machineId());
+            config.set(path + ".world", record.worldName());
+            config.set(path + ".x", record.x());
+            config.set(path + ".y", record.y());
+            config.set(path + ".z", record.z());
+            if (record.hasEnergy()) {
+                config.set(path + ".energy", record.energy());
+            }
+            if (record.progress() > 0) {
+                config.set(path + ".progress", record.progress());
+            }
+            for (Map.Entry<Integer, ItemStack> item : record.items().entrySet()) {
+                config.set(path + ".inventory." + item.getKey(), item.getValue());
+            }
+            if (record.data() != null) {
+                config.set(path + ".data", Base64.getEncoder().encodeToString(record.data()));
+            }
+        }
+
+        Path target = file.toPath();
+        Path temp = PersistenceFiles.tempSibling(target);
+        Files.writeString(temp, config.saveToString(), StandardCharsets.UTF_8);
+        PersistenceFiles.moveAtomically(temp, target);
+    }
+}
@@ -0,0 +1,29 @@
+package me.jackstar.drakestech.recipe;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+
+/**
+ * A crafting grid recipe reduced to what an autocrafter needs: the result stack and, per
+ * distinct ingredient, the accepted items and how many of them one craft consumes.
+ */
+public record CraftingPattern(ItemStack result, List<Ingredient> ingredients) {
+
+    public CraftingPattern {
+        result = result.clone();
+        ingredients = List.copyOf(ingredients);
+    }
+
+    @Override
+    public ItemStack result() {
+        return result.clone();
+    }
+
+    public record Ingredient(List<ItemStack> choices, int amount) {
+
+        public Ingredient {
+            choices = List.copyOf(choices);
+        }
+    }
+}
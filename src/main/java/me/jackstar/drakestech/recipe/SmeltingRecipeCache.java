@@ -0,0 +1,74 @@
+package me.jackstar.drakestech.recipe;
+
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Smelting result for the stack a machine is working on. The engine is only asked again when
+ * the slot holds a different item or the recipes were reloaded; a stack that just shrank or
+ * grew keeps its result. Transport probes get a second, separate entry so they do not evict
+ * the slot's recipe.
+ */
+public final class SmeltingRecipeCache {
+
+    private final TechRecipeEngine recipeEngine;
+    private final Entry slot = new Entry();
+    private final Entry probe = new Entry();
+
+    public SmeltingRecipeCache(TechRecipeEngine recipeEngine) {
+        this.recipeEngine = recipeEngine;
+    }
+
+    /**
+     * Result of smelting {@code input}, or null when it has no recipe. The returned stack is
+     * shared; clone it before placing it anywhere.
+     */
+    public ItemStack resolve(ItemStack input) {
+        return lookup(slot, input);
+    }
+
+    /**
+     * Whether {@code stack} can be smelted at all, for transport insert checks.
+     */
+    public boolean accepts(ItemStack stack) {
+        if (stack == null || stack.getType().isAir()) {
+            return false;
+        }
+        if (slot.matches(stack, recipeEngine.getRevision())) {
+            return slot.result != null;
+        }
+        return lookup(probe, stack) != null;
+    }
+
+    private ItemStack lookup(Entry entry, ItemStack input) {
+        if (input == null || input.getType().isAir()) {
+            return null;
+        }
+        int revision = recipeEngine.getRevision();
+        if (entry.matches(input, revision)) {
+            entry.input = input;
+            return entry.result;
+        }
+
+        ItemStack result = recipeEngine.resolveSmeltingResult(input).orElse(null);
+        entry.input = input;
+        entry.template = input.clone();
+        entry.result = result == null || result.getType().isAir() ? null : result;
+        entry.revision = revision;
+        return entry.result;
+    }
+
+    private static final class Entry {
+        private ItemStack input;
+        private ItemStack template;
+        private ItemStack result;
+        private int revision;
+
+        private boolean matches(ItemStack stack, int currentRevision) {
+            if (template == null || revision != currentRevision) {
+                return false;
+            }
+            // Machine slots hand out the stored stack, so the same instance is the common case.
+            return (stack == input && stack.getType() == template.getType()) || template.isSimilar(stack);
+        }
+    }
+}
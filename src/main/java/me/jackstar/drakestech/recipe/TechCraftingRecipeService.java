@@ -8,6 +8,7 @@ import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.RecipeChoice;
 import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.inventory.ShapelessRecipe;
@@ -16,8 +17,10 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 public class TechCraftingRecipeService {
@@ -78,6 +81,46 @@ public class TechCraftingRecipeService {
         return registeredRecipeKeys.size();
     }
 
+    /**
+     * Shaped and shapeless recipes, ours and vanilla, whose result is similar to {@code result}.
+     */
+    public List<CraftingPattern> findPatterns(ItemStack result) {
+        if (result == null || result.getType().isAir()) {
+            return List.of();
+        }
+
+        List<CraftingPattern> patterns = new ArrayList<>();
+        for (Recipe recipe : Bukkit.getRecipesFor(result)) {
+            ItemStack output = recipe.getResult();
+            if (output == null || !output.isSimilar(result)) {
+                continue;
+            }
+
+            List<RecipeChoice> choices = new ArrayList<>();
+            if (recipe instanceof ShapedRecipe shaped) {
+                Map<Character, RecipeChoice> choiceMap = shaped.getChoiceMap();
+                for (String row : shaped.getShape()) {
+                    for (int i = 0; i < row.length(); i++) {
+                        RecipeChoice choice = choiceMap.get(row.charAt(i));
+                        if (choice != null) {
+                            choices.add(choice);
+                        }
+                    }
+                }
+            } else if (recipe instanceof ShapelessRecipe shapeless) {
+                choices.addAll(shapeless.getChoiceList());
+            } else {
+                continue;
+            }
+
+            List<CraftingPattern.Ingredient> ingredients = toIngredients(choices);
+            if (!ingredients.isEmpty()) {
+                patterns.add(new CraftingPattern(output, ingredients));
+            }
+        }
+        return patterns;
+    }
+
     private boolean registerShaped(NamespacedKey key, String id, ConfigurationSection section) {
         ItemStack output = resolveOutput(section.getString("output"), Math.max(1, section.getInt("amount", 1)));
         if (output == null || output.getType().isAir()) {
@@ -141,6 +184,34 @@ public class TechCraftingRecipeService {
         return Bukkit.addRecipe(recipe);
     }
 
+    private List<CraftingPattern.Ingredient> toIngredients(List<RecipeChoice> choices) {
+        Map<List<ItemStack>, Integer> counts = new LinkedHashMap<>();
+        for (RecipeChoice choice : choices) {
+            List<ItemStack> options = new ArrayList<>();
+            if (choice instanceof RecipeChoice.MaterialChoice materialChoice) {
+                for (Material material : materialChoice.getChoices()) {
+                    options.add(new ItemStack(material));
+                }
+            } else if (choice instanceof RecipeChoice.ExactChoice exactChoice) {
+                for (ItemStack stack : exactChoice.getChoices()) {
+                    ItemStack option = stack.clone();
+                    option.setAmount(1);
+                    options.add(option);
+                }
+            }
+            if (options.isEmpty()) {
+                return List.of();
+            }
+            counts.merge(options, 1, Integer::sum);
+        }
+
+        List<CraftingPattern.Ingredient> ingredients = new ArrayList<>(counts.size());
+        for (Map.Entry<List<ItemStack>, Integer> entry : counts.entrySet()) {
+            ingredients.add(new CraftingPattern.Ingredient(entry.getKey(), entry.getValue()));
+        }
+        return ingredients;
+    }
+
     private String[] normalizeShape(List<String> rawShape) {
         if (rawShape == null || rawShape.isEmpty()) {
             return new String[0];
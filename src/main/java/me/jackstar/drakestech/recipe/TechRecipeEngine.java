@@ -34,6 +34,7 @@ public class TechRecipeEngine {
     private final Map<Material, ItemStack> vanillaSmeltingRecipes = new EnumMap<>(Material.class);
     private final Map<String, SmeltingOutput> customSmeltingRecipes = new HashMap<>();
     private boolean useVanillaFallback = true;
+    private volatile int revision;
 
     public TechRecipeEngine(JavaPlugin plugin, TechItemRegistry itemRegistry) {
         this.plugin = plugin;
@@ -49,6 +50,7 @@ public class TechRecipeEngine {
 
         loadVanillaSmeltingRecipes();
         loadCustomSmeltingRecipes();
+        revision++;
 
         plugin.getLogger().info("[Recipes] Loaded custom smelting recipes: " + customSmeltingRecipes.size());
         plugin.getLogger().info("[Recipes] Loaded vanilla smelting recipes: " + vanillaSmeltingRecipes.size());
@@ -85,6 +87,13 @@ public class TechRecipeEngine {
         return Optional.of(vanilla.clone());
     }
 
+    /**
+     * Moves on every reload, so cached results can tell they are stale without locking.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
     public synchronized int getCustomSmeltingRecipeCount() {
         return customSmeltingRecipes.size();
     }
@@ -0,0 +1,457 @@
+package me.jackstar.drakestech.terminal;
+
+import io.papermc.paper.event.player.AsyncChatEvent;
+import me.jackstar.drakescraft.utils.ItemBuilder;
+import me.jackstar.drakescraft.utils.MessageUtils;
+import me.jackstar.drakestech.config.DrakesTechSettings;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.impl.NetworkTerminalMachine;
+import me.jackstar.drakestech.manager.MachineManager;
+import me.jackstar.drakestech.network.ItemKey;
+import me.jackstar.drakestech.network.StoredItem;
+import me.jackstar.drakestech.network.TechNetworkService;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Paged GUI over a network's item catalog. Only the visible page is rendered, and refreshes
+ * rewrite just the slots whose item or amount changed. Taking and depositing go through the
+ * network's storage like a bus would.
+ */
+public class NetworkTerminalManager implements Listener {
+
+    private static final int INVENTORY_SIZE = 54;
+    private static final int PAGE_SIZE = 45;
+    private static final int PREV_SLOT = 45;
+    private static final int SORT_SLOT = 47;
+    private static final int INFO_SLOT = 49;
+    private static final int SEARCH_SLOT = 51;
+    private static final int NEXT_SLOT = 53;
+    // Typing a search closes the GUI; a terminal closed this recently is reopened.
+    private static final int REOPEN_TICKS = 600;
+
+    private final JavaPlugin plugin;
+    private final DrakesTechSettings settings;
+    private final MachineManager machineManager;
+    private final Map<UUID, TerminalHolder> sessions = new HashMap<>();
+    private final Map<UUID, TerminalHolder> closed = new HashMap<>();
+    // Players whose next chat message is a terminal search; read from the async chat thread.
+    private final Set<UUID> searchPrompts = ConcurrentHashMap.newKeySet();
+    // Sorted catalog views shared by every terminal on a network until the next refresh.
+    private final Map<String, List<StoredItem>> sortedViews = new HashMap<>();
+    private BukkitTask refreshTask;
+
+    public NetworkTerminalManager(JavaPlugin plugin, DrakesTechSettings settings, MachineManager machineManager) {
+        this.plugin = plugin;
+        this.settings = settings;
+        this.machineManager = machineManager;
+    }
+
+    public void start() {
+        stop();
+        long interval = settings.getNetworkTerminalRefreshIntervalTicks();
+        refreshTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::refreshAll, interval, interval);
+    }
+
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel();
+            refreshTask = null;
+        }
+        for (UUID playerId : new ArrayList<>(sessions.keySet())) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                player.closeInventory();
+            }
+        }
+        sessions.clear();
+        closed.clear();
+        searchPrompts.clear();
+        sortedViews.clear();
+    }
+
+    public void open(Player player, String networkId) {
+        TerminalHolder holder = new TerminalHolder(networkId);
+        holder.inventory = Bukkit.createInventory(holder, INVENTORY_SIZE,
+                MessageUtils.parse("<dark_aqua><b>Network Terminal</b></dark_aqua>"));
+        render(holder);
+        player.openInventory(holder.inventory);
+        sessions.put(player.getUniqueId(), holder);
+    }
+
+    /**
+     * Filters the terminal {@code player} has open or just closed, reopening it if needed.
+     * Returns false when there is no such terminal.
+     */
+    public boolean search(Player player, String query) {
+        TerminalHolder holder = sessions.get(player.getUniqueId());
+        if (holder == null) {
+            holder = closed.remove(player.getUniqueId());
+            if (holder == null || Bukkit.getCurrentTick() - holder.closedTick > REOPEN_TICKS
+                    || machineManager.getNetworkService().getControllerLocation(holder.networkId).isEmpty()) {
+                return false;
+            }
+        }
+        holder.query = query == null || query.isBlank() ? null : query.trim().toLowerCase(Locale.ROOT);
+        holder.page = 0;
+        render(holder);
+        if (player.getOpenInventory().getTopInventory().getHolder() != holder) {
+            player.openInventory(holder.inventory);
+            sessions.put(player.getUniqueId(), holder);
+        }
+        return true;
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+    public void onTerminalInteract(PlayerInteractEvent event) {
+        if (event.getHand() != EquipmentSlot.HAND || event.getAction() != Action.RIGHT_CLICK_BLOCK
+                || event.getClickedBlock() == null || event.getPlayer().isSneaking()) {
+            return;
+        }
+        AbstractMachine machine = machineManager.getMachineAt(event.getClickedBlock()).orElse(null);
+        if (!(machine instanceof NetworkTerminalMachine)) {
+            return;
+        }
+
+        event.setCancelled(true);
+        String networkId = machineManager.getNetworkService().getNetworkId(machine.getLocation()).orElse(null);
+        if (networkId == null) {
+            MessageUtils.send(event.getPlayer(), "<red>This terminal is not connected to a network.</red>");
+            return;
+        }
+        open(event.getPlayer(), networkId);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (!(event.getWhoClicked() instanceof Player player)
+                || !(event.getView().getTopInventory().getHolder() instanceof TerminalHolder holder)) {
+            return;
+        }
+
+        int slot = event.getRawSlot();
+        if (slot >= INVENTORY_SIZE) {
+            // Own inventory: normal clicks stay vanilla, shift-click deposits the stack.
+            if (event.getClick() == ClickType.DOUBLE_CLICK) {
+                event.setCancelled(true);
+            } else if (event.isShiftClick()) {
+                event.setCancelled(true);
+                ItemStack stack = event.getCurrentItem();
+                if (stack != null && !stack.getType().isAir()) {
+                    event.getClickedInventory().setItem(event.getSlot(), deposit(holder, stack));
+                    render(holder);
+                }
+            }
+            return;
+        }
+
+        event.setCancelled(true);
+        if (slot < PAGE_SIZE) {
+            handleItemClick(player, holder, slot, event);
+            return;
+        }
+        switch (slot) {
+            case PREV_SLOT -> holder.page = Math.max(0, holder.page - 1);
+            case NEXT_SLOT -> holder.page++;
+            case SORT_SLOT -> {
+                holder.sort = holder.sort.next();
+                holder.page = 0;
+            }
+            case SEARCH_SLOT -> {
+                if (holder.query == null) {
+                    searchPrompts.add(player.getUniqueId());
+                    player.closeInventory();
+                    MessageUtils.send(player, "<gray>Type your search in chat, or</gray> <yellow>cancel</yellow><gray>.</gray>");
+                    return;
+                }
+                holder.query = null;
+                holder.page = 0;
+            }
+            default -> {
+                return;
+            }
+        }
+        render(holder);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getView().getTopInventory().getHolder() instanceof TerminalHolder) {
+            for (int slot : event.getRawSlots()) {
+                if (slot < INVENTORY_SIZE) {
+                    event.setCancelled(true);
+                    return;
+                }
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (event.getInventory().getHolder() instanceof TerminalHolder holder
+                && sessions.remove(event.getPlayer().getUniqueId(), holder)) {
+            holder.closedTick = Bukkit.getCurrentTick();
+            closed.put(event.getPlayer().getUniqueId(), holder);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onSearchChat(AsyncChatEvent event) {
+        Player player = event.getPlayer();
+        if (!searchPrompts.remove(player.getUniqueId())) {
+            return;
+        }
+        event.setCancelled(true);
+        String text = PlainTextComponentSerializer.plainText().serialize(event.message()).trim();
+        String query = "cancel".equalsIgnoreCase(text) ? null : text;
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (player.isOnline() && !search(player, query)) {
+                MessageUtils.send(player, "<red>The terminal is no longer available.</red>");
+            }
+        });
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        sessions.remove(event.getPlayer().getUniqueId());
+        closed.remove(event.getPlayer().getUniqueId());
+        searchPrompts.remove(event.getPlayer().getUniqueId());
+    }
+
+    private void handleItemClick(Player player, TerminalHolder holder, int slot, InventoryClickEvent event) {
+        ItemStack cursor = player.getItemOnCursor();
+        if (cursor != null && !cursor.getType().isAir()) {
+            player.setItemOnCursor(deposit(holder, cursor));
+            render(holder);
+            return;
+        }
+
+        ItemKey key = holder.shownKeys[slot];
+        if (key == null) {
+            return;
+        }
+        TechNetworkService networkService = machineManager.getNetworkService();
+        int wanted = event.isRightClick() && !event.isShiftClick() ? 1 : key.getMaxStackSize();
+        long taken = networkService.extractItem(holder.networkId, key.toStack(1), wanted);
+        if (taken <= 0L) {
+            return;
+        }
+
+        ItemStack stack = key.toStack((int) taken);
+        if (!event.isShiftClick()) {
+            player.setItemOnCursor(stack);
+        } else {
+            for (ItemStack leftover : player.getInventory().addItem(stack).values()) {
+                ItemStack rest = deposit(holder, leftover);
+                if (rest != null) {
+                    player.getWorld().dropItemNaturally(player.getLocation(), rest);
+                }
+            }
+        }
+        invalidate(holder.networkId);
+        render(holder);
+    }
+
+    /**
+     * Stores {@code stack} in the network and returns what did not fit, or null.
+     */
+    private ItemStack deposit(TerminalHolder holder, ItemStack stack) {
+        long stored = machineManager.getNetworkService().insertItem(holder.networkId, stack);
+        invalidate(holder.networkId);
+        int left = stack.getAmount() - (int) stored;
+        if (left <= 0) {
+            return null;
+        }
+        ItemStack rest = stack.clone();
+        rest.setAmount(left);
+        return rest;
+    }
+
+    private void invalidate(String networkId) {
+        for (SortMode sort : SortMode.values()) {
+            sortedViews.remove(networkId + "|" + sort);
+        }
+    }
+
+    private void refreshAll() {
+        sortedViews.clear();
+        if (sessions.isEmpty()) {
+            return;
+        }
+        TechNetworkService networkService = machineManager.getNetworkService();
+        for (Map.Entry<UUID, TerminalHolder> session : new ArrayList<>(sessions.entrySet())) {
+            Player player = Bukkit.getPlayer(session.getKey());
+            TerminalHolder holder = session.getValue();
+            if (player == null || player.getOpenInventory().getTopInventory().getHolder() != holder) {
+                sessions.remove(session.getKey());
+                continue;
+            }
+            if (networkService.getControllerLocation(holder.networkId).isEmpty()) {
+                player.closeInventory();
+                MessageUtils.send(player, "<red>The network went offline.</red>");
+                continue;
+            }
+            render(holder);
+        }
+    }
+
+    private void render(TerminalHolder holder) {
+        List<StoredItem> view = view(holder);
+        int totalPages = Math.max(1, (view.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        holder.page = Math.min(holder.page, totalPages - 1);
+
+        int offset = holder.page * PAGE_SIZE;
+        for (int slot = 0; slot < PAGE_SIZE; slot++) {
+            StoredItem item = offset + slot < view.size() ? view.get(offset + slot) : null;
+            ItemKey key = item == null ? null : item.key();
+            long amount = item == null ? 0L : item.amount();
+            if (Objects.equals(key, holder.shownKeys[slot]) && amount == holder.shownAmounts[slot]) {
+                continue;
+            }
+            holder.inventory.setItem(slot, item == null ? null : icon(item));
+            holder.shownKeys[slot] = key;
+            holder.shownAmounts[slot] = amount;
+        }
+
+        ControlState controls = new ControlState(holder.page, totalPages, view.size(), holder.sort, holder.query);
+        if (!controls.equals(holder.shownControls)) {
+            renderControls(holder.inventory, controls);
+            holder.shownControls = controls;
+        }
+    }
+
+    private List<StoredItem> view(TerminalHolder holder) {
+        List<StoredItem> sorted = sortedViews.computeIfAbsent(holder.networkId + "|" + holder.sort, ignored -> {
+            List<StoredItem> items = new ArrayList<>(machineManager.getNetworkService().getStoredItems(holder.networkId));
+            if (holder.sort == SortMode.NAME) {
+                items.sort(Comparator.comparing((StoredItem item) -> item.key().getType().name())
+                        .thenComparing(Comparator.comparingLong(StoredItem::amount).reversed()));
+            }
+            return items;
+        });
+        if (holder.query == null) {
+            return sorted;
+        }
+        List<StoredItem> matches = new ArrayList<>();
+        for (StoredItem item : sorted) {
+            String name = item.key().getType().name().toLowerCase(Locale.ROOT);
+            if (name.contains(holder.query) || name.replace('_', ' ').contains(holder.query)) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+
+    private ItemStack icon(StoredItem item) {
+        ItemStack icon = item.toStack((int) Math.max(1L, Math.min(item.amount(), item.key().getMaxStackSize())));
+        ItemMeta meta = icon.getItemMeta();
+        if (meta != null) {
+            List<Component> lore = meta.lore() == null ? new ArrayList<>() : new ArrayList<>(meta.lore());
+            lore.add(MessageUtils.parse("<gray>Stored:</gray> <aqua>" + item.amount() + "</aqua>"));
+            lore.add(MessageUtils.parse("<dark_gray>Left: stack | Right: one | Shift: to inventory</dark_gray>"));
+            meta.lore(lore);
+            icon.setItemMeta(meta);
+        }
+        return icon;
+    }
+
+    private void renderControls(Inventory inventory, ControlState controls) {
+        inventory.setItem(PREV_SLOT, controls.page() > 0
+                ? new ItemBuilder(Material.ARROW).name("<yellow>Previous Page</yellow>").build()
+                : null);
+        inventory.setItem(NEXT_SLOT, controls.page() < controls.totalPages() - 1
+                ? new ItemBuilder(Material.ARROW).name("<yellow>Next Page</yellow>").build()
+                : null);
+        inventory.setItem(SORT_SLOT, new ItemBuilder(Material.HOPPER)
+                .name("<gold><b>Sort</b></gold>")
+                .lore("<gray>By:</gray> <yellow>" + controls.sort().label + "</yellow>", "<gray>Click to change.</gray>")
+                .build());
+        inventory.setItem(INFO_SLOT, new ItemBuilder(Material.PAPER)
+                .name("<aqua><b>Network Storage</b></aqua>")
+                .lore("<gray>Page:</gray> <yellow>" + (controls.page() + 1) + "/" + controls.totalPages() + "</yellow>",
+                        "<gray>Item types:</gray> <yellow>" + controls.types() + "</yellow>",
+                        "<gray>Click with an item to deposit it.</gray>")
+                .build());
+        inventory.setItem(SEARCH_SLOT, controls.query() == null
+                ? new ItemBuilder(Material.COMPASS)
+                        .name("<gold><b>Search</b></gold>")
+                        .lore("<gray>Click to type a search in chat.</gray>",
+                                "<gray>Or use /drakestech terminal <text>.</gray>")
+                        .build()
+                : new ItemBuilder(Material.COMPASS)
+                        .name("<gold><b>Search:</b></gold> <yellow>" + MiniMessage.miniMessage().escapeTags(controls.query()) + "</yellow>")
+                        .lore("<gray>Click to clear.</gray>")
+                        .build());
+    }
+
+    private enum SortMode {
+        AMOUNT("amount"),
+        NAME("name");
+
+        private final String label;
+
+        SortMode(String label) {
+            this.label = label;
+        }
+
+        private SortMode next() {
+            return values()[(ordinal() + 1) % values().length];
+        }
+    }
+
+    private record ControlState(int page, int totalPages, int types, SortMode sort, String query) {
+    }
+
+    private static final class TerminalHolder implements InventoryHolder {
+        private final String networkId;
+        private final ItemKey[] shownKeys = new ItemKey[PAGE_SIZE];
+        private final long[] shownAmounts = new long[PAGE_SIZE];
+        private Inventory inventory;
+        private ControlState shownControls;
+        private SortMode sort = SortMode.AMOUNT;
+        private String query;
+        private int page;
+        private int closedTick;
+
+        private TerminalHolder(String networkId) {
+            this.networkId = networkId;
+        }
+
+        @Override
+        public Inventory getInventory() {
+            return inventory;
+        }
+    }
+}
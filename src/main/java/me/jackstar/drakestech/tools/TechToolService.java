@@ -121,7 +121,7 @@ public class TechToolService implements Listener {
             return;
         }
 
-        if (machineManager.getMachineAt(event.getBlock().getLocation()).isPresent()) {
+        if (machineManager.hasMachineAt(event.getBlock())) {
             return;
         }
 
@@ -135,7 +135,7 @@ public class TechToolService implements Listener {
             if (!isDrillBreakable(block)) {
                 continue;
             }
-            if (machineManager.getMachineAt(block.getLocation()).isPresent()) {
+            if (machineManager.hasMachineAt(block)) {
                 continue;
             }
             if (!canBreakWithProtectionChecks(player, block)) {
@@ -257,7 +257,7 @@ public class TechToolService implements Listener {
                     if (!settings.isImpactChargeBreakContainers() && block.getState() instanceof TileState) {
                         continue;
                     }
-                    if (machineManager.getMachineAt(block.getLocation()).isPresent()) {
+                    if (machineManager.hasMachineAt(block)) {
                         continue;
                     }
                     if (!canBreakWithProtectionChecks(player, block)) {
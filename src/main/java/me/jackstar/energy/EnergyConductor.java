@@ -0,0 +1,7 @@
+package me.jackstar.drakestech.energy;
+
+/**
+ * Marker for machines that join adjacent energy nodes into one grid without storing energy.
+ */
+public interface EnergyConductor {
+}
@@ -0,0 +1,21 @@
+package me.jackstar.drakestech.energy;
+
+import java.util.Locale;
+
+public enum EnergyDistributionPolicy {
+    FAIR_SHARE,
+    PRIORITY;
+
+    public static EnergyDistributionPolicy parse(String value, EnergyDistributionPolicy fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        for (EnergyDistributionPolicy policy : values()) {
+            if (policy.name().equals(normalized)) {
+                return policy;
+            }
+        }
+        return fallback;
+    }
+}
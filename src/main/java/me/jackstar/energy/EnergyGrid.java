@@ -0,0 +1,272 @@
+package me.jackstar.drakestech.energy;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One connected component of energy nodes. Each tick pools the supply of every source and
+ * the demand of every sink and settles both in a single pass. Nodes that can both receive
+ * and extract act as buffers: they absorb surplus and cover deficits.
+ */
+public class EnergyGrid implements EnergyNetwork {
+
+    private final EnergyTopology topology;
+    private final EnergyDistributionPolicy policy;
+    private final double maxTransferPerNode;
+
+    private final List<Member> sources = new ArrayList<>();
+    private final List<Member> sinks = new ArrayList<>();
+    private final List<Member> buffers = new ArrayList<>();
+    private boolean sorted = true;
+    private double lastTransferred;
+
+    public EnergyGrid(EnergyDistributionPolicy policy, double maxTransferPerNode) {
+        this(null, policy, maxTransferPerNode);
+    }
+
+    EnergyGrid(EnergyTopology topology, EnergyDistributionPolicy policy, double maxTransferPerNode) {
+        this.topology = topology;
+        this.policy = policy == null ? EnergyDistributionPolicy.FAIR_SHARE : policy;
+        this.maxTransferPerNode = Math.max(0.0D, maxTransferPerNode);
+    }
+
+    @Override
+    public void addSource(EnergyNode node) {
+        if (node != null) {
+            sources.add(new Member(node, -1));
+        }
+    }
+
+    @Override
+    public void addSink(EnergyNode node) {
+        if (node != null) {
+            sinks.add(new Member(node, -1));
+            sorted = false;
+        }
+    }
+
+    void add(EnergyNode node, int slot) {
+        boolean extract = node.canExtract();
+        boolean receive = node.canReceive();
+        if (extract && receive) {
+            buffers.add(new Member(node, slot));
+        } else if (extract) {
+            sources.add(new Member(node, slot));
+        } else if (receive) {
+            sinks.add(new Member(node, slot));
+            sorted = false;
+        }
+    }
+
+    public int getSourceCount() {
+        return sources.size();
+    }
+
+    public int getSinkCount() {
+        return sinks.size();
+    }
+
+    public int getBufferCount() {
+        return buffers.size();
+    }
+
+    public double getLastTransferred() {
+        return lastTransferred;
+    }
+
+    @Override
+    public double getTotalStored() {
+        double total = 0.0D;
+        for (Member member : sources) {
+            total += member.node.getStoredEnergy();
+        }
+        for (Member member : sinks) {
+            total += member.node.getStoredEnergy();
+        }
+        for (Member member : buffers) {
+            total += member.node.getStoredEnergy();
+        }
+        return total;
+    }
+
+    @Override
+    public double getCapacity() {
+        double total = 0.0D;
+        for (Member member : sources) {
+            total += member.node.getMaxEnergy();
+        }
+        for (Member member : sinks) {
+            total += member.node.getMaxEnergy();
+        }
+        for (Member member : buffers) {
+            total += member.node.getMaxEnergy();
+        }
+        return total;
+    }
+
+    @Override
+    public void tick() {
+        lastTransferred = 0.0D;
+        if (sources.isEmpty() && buffers.isEmpty()) {
+            return;
+        }
+        if (sinks.isEmpty() && (buffers.isEmpty() || sources.isEmpty())) {
+            return;
+        }
+        if (!sorted) {
+            if (policy == EnergyDistributionPolicy.PRIORITY) {
+                sinks.sort(Comparator.comparingInt((Member member) -> member.node.getEnergyPriority()).reversed());
+            }
+            sorted = true;
+        }
+
+        double supply = 0.0D;
+        for (Member member : sources) {
+            member.amount = isActive(member) ? Math.min(maxTransferPerNode, Math.max(0.0D, member.node.getStoredEnergy())) : 0.0D;
+            supply += member.amount;
+        }
+        double demand = 0.0D;
+        for (Member member : sinks) {
+            member.amount = isActive(member) ? Math.min(inputLimit(member.node, maxTransferPerNode), freeSpace(member.node)) : 0.0D;
+            demand += member.amount;
+        }
+        double bufferSupply = 0.0D;
+        double bufferDemand = 0.0D;
+        for (Member member : buffers) {
+            boolean active = isActive(member);
+            member.amount = active ? Math.min(maxTransferPerNode, Math.max(0.0D, member.node.getStoredEnergy())) : 0.0D;
+            member.secondary = active ? Math.min(inputLimit(member.node, maxTransferPerNode), freeSpace(member.node)) : 0.0D;
+            bufferSupply += member.amount;
+            bufferDemand += member.secondary;
+        }
+
+        double fromSources;
+        double fromBuffers;
+        double toSinks;
+        double toBuffers;
+        if (supply >= demand) {
+            toSinks = demand;
+            toBuffers = Math.min(supply - demand, bufferDemand);
+            fromSources = toSinks + toBuffers;
+            fromBuffers = 0.0D;
+        } else {
+            fromBuffers = Math.min(demand - supply, bufferSupply);
+            fromSources = supply;
+            toSinks = supply + fromBuffers;
+            toBuffers = 0.0D;
+        }
+        if (toSinks + toBuffers <= 0.0D) {
+            return;
+        }
+
+        double pool = drain(sources, fromSources, supply) + drain(buffers, fromBuffers, bufferSupply);
+        double delivered = 0.0D;
+        if (policy == EnergyDistributionPolicy.PRIORITY) {
+            double remaining = Math.min(pool, toSinks);
+            for (Member member : sinks) {
+                if (remaining <= 0.0D) {
+                    break;
+                }
+                double accepted = deliver(member.node, Math.min(member.amount, remaining));
+                remaining -= accepted;
+                delivered += accepted;
+            }
+        } else if (demand > 0.0D) {
+            double ratio = Math.min(pool, toSinks) / demand;
+            for (Member member : sinks) {
+                delivered += deliver(member.node, member.amount * ratio);
+            }
+        }
+
+        if (toBuffers > 0.0D && bufferDemand > 0.0D) {
+            double ratio = Math.min(pool - delivered, toBuffers) / bufferDemand;
+            for (Member member : buffers) {
+                delivered += deliver(member.node, member.secondary * ratio);
+            }
+        }
+
+        double leftover = pool - delivered;
+        if (leftover > 1.0E-9D) {
+            // Sources first, then the buffers that covered the deficit.
+            refund(buffers, refund(sources, leftover));
+        }
+        lastTransferred = delivered;
+    }
+
+    static double inputLimit(EnergyNode node, double defaultLimit) {
+        double limit = node.getMaxEnergyInput();
+        return limit > 0.0D ? limit : defaultLimit;
+    }
+
+    private double drain(List<Member> members, double requested, double offered) {
+        if (requested <= 0.0D || offered <= 0.0D) {
+            for (Member member : members) {
+                member.taken = 0.0D;
+            }
+            return 0.0D;
+        }
+        double ratio = Math.min(1.0D, requested / offered);
+        double total = 0.0D;
+        for (Member member : members) {
+            member.taken = member.amount > 0.0D ? member.node.extractEnergy(member.amount * ratio) : 0.0D;
+            total += member.taken;
+        }
+        return total;
+    }
+
+    /**
+     * Gives {@code amount} back to {@code members}, each up to what it gave this tick. Returns
+     * the part that could not be placed.
+     */
+    private double refund(List<Member> members, double amount) {
+        double remaining = amount;
+        for (Member member : members) {
+            if (remaining <= 0.0D) {
+                return 0.0D;
+            }
+            double back = Math.min(remaining, member.taken);
+            if (back > 0.0D) {
+                member.node.receiveEnergy(back);
+                remaining -= back;
+            }
+        }
+        return remaining;
+    }
+
+    private boolean isActive(Member member) {
+        return member.slot < 0 || topology == null || topology.isActiveSlot(member.slot);
+    }
+
+    private static double freeSpace(EnergyNode node) {
+        return Math.max(0.0D, node.getMaxEnergy() - node.getStoredEnergy());
+    }
+
+    private static double deliver(EnergyNode node, double amount) {
+        if (amount <= 0.0D) {
+            return 0.0D;
+        }
+        double before = node.getStoredEnergy();
+        node.receiveEnergy(amount);
+        double accepted = Math.max(0.0D, node.getStoredEnergy() - before);
+        if (accepted > 0.0D && node instanceof AbstractMachine machine) {
+            machine.wake();
+        }
+        return accepted;
+    }
+
+    private static final class Member {
+        private final EnergyNode node;
+        private final int slot;
+        private double amount;
+        private double secondary;
+        private double taken;
+
+        private Member(EnergyNode node, int slot) {
+            this.node = node;
+            this.slot = slot;
+        }
+    }
+}
@@ -16,4 +16,16 @@ public interface EnergyNode {
     boolean canReceive();
 
     boolean canExtract();
+
+    default int getEnergyPriority() {
+        return 0;
+    }
+
+    /**
+     * Energy this node may receive per tick. Zero or less uses the configured
+     * {@code max-transfer-per-node}.
+     */
+    default double getMaxEnergyInput() {
+        return 0.0D;
+    }
 }
@@ -0,0 +1,321 @@
+package me.jackstar.drakestech.energy;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.manager.MachineRegistry;
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Face adjacency between placed energy nodes and conductors, maintained incrementally when
+ * machines are placed or broken. Source-to-sink edges are compiled into flat int arrays so the
+ * per-tick transfer pass never touches Bukkit blocks. Connected components are grouped into
+ * {@link EnergyGrid}s lazily, only after the topology changed.
+ */
+public class EnergyTopology {
+
+    private static final BlockFace[] ADJACENT_FACES = {
+            BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP, BlockFace.DOWN
+    };
+    private static final int FACES = ADJACENT_FACES.length;
+    private static final int NO_NODE = -1;
+
+    private final MachineRegistry registry;
+    private final Map<AbstractMachine, Integer> indexByNode = new HashMap<>();
+    private final List<EnergyGrid> grids = new ArrayList<>();
+
+    private AbstractMachine[] members = new AbstractMachine[64];
+    private EnergyNode[] nodes = new EnergyNode[64];
+    private boolean[] active = new boolean[64];
+    private int[] neighbours = newNeighbourTable(64);
+    private int[] freeIndices = new int[16];
+    private int freeCount;
+    private int highWater;
+
+    private int[] edgeSources = new int[0];
+    private int[] edgeSinks = new int[0];
+    private int edgeCount;
+    private boolean edgesDirty;
+    private boolean gridsDirty;
+    private EnergyDistributionPolicy gridPolicy = EnergyDistributionPolicy.FAIR_SHARE;
+    private double gridTransferPerNode = 20.0D;
+
+    public EnergyTopology(MachineRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void add(AbstractMachine machine) {
+        if (!isMember(machine) || indexByNode.containsKey(machine)) {
+            return;
+        }
+
+        int index = allocateIndex();
+        members[index] = machine;
+        nodes[index] = machine instanceof EnergyNode node ? node : null;
+        active[index] = registry.isActive(machine);
+        indexByNode.put(machine, index);
+
+        for (int face = 0; face < FACES; face++) {
+            BlockFace blockFace = ADJACENT_FACES[face];
+            AbstractMachine adjacent = registry.getRelative(machine, blockFace.getModX(), blockFace.getModY(), blockFace.getModZ());
+            Integer adjacentIndex = adjacent == null ? null : indexByNode.get(adjacent);
+            if (adjacentIndex == null || adjacentIndex == index) {
+                neighbours[index * FACES + face] = NO_NODE;
+                continue;
+            }
+            neighbours[index * FACES + face] = adjacentIndex;
+            neighbours[adjacentIndex * FACES + opposite(face)] = index;
+        }
+        edgesDirty = true;
+        gridsDirty = true;
+    }
+
+    public void remove(AbstractMachine machine) {
+        if (!isMember(machine)) {
+            return;
+        }
+        Integer removed = indexByNode.remove(machine);
+        if (removed == null) {
+            return;
+        }
+
+        int index = removed;
+        for (int face = 0; face < FACES; face++) {
+            int adjacent = neighbours[index * FACES + face];
+            if (adjacent != NO_NODE) {
+                neighbours[adjacent * FACES + opposite(face)] = NO_NODE;
+            }
+            neighbours[index * FACES + face] = NO_NODE;
+        }
+        members[index] = null;
+        nodes[index] = null;
+        active[index] = false;
+        releaseIndex(index);
+        edgesDirty = true;
+        gridsDirty = true;
+    }
+
+    public void setActive(AbstractMachine machine, boolean value) {
+        if (!isMember(machine)) {
+            return;
+        }
+        Integer index = indexByNode.get(machine);
+        if (index != null) {
+            active[index] = value;
+        }
+    }
+
+    public void clear() {
+        indexByNode.clear();
+        grids.clear();
+        Arrays.fill(members, null);
+        Arrays.fill(nodes, null);
+        Arrays.fill(active, false);
+        Arrays.fill(neighbours, NO_NODE);
+        freeCount = 0;
+        highWater = 0;
+        edgeCount = 0;
+        edgesDirty = false;
+        gridsDirty = false;
+    }
+
+    public void configureGrids(EnergyDistributionPolicy policy, double maxTransferPerNode) {
+        EnergyDistributionPolicy resolved = policy == null ? EnergyDistributionPolicy.FAIR_SHARE : policy;
+        if (resolved != gridPolicy || maxTransferPerNode != gridTransferPerNode) {
+            gridPolicy = resolved;
+            gridTransferPerNode = maxTransferPerNode;
+            gridsDirty = true;
+        }
+    }
+
+    public List<EnergyGrid> getGrids() {
+        if (gridsDirty) {
+            buildGrids();
+        }
+        return grids;
+    }
+
+    public int getGridCount() {
+        return getGrids().size();
+    }
+
+    public void tickGrids() {
+        List<EnergyGrid> current = getGrids();
+        for (int i = 0; i < current.size(); i++) {
+            current.get(i).tick();
+        }
+    }
+
+    boolean isActiveSlot(int index) {
+        return index < highWater && active[index];
+    }
+
+    public int getNodeCount() {
+        return indexByNode.size();
+    }
+
+    public int getEdgeCount() {
+        if (edgesDirty) {
+            compileEdges();
+        }
+        return edgeCount;
+    }
+
+    public void transfer(double maxTransferPerEdge) {
+        if (edgesDirty) {
+            compileEdges();
+        }
+
+        for (int i = 0; i < edgeCount; i++) {
+            int sourceIndex = edgeSources[i];
+            int sinkIndex = edgeSinks[i];
+            if (!active[sourceIndex] || !active[sinkIndex]) {
+                continue;
+            }
+
+            EnergyNode source = nodes[sourceIndex];
+            double available = source.getStoredEnergy();
+            if (available <= 0) {
+                continue;
+            }
+
+            EnergyNode sink = nodes[sinkIndex];
+            double space = sink.getMaxEnergy() - sink.getStoredEnergy();
+            if (space <= 0) {
+                continue;
+            }
+
+            double transferRequest = Math.min(EnergyGrid.inputLimit(sink, maxTransferPerEdge), Math.min(space, available));
+            if (transferRequest <= 0) {
+                continue;
+            }
+
+            double extracted = source.extractEnergy(transferRequest);
+            if (extracted <= 0) {
+                continue;
+            }
+
+            double before = sink.getStoredEnergy();
+            sink.receiveEnergy(extracted);
+            double accepted = Math.max(0, sink.getStoredEnergy() - before);
+            if (accepted < extracted) {
+                source.receiveEnergy(extracted - accepted);
+            }
+            if (accepted > 0 && sink instanceof AbstractMachine machine) {
+                machine.wake();
+            }
+        }
+    }
+
+    private void compileEdges() {
+        int maxEdges = highWater * FACES;
+        if (edgeSources.length < maxEdges) {
+            edgeSources = new int[maxEdges];
+            edgeSinks = new int[maxEdges];
+        }
+
+        int count = 0;
+        for (int index = 0; index < highWater; index++) {
+            EnergyNode source = nodes[index];
+            if (source == null || !source.canExtract()) {
+                continue;
+            }
+            for (int face = 0; face < FACES; face++) {
+                int adjacent = neighbours[index * FACES + face];
+                if (adjacent == NO_NODE || nodes[adjacent] == null || !nodes[adjacent].canReceive()) {
+                    continue;
+                }
+                edgeSources[count] = index;
+                edgeSinks[count] = adjacent;
+                count++;
+            }
+        }
+        edgeCount = count;
+        edgesDirty = false;
+    }
+
+    private void buildGrids() {
+        grids.clear();
+        boolean[] visited = new boolean[highWater];
+        int[] queue = new int[highWater];
+        for (int start = 0; start < highWater; start++) {
+            if (visited[start] || members[start] == null) {
+                continue;
+            }
+
+            EnergyGrid grid = new EnergyGrid(this, gridPolicy, gridTransferPerNode);
+            int nodeCount = 0;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            visited[start] = true;
+            while (head < tail) {
+                int index = queue[head++];
+                if (nodes[index] != null) {
+                    grid.add(nodes[index], index);
+                    nodeCount++;
+                }
+                for (int face = 0; face < FACES; face++) {
+                    int adjacent = neighbours[index * FACES + face];
+                    if (adjacent != NO_NODE && !visited[adjacent]) {
+                        visited[adjacent] = true;
+                        queue[tail++] = adjacent;
+                    }
+                }
+            }
+            if (nodeCount > 1) {
+                grids.add(grid);
+            }
+        }
+        gridsDirty = false;
+    }
+
+    private static boolean isMember(AbstractMachine machine) {
+        return machine instanceof EnergyNode || machine instanceof EnergyConductor;
+    }
+
+    private int allocateIndex() {
+        if (freeCount > 0) {
+            return freeIndices[--freeCount];
+        }
+        if (highWater == nodes.length) {
+            int capacity = nodes.length << 1;
+            members = Arrays.copyOf(members, capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            active = Arrays.copyOf(active, capacity);
+            int[] grown = newNeighbourTable(capacity);
+            System.arraycopy(neighbours, 0, grown, 0, neighbours.length);
+            neighbours = grown;
+        }
+        return highWater++;
+    }
+
+    private void releaseIndex(int index) {
+        if (freeCount == freeIndices.length) {
+            freeIndices = Arrays.copyOf(freeIndices, freeCount << 1);
+        }
+        freeIndices[freeCount++] = index;
+    }
+
+    private static int[] newNeighbourTable(int capacity) {
+        int[] table = new int[capacity * FACES];
+        Arrays.fill(table, NO_NODE);
+        return table;
+    }
+
+    private static int opposite(int face) {
+        // NORTH<->SOUTH, EAST<->WEST, UP<->DOWN in ADJACENT_FACES order.
+        return switch (face) {
+            case 0 -> 2;
+            case 1 -> 3;
+            case 2 -> 0;
+            case 3 -> 1;
+            case 4 -> 5;
+            default -> 4;
+        };
+    }
+}
@@ -1,11 +1,17 @@
 package me.jackstar.drakestech.listeners;
 
 import me.jackstar.drakescraft.utils.MessageUtils;
+import me.jackstar.drakestech.cargo.CargoNode;
 import me.jackstar.drakestech.manager.MachineManager;
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.Rotation;
 import me.jackstar.drakestech.machines.factory.MachineFactory;
+import me.jackstar.drakestech.machines.impl.BulkStorageCellMachine;
 import me.jackstar.drakestech.multiblock.MultiblockService;
+import me.jackstar.drakestech.network.BulkItemStore;
 import org.bukkit.Location;
+import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -15,9 +21,10 @@ import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.EquipmentSlot;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.Locale;
+
 public class DrakesTechBlockListener implements Listener {
 
     private final MachineManager machineManager;
@@ -44,6 +51,11 @@ public class DrakesTechBlockListener implements Listener {
 
         Location location = event.getBlockPlaced().getLocation();
         machineFactory.createMachine(machineId, location).ifPresent(machine -> {
+            if (machine instanceof CargoNode cargo) {
+                // Face the block it was placed against, or the way the player looks when placed on top.
+                BlockFace against = event.getBlockPlaced().getFace(event.getBlockAgainst());
+                cargo.setFacing(Rotation.fromBlockFace(against, Rotation.fromBlockFace(event.getPlayer().getFacing(), Rotation.NORTH)));
+            }
             machineManager.registerMachine(machine);
             MessageUtils.send(event.getPlayer(), "<green>Placed machine: <yellow>" + machineId + "</yellow>.</green>");
         });
@@ -61,6 +73,13 @@ public class DrakesTechBlockListener implements Listener {
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onBlockBreak(BlockBreakEvent event) {
         Location location = event.getBlock().getLocation();
+        if (machineManager.getMachineAt(location).orElse(null) instanceof BulkStorageCellMachine bulkCell
+                && !bulkCell.getStore().isEmpty()) {
+            event.setCancelled(true);
+            MessageUtils.send(event.getPlayer(), "<red>Empty this storage cell through its network before breaking it.</red>");
+            return;
+        }
+
         AbstractMachine machine = machineManager.removeMachineAt(location).orElse(null);
         if (machine == null) {
             return;
@@ -69,7 +88,7 @@ public class DrakesTechBlockListener implements Listener {
         event.setDropItems(false);
         event.setExpToDrop(0);
 
-        Inventory machineInventory = machine.getInventory();
+        MachineInventory machineInventory = machine.getMachineInventory();
         if (machineInventory != null) {
             for (ItemStack stack : machineInventory.getContents()) {
                 if (stack == null || stack.getType().isAir()) {
@@ -94,19 +113,40 @@ public class DrakesTechBlockListener implements Listener {
             return;
         }
 
-        Location location = event.getClickedBlock().getLocation();
-        AbstractMachine machine = machineManager.getMachineAt(location).orElse(null);
+        AbstractMachine machine = machineManager.getMachineAt(event.getClickedBlock()).orElse(null);
         if (machine == null) {
             return;
         }
 
-        Inventory inventory = machine.getInventory();
+        if (machine instanceof BulkStorageCellMachine bulkCell) {
+            event.setCancelled(true);
+            BulkItemStore store = bulkCell.getStore();
+            MessageUtils.send(event.getPlayer(), "<gray>Stored:</gray> <aqua>" + store.getTotal() + "/" + store.getCapacity()
+                    + "</aqua> <gray>items in</gray> <aqua>" + store.getTypeCount() + "/" + store.getMaxTypes() + "</aqua> <gray>types.</gray>");
+            return;
+        }
+
+        if (machine instanceof CargoNode cargo) {
+            if (event.hasItem()) {
+                return;
+            }
+            event.setCancelled(true);
+            cargo.setFacing(cargo.getFacing().rotateClockwise());
+            machine.markDirty();
+            machineManager.getCargoTopology().invalidate();
+            MessageUtils.send(event.getPlayer(), "<gray>Cargo node now faces</gray> <yellow>"
+                    + cargo.getFacing().name().toLowerCase(Locale.ROOT) + "</yellow><gray>.</gray>");
+            return;
+        }
+
+        MachineInventory inventory = machine.getMachineInventory();
         if (inventory == null) {
             return;
         }
 
+        // The Bukkit view only exists while someone has it open; MachineWakeListener syncs it back on close.
         event.setCancelled(true);
         Player player = event.getPlayer();
-        player.openInventory(inventory);
+        player.openInventory(inventory.openView());
     }
 }
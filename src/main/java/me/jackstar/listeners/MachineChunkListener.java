@@ -0,0 +1,27 @@
+package me.jackstar.drakestech.listeners;
+
+import me.jackstar.drakestech.manager.MachineManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+public class MachineChunkListener implements Listener {
+
+    private final MachineManager machineManager;
+
+    public MachineChunkListener(MachineManager machineManager) {
+        this.machineManager = machineManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        machineManager.handleChunkLoad(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        machineManager.handleChunkUnload(event.getChunk());
+    }
+}
@@ -0,0 +1,92 @@
+package me.jackstar.drakestech.listeners;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.manager.MachineManager;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.inventory.Inventory;
+
+public class MachineWakeListener implements Listener {
+
+    private final MachineManager machineManager;
+
+    public MachineWakeListener(MachineManager machineManager) {
+        this.machineManager = machineManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        wakeHolder(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        wakeHolder(event.getInventory());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        wakeHolder(event.getSource());
+        wakeHolder(event.getDestination());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onInventoryClose(InventoryCloseEvent event) {
+        Inventory inventory = event.getInventory();
+        // The closing player still counts as a viewer here.
+        if (inventory.getHolder(false) instanceof AbstractMachine machine && machine.getMachineInventory() != null
+                && inventory.getViewers().size() <= 1) {
+            machine.getMachineInventory().closeView();
+        }
+        wakeHolder(inventory);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        machineManager.wakeNeighbours(event.getBlock());
+        machineManager.handleBlockChange(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        machineManager.wakeNeighbours(event.getBlock());
+        machineManager.handleBlockChange(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPhysics(BlockPhysicsEvent event) {
+        // The source block is the one that changed; the event block is only its neighbour.
+        machineManager.handleBlockChange(event.getSourceBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            machineManager.handleBlockChange(block);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        for (Block block : event.blockList()) {
+            machineManager.handleBlockChange(block);
+        }
+    }
+
+    private void wakeHolder(Inventory inventory) {
+        if (inventory != null && inventory.getHolder(false) instanceof AbstractMachine machine) {
+            machineManager.handleInventoryChange(machine);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package me.jackstar.drakestech.listeners;
+
+import me.jackstar.drakescraft.utils.MessageUtils;
+import me.jackstar.drakestech.config.DrakesTechSettings;
+import me.jackstar.drakestech.item.TechItemRegistry;
+import me.jackstar.drakestech.manager.MachineManager;
+import me.jackstar.drakestech.network.TechNetworkService;
+import me.jackstar.drakestech.terminal.NetworkTerminalManager;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * Wireless Terminal: sneak + right-click a network block to bind the terminal to that network,
+ * right-click anywhere else to open the bound network's terminal from a distance.
+ */
+public class WirelessTerminalListener implements Listener {
+
+    private final DrakesTechSettings settings;
+    private final TechItemRegistry itemRegistry;
+    private final MachineManager machineManager;
+    private final NetworkTerminalManager terminalManager;
+    private final NamespacedKey networkKey;
+
+    public WirelessTerminalListener(JavaPlugin plugin, DrakesTechSettings settings, TechItemRegistry itemRegistry,
+            MachineManager machineManager, NetworkTerminalManager terminalManager) {
+        this.settings = settings;
+        this.itemRegistry = itemRegistry;
+        this.machineManager = machineManager;
+        this.terminalManager = terminalManager;
+        this.networkKey = new NamespacedKey(plugin, "wireless_network");
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onTerminalUse(PlayerInteractEvent event) {
+        if (event.getHand() != EquipmentSlot.HAND) {
+            return;
+        }
+        if (event.getAction() != Action.RIGHT_CLICK_AIR && event.getAction() != Action.RIGHT_CLICK_BLOCK) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        ItemStack terminal = player.getInventory().getItemInMainHand();
+        if (!settings.getNetworkWirelessItemId().equals(itemRegistry.readTechItemId(terminal).orElse(null))) {
+            return;
+        }
+        event.setCancelled(true);
+
+        TechNetworkService networkService = machineManager.getNetworkService();
+        Block clicked = event.getClickedBlock();
+        if (player.isSneaking() && clicked != null) {
+            String networkId = networkService.getNetworkId(clicked.getLocation()).orElse(null);
+            if (networkId == null) {
+                MessageUtils.send(player, "<red>That block is not part of a DrakesTech network.</red>");
+                return;
+            }
+            bind(terminal, networkId);
+            MessageUtils.send(player, "<green>Terminal bound to network <aqua>" + networkId + "</aqua>.</green>");
+            return;
+        }
+
+        String networkId = readNetwork(terminal);
+        if (networkId == null) {
+            MessageUtils.send(player, "<red>Sneak + right-click a network block to bind this terminal.</red>");
+            return;
+        }
+        Location controller = networkService.getControllerLocation(networkId).orElse(null);
+        if (controller == null) {
+            MessageUtils.send(player, "<red>The bound network <gray>" + networkId + "</gray> is offline.</red>");
+            return;
+        }
+        if (!inRange(player.getLocation(), controller)) {
+            MessageUtils.send(player, "<red>Out of range of the bound network.</red>");
+            return;
+        }
+
+        terminalManager.open(player, networkId);
+    }
+
+    private boolean inRange(Location player, Location controller) {
+        if (player.getWorld() == null || !player.getWorld().equals(controller.getWorld())) {
+            return settings.isNetworkWirelessCrossWorld();
+        }
+        int range = settings.getNetworkWirelessRange();
+        return range <= 0 || player.distanceSquared(controller) <= (double) range * range;
+    }
+
+    private void bind(ItemStack terminal, String networkId) {
+        ItemMeta meta = terminal.getItemMeta();
+        if (meta == null) {
+            return;
+        }
+        meta.getPersistentDataContainer().set(networkKey, PersistentDataType.STRING, networkId);
+        terminal.setItemMeta(meta);
+    }
+
+    private String readNetwork(ItemStack terminal) {
+        ItemMeta meta = terminal.getItemMeta();
+        return meta == null ? null : meta.getPersistentDataContainer().get(networkKey, PersistentDataType.STRING);
+    }
+}
@@ -8,6 +8,11 @@ public abstract class AbstractMachine implements InventoryHolder {
 
     private final Location location;
     private final String id;
+    private boolean sleeping;
+    private boolean dirty;
+    private boolean progressDirty;
+    private int inventoryVersion;
+    private MachineStateListener stateListener;
 
     public AbstractMachine(String id, Location location) {
         this.id = id;
@@ -16,6 +21,130 @@ public abstract class AbstractMachine implements InventoryHolder {
 
     public abstract void tick(); // Called every server tick/second
 
+    /**
+     * Advances the machine by several server ticks at once when the scheduler could not
+     * reach it every tick. Override when one step can cover the whole interval.
+     */
+    public void tick(int elapsedTicks) {
+        for (int i = 0; i < elapsedTicks; i++) {
+            tick();
+        }
+    }
+
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVERY_TICK;
+    }
+
+    /**
+     * Removes the machine from the tick loop until {@link #wake()} is called, e.g. by an
+     * inventory change, arriving energy or a neighbour block change.
+     */
+    public final void sleep() {
+        if (sleeping) {
+            return;
+        }
+        sleeping = true;
+        if (stateListener != null) {
+            stateListener.onSleepStateChanged(this, true);
+        }
+    }
+
+    public final void wake() {
+        if (!sleeping) {
+            return;
+        }
+        sleeping = false;
+        if (stateListener != null) {
+            stateListener.onSleepStateChanged(this, false);
+        }
+    }
+
+    public final boolean isSleeping() {
+        return sleeping;
+    }
+
+    /**
+     * Flags persisted state (energy, inventory, progress) as changed so the next save
+     * writes this machine. Cheap enough to call on every change.
+     */
+    public final void markDirty() {
+        if (dirty) {
+            return;
+        }
+        dirty = true;
+        if (stateListener != null) {
+            stateListener.onMarkedDirty(this, true);
+        }
+    }
+
+    /**
+     * Flags a change that only the periodic save needs to capture, such as work progress
+     * counting up. Unlike {@link #markDirty()} it is not written to the journal every tick.
+     */
+    public final void markProgressChanged() {
+        if (dirty || progressDirty) {
+            return;
+        }
+        progressDirty = true;
+        if (stateListener != null) {
+            stateListener.onMarkedDirty(this, false);
+        }
+    }
+
+    public final boolean isDirty() {
+        return dirty || progressDirty;
+    }
+
+    public final void clearDirty() {
+        dirty = false;
+        progressDirty = false;
+    }
+
+    /**
+     * Records a change to this machine's inventory: bumps {@link #getInventoryVersion()} and
+     * marks the machine dirty. Machine code must call it after every inventory write.
+     */
+    public final void markInventoryChanged() {
+        inventoryVersion++;
+        markDirty();
+    }
+
+    /**
+     * Counter that moves whenever the inventory may have changed. Transport remembers it when a
+     * machine had nothing to move and skips the machine until it moves again.
+     */
+    public final int getInventoryVersion() {
+        return inventoryVersion;
+    }
+
+    public final void setStateListener(MachineStateListener stateListener) {
+        this.stateListener = stateListener;
+    }
+
+    public int getProgressTicks() {
+        return 0;
+    }
+
+    public void setProgressTicks(int progressTicks) {
+        // Optional: restore persisted work progress.
+    }
+
+    /**
+     * Machine-specific state persisted next to energy, progress and inventory, or null when
+     * there is none. Called on the main thread whenever a dirty machine is saved.
+     */
+    public byte[] getPersistentData() {
+        return null;
+    }
+
+    public void setPersistentData(byte[] data) {
+        // Optional: restore state written by getPersistentData().
+    }
+
+    public void catchUp(long elapsedTicks) {
+        // Optional: simulate work done while the machine chunk was unloaded.
+    }
+
     public Location getLocation() {
         return location;
     }
@@ -24,8 +153,17 @@ public abstract class AbstractMachine implements InventoryHolder {
         return id;
     }
 
+    public MachineInventory getMachineInventory() {
+        return null; // Override if machine has inventory
+    }
+
+    /**
+     * Bukkit view of {@link #getMachineInventory()} for players, created on demand and kept
+     * until its last viewer closes it. Machine code should use the machine inventory instead.
+     */
     @Override
     public Inventory getInventory() {
-        return null; // Override if machine has inventory
+        MachineInventory inventory = getMachineInventory();
+        return inventory == null ? null : inventory.openView();
     }
 }
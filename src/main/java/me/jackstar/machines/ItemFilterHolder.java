@@ -0,0 +1,16 @@
+package me.jackstar.drakestech.machines;
+
+import me.jackstar.drakestech.network.ItemFilter;
+
+/**
+ * A network node whose traffic can be restricted by an {@link ItemFilter}.
+ */
+public interface ItemFilterHolder {
+
+    ItemFilter getItemFilter();
+
+    /**
+     * Replaces the filter. {@link ItemFilter#ACCEPT_ALL} removes it.
+     */
+    void setItemFilter(ItemFilter filter);
+}
@@ -0,0 +1,166 @@
+package me.jackstar.drakestech.machines;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Slots of a machine, kept as a plain array. Machine ticks, transport and persistence work on
+ * these slots directly: {@link #getItem(int)} returns the stored stack itself rather than a
+ * copy, so callers that change it write it back with {@link #setItem(int, ItemStack)}.
+ * <p>
+ * A Bukkit inventory only exists while a player has the machine open. {@link #openView()}
+ * copies the slots into it and every slot access goes through the view until
+ * {@link #closeView()} copies its contents back.
+ */
+public final class MachineInventory {
+
+    private final InventoryHolder holder;
+    private final String title;
+    private final ItemStack[] slots;
+    private Inventory view;
+
+    public MachineInventory(InventoryHolder holder, int size, String title) {
+        this.holder = holder;
+        this.title = title;
+        this.slots = new ItemStack[Math.max(0, size)];
+    }
+
+    private MachineInventory(Inventory inventory) {
+        this.holder = null;
+        this.title = null;
+        this.slots = null;
+        this.view = inventory;
+    }
+
+    /**
+     * Slot access to an inventory no machine owns, e.g. the chest behind a storage bus. Every
+     * call goes to Bukkit, and wrappers of the same inventory are equal.
+     */
+    public static MachineInventory wrap(Inventory inventory) {
+        return new MachineInventory(inventory);
+    }
+
+    public int getSize() {
+        return slots == null ? view.getSize() : slots.length;
+    }
+
+    public ItemStack getItem(int slot) {
+        return view != null ? view.getItem(slot) : slots[slot];
+    }
+
+    public void setItem(int slot, ItemStack stack) {
+        if (view != null) {
+            view.setItem(slot, stack);
+            return;
+        }
+        slots[slot] = stack == null || stack.getType().isAir() ? null : stack;
+    }
+
+    public boolean isEmpty(int slot) {
+        ItemStack stack = getItem(slot);
+        return stack == null || stack.getType().isAir();
+    }
+
+    /**
+     * Free room for {@code stack} in {@code slot}: a full stack when empty, the rest of the
+     * stack when it holds a similar item, otherwise zero.
+     */
+    public int space(int slot, ItemStack stack) {
+        ItemStack current = getItem(slot);
+        if (current == null || current.getType().isAir()) {
+            return stack.getMaxStackSize();
+        }
+        return current.isSimilar(stack) ? Math.max(0, current.getMaxStackSize() - current.getAmount()) : 0;
+    }
+
+    /**
+     * Adds up to {@code limit} items like {@code stack} to {@code slot} and returns how many
+     * fit. {@code stack} itself is left unchanged.
+     */
+    public int insert(int slot, ItemStack stack, int limit) {
+        int amount = Math.min(limit, space(slot, stack));
+        if (amount <= 0) {
+            return 0;
+        }
+        ItemStack current = getItem(slot);
+        if (current == null || current.getType().isAir()) {
+            ItemStack placed = stack.clone();
+            placed.setAmount(amount);
+            setItem(slot, placed);
+        } else {
+            current.setAmount(current.getAmount() + amount);
+            setItem(slot, current);
+        }
+        return amount;
+    }
+
+    /**
+     * Removes up to {@code limit} items from {@code slot} and returns how many were removed.
+     */
+    public int extract(int slot, int limit) {
+        ItemStack current = getItem(slot);
+        if (current == null || current.getType().isAir() || limit <= 0) {
+            return 0;
+        }
+        int amount = Math.min(limit, current.getAmount());
+        current.setAmount(current.getAmount() - amount);
+        setItem(slot, current.getAmount() <= 0 ? null : current);
+        return amount;
+    }
+
+    /**
+     * Copy of the slot array. The stacks are the stored ones, not copies.
+     */
+    public ItemStack[] getContents() {
+        return view != null ? view.getContents() : slots.clone();
+    }
+
+    /**
+     * Bukkit inventory for players to look at, created from the slots on first use.
+     */
+    public Inventory openView() {
+        if (view == null) {
+            view = Bukkit.createInventory(holder, slots.length, title);
+            for (int slot = 0; slot < slots.length; slot++) {
+                if (slots[slot] != null) {
+                    view.setItem(slot, slots[slot]);
+                }
+            }
+        }
+        return view;
+    }
+
+    public boolean hasView() {
+        return view != null && slots != null;
+    }
+
+    /**
+     * Copies the view back into the slots and drops it, once its last viewer is gone.
+     */
+    public void closeView() {
+        if (slots == null || view == null) {
+            return;
+        }
+        for (int slot = 0; slot < slots.length; slot++) {
+            ItemStack stack = view.getItem(slot);
+            slots[slot] = stack == null || stack.getType().isAir() ? null : stack;
+        }
+        view = null;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return slots == null && other instanceof MachineInventory wrapped && wrapped.slots == null
+                && view.equals(wrapped.view);
+    }
+
+    @Override
+    public int hashCode() {
+        return slots == null ? view.hashCode() : System.identityHashCode(this);
+    }
+}
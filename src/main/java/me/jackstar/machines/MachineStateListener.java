@@ -0,0 +1,11 @@
+package me.jackstar.drakestech.machines;
+
+public interface MachineStateListener {
+
+    void onSleepStateChanged(AbstractMachine machine, boolean sleeping);
+
+    /**
+     * @param journaled whether the change should also reach the journal, not only the next save
+     */
+    void onMarkedDirty(AbstractMachine machine, boolean journaled);
+}
@@ -0,0 +1,23 @@
+package me.jackstar.drakestech.machines;
+
+/**
+ * How often the scheduler dispatches a machine. An interval of 0 means the machine is
+ * event-driven: it never enters the tick loop and is only driven by external services.
+ */
+public record MachineTickClass(int interval) {
+
+    public static final MachineTickClass EVERY_TICK = new MachineTickClass(1);
+    public static final MachineTickClass EVENT_DRIVEN = new MachineTickClass(0);
+
+    public MachineTickClass {
+        interval = Math.max(0, interval);
+    }
+
+    public static MachineTickClass every(int ticks) {
+        return ticks <= 1 ? EVERY_TICK : new MachineTickClass(ticks);
+    }
+
+    public boolean isEventDriven() {
+        return interval == 0;
+    }
+}
@@ -0,0 +1,18 @@
+package me.jackstar.drakestech.machines;
+
+/**
+ * A bus that moves items in or out of a network and competes for the network's per-cycle
+ * bandwidth.
+ */
+public interface NetworkBusNode {
+
+    /**
+     * Buses with a higher priority are served first.
+     */
+    int getPriority();
+
+    /**
+     * Relative share of the bandwidth left among buses of the same priority.
+     */
+    int getWeight();
+}
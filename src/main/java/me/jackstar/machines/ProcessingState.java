@@ -0,0 +1,12 @@
+package me.jackstar.drakestech.machines;
+
+/**
+ * What a processing machine found on its last tick. Only {@link #PROCESSING} keeps the machine
+ * in the tick loop; the other states sleep until an inventory change or arriving energy.
+ */
+public enum ProcessingState {
+    IDLE,
+    WAITING_POWER,
+    PROCESSING,
+    OUTPUT_BLOCKED
+}
@@ -0,0 +1,40 @@
+package me.jackstar.drakestech.machines;
+
+/**
+ * Throughput of a tiered processing machine, read from the {@code machine-tiers} section of
+ * tech-content.yml. Each lane is an input/output slot pair, and every cycle each lane
+ * processes up to {@code batchSize} items. {@code maxEnergyInput} lifts the grid's per-node
+ * transfer limit for these machines; zero keeps it.
+ */
+public record ProcessingTier(String id,
+        int lanes,
+        int batchSize,
+        double speedMultiplier,
+        int upgradeSlots,
+        double upgradeSpeedBonus,
+        double maxEnergy,
+        double maxEnergyInput) {
+
+    public static final int MAX_LANES = 9;
+    public static final int MAX_UPGRADE_SLOTS = 9;
+    public static final ProcessingTier BASIC = new ProcessingTier("basic", 1, 1, 1.0D, 0, 0.0D, 5_000.0D, 0.0D);
+
+    public ProcessingTier {
+        lanes = Math.max(1, Math.min(MAX_LANES, lanes));
+        batchSize = Math.max(1, Math.min(64, batchSize));
+        speedMultiplier = speedMultiplier > 0.0D ? speedMultiplier : 1.0D;
+        upgradeSlots = Math.max(0, Math.min(MAX_UPGRADE_SLOTS, upgradeSlots));
+        upgradeSpeedBonus = Math.max(0.0D, upgradeSpeedBonus);
+        maxEnergy = Math.max(100.0D, maxEnergy);
+        maxEnergyInput = Math.max(0.0D, maxEnergyInput);
+    }
+
+    /**
+     * Cycle length for a machine with {@code baseTicks} per cycle and {@code upgrades} speed
+     * upgrades installed.
+     */
+    public int ticksPerCycle(int baseTicks, int upgrades) {
+        double speed = speedMultiplier * (1.0D + upgrades * upgradeSpeedBonus);
+        return Math.max(1, (int) Math.round(baseTicks / speed));
+    }
+}
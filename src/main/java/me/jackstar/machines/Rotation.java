@@ -1,5 +1,7 @@
 package me.jackstar.drakestech.machines;
 
+import org.bukkit.block.BlockFace;
+
 public enum Rotation {
     NORTH,
     EAST,
@@ -14,4 +16,36 @@ public enum Rotation {
             case WEST -> NORTH;
         };
     }
+
+    public int getModX() {
+        return switch (this) {
+            case EAST -> 1;
+            case WEST -> -1;
+            default -> 0;
+        };
+    }
+
+    public int getModZ() {
+        return switch (this) {
+            case SOUTH -> 1;
+            case NORTH -> -1;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Horizontal rotation for {@code face}, or {@code fallback} for UP, DOWN and SELF.
+     */
+    public static Rotation fromBlockFace(BlockFace face, Rotation fallback) {
+        if (face == null) {
+            return fallback;
+        }
+        return switch (face) {
+            case NORTH -> NORTH;
+            case EAST -> EAST;
+            case SOUTH -> SOUTH;
+            case WEST -> WEST;
+            default -> fallback;
+        };
+    }
 }
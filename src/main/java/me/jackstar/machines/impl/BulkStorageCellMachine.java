@@ -0,0 +1,41 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import me.jackstar.drakestech.network.BulkItemStore;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+public class BulkStorageCellMachine extends AbstractMachine {
+
+    private final BulkItemStore store;
+
+    public BulkStorageCellMachine(String id, Location location, int maxTypes, long capacity) {
+        super(id, location);
+        this.store = new BulkItemStore(maxTypes, capacity);
+    }
+
+    @Override
+    public void tick() {
+        // Passive storage. Items only move through the network.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    public BulkItemStore getStore() {
+        return store;
+    }
+
+    @Override
+    public byte[] getPersistentData() {
+        return store.isEmpty() ? null : store.encode();
+    }
+
+    @Override
+    public void setPersistentData(byte[] data) {
+        store.decode(data, Bukkit.getLogger());
+    }
+}
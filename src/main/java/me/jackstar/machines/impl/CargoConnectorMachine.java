@@ -0,0 +1,27 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.cargo.CargoConnector;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import org.bukkit.Location;
+
+public class CargoConnectorMachine extends AbstractMachine implements CargoConnector {
+
+    public CargoConnectorMachine(Location location) {
+        this("cargo_connector", location);
+    }
+
+    public CargoConnectorMachine(String id, Location location) {
+        super(id, location);
+    }
+
+    @Override
+    public void tick() {
+        // Passive cargo network connector.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+}
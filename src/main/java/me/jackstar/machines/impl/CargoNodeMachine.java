@@ -0,0 +1,90 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.cargo.CargoNode;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import me.jackstar.drakestech.machines.Rotation;
+import me.jackstar.drakestech.network.ItemFilter;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+
+import java.util.Arrays;
+
+public class CargoNodeMachine extends AbstractMachine implements CargoNode {
+
+    private final boolean input;
+    private Rotation facing = Rotation.NORTH;
+    private ItemFilter itemFilter = ItemFilter.ACCEPT_ALL;
+
+    public CargoNodeMachine(String id, Location location, boolean input) {
+        super(id, location);
+        this.input = input;
+    }
+
+    public static CargoNodeMachine input(Location location) {
+        return new CargoNodeMachine("cargo_input_node", location, true);
+    }
+
+    public static CargoNodeMachine output(Location location) {
+        return new CargoNodeMachine("cargo_output_node", location, false);
+    }
+
+    @Override
+    public void tick() {
+        // Moved by CargoTopology.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    @Override
+    public boolean isInput() {
+        return input;
+    }
+
+    @Override
+    public Rotation getFacing() {
+        return facing;
+    }
+
+    @Override
+    public void setFacing(Rotation facing) {
+        this.facing = facing == null ? Rotation.NORTH : facing;
+    }
+
+    @Override
+    public ItemFilter getItemFilter() {
+        return itemFilter;
+    }
+
+    @Override
+    public void setItemFilter(ItemFilter filter) {
+        this.itemFilter = filter == null ? ItemFilter.ACCEPT_ALL : filter;
+    }
+
+    /**
+     * Facing ordinal, followed by the encoded filter when there is one.
+     */
+    @Override
+    public byte[] getPersistentData() {
+        byte[] filter = itemFilter.isAcceptAll() ? new byte[0] : itemFilter.encode();
+        byte[] data = new byte[filter.length + 1];
+        data[0] = (byte) facing.ordinal();
+        System.arraycopy(filter, 0, data, 1, filter.length);
+        return data;
+    }
+
+    @Override
+    public void setPersistentData(byte[] data) {
+        if (data.length == 0) {
+            return;
+        }
+        Rotation[] rotations = Rotation.values();
+        facing = rotations[(data[0] & 0xFF) % rotations.length];
+        itemFilter = data.length > 1
+                ? ItemFilter.decode(Arrays.copyOfRange(data, 1, data.length), Bukkit.getLogger())
+                : ItemFilter.ACCEPT_ALL;
+    }
+}
@@ -3,11 +3,12 @@ package me.jackstar.drakestech.machines.impl;
 import me.jackstar.drakestech.energy.EnergyNode;
 import me.jackstar.drakestech.machines.AbstractMachine;
 import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.ProcessingState;
+import me.jackstar.drakestech.recipe.SmeltingRecipeCache;
 import me.jackstar.drakestech.recipe.TechRecipeEngine;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Particle;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 public class ElectricFurnace extends AbstractMachine implements EnergyNode, ItemTransportNode {
@@ -18,74 +19,134 @@ public class ElectricFurnace extends AbstractMachine implements EnergyNode, Item
     private static final double ENERGY_PER_SMELT = 50.0D;
     private static final double MAX_ENERGY = 5_000.0D;
 
-    private final Inventory inventory;
-    private final TechRecipeEngine recipeEngine;
+    private final MachineInventory inventory;
+    private final SmeltingRecipeCache recipes;
+    private ProcessingState state = ProcessingState.IDLE;
+    private int checkedVersion;
+    private ItemStack result;
     private double storedEnergy;
     private int progressTicks;
 
     public ElectricFurnace(Location location, TechRecipeEngine recipeEngine) {
         super("electric_furnace", location);
-        this.inventory = Bukkit.createInventory(this, 9, "Electric Furnace");
-        this.recipeEngine = recipeEngine;
+        this.inventory = new MachineInventory(this, 9, "Electric Furnace");
+        this.recipes = new SmeltingRecipeCache(recipeEngine);
     }
 
     @Override
     public void tick() {
-        ItemStack input = inventory.getItem(INPUT_SLOT);
-        ItemStack output = inventory.getItem(OUTPUT_SLOT);
-        if (input == null || input.getType().isAir()) {
-            progressTicks = 0;
+        tick(1);
+    }
+
+    @Override
+    public void tick(int elapsedTicks) {
+        // While processing with untouched slots, the recipe and output room are still valid.
+        if ((state != ProcessingState.PROCESSING || checkedVersion != getInventoryVersion()) && !evaluate()) {
             return;
         }
-
-        ItemStack result = recipeEngine.resolveSmeltingResult(input).orElse(null);
-        if (result == null || result.getType().isAir()) {
-            progressTicks = 0;
+        if (storedEnergy < ENERGY_PER_SMELT) {
+            enter(ProcessingState.WAITING_POWER);
             return;
         }
 
-        if (!canOutput(result, output)) {
-            progressTicks = 0;
+        progressTicks += elapsedTicks;
+        markProgressChanged();
+        if (progressTicks < TICKS_PER_SMELT) {
             return;
         }
-
-        if (storedEnergy < ENERGY_PER_SMELT) {
+        // A lagging scheduler hands over several smelts at once; keep only the remainder.
+        int cycles = progressTicks / TICKS_PER_SMELT;
+        progressTicks %= TICKS_PER_SMELT;
+        if (smelt(result, cycles) <= 0) {
             return;
         }
+        markInventoryChanged();
 
-        progressTicks++;
-        if (progressTicks < TICKS_PER_SMELT) {
-            return;
+        Location effectLocation = getLocation().clone().add(0.5, 1.0, 0.5);
+        if (effectLocation.getWorld() != null) {
+            effectLocation.getWorld().spawnParticle(Particle.SMOKE, effectLocation, 6, 0.2, 0.2, 0.2, 0.01);
+            effectLocation.getWorld().spawnParticle(Particle.FLAME, effectLocation, 2, 0.1, 0.1, 0.1, 0.0);
         }
-        progressTicks = 0;
+    }
 
-        double used = extractEnergy(ENERGY_PER_SMELT);
-        if (used < ENERGY_PER_SMELT) {
-            receiveEnergy(used);
-            return;
+    /**
+     * Re-reads the slots after an inventory change. Returns false, with the machine asleep in
+     * the matching state, when there is nothing to smelt or no room for the result.
+     */
+    private boolean evaluate() {
+        checkedVersion = getInventoryVersion();
+        result = recipes.resolve(inventory.getItem(INPUT_SLOT));
+        if (result == null) {
+            enter(ProcessingState.IDLE);
+            return false;
+        }
+        if (!canOutput(result, inventory.getItem(OUTPUT_SLOT))) {
+            enter(ProcessingState.OUTPUT_BLOCKED);
+            return false;
         }
+        state = ProcessingState.PROCESSING;
+        return true;
+    }
 
-        input.setAmount(input.getAmount() - 1);
-        if (input.getAmount() <= 0) {
-            inventory.setItem(INPUT_SLOT, null);
+    private void enter(ProcessingState next) {
+        state = next;
+        if (next != ProcessingState.WAITING_POWER) {
+            progressTicks = 0;
         }
+        sleep();
+    }
 
-        if (output == null || output.getType().isAir()) {
-            inventory.setItem(OUTPUT_SLOT, result.clone());
-        } else {
-            output.setAmount(output.getAmount() + result.getAmount());
-            inventory.setItem(OUTPUT_SLOT, output);
+    public ProcessingState getState() {
+        return state;
+    }
+
+    @Override
+    public void catchUp(long elapsedTicks) {
+        if (elapsedTicks <= 0) {
+            return;
+        }
+        ItemStack result = recipes.resolve(inventory.getItem(INPUT_SLOT));
+        if (result == null || smelt(result, (progressTicks + elapsedTicks) / TICKS_PER_SMELT) <= 0) {
+            return;
         }
+        progressTicks = 0;
+        markInventoryChanged();
+    }
 
-        Location effectLocation = getLocation().clone().add(0.5, 1.0, 0.5);
-        if (effectLocation.getWorld() != null) {
-            effectLocation.getWorld().spawnParticle(Particle.SMOKE, effectLocation, 6, 0.2, 0.2, 0.2, 0.01);
-            effectLocation.getWorld().spawnParticle(Particle.FLAME, effectLocation, 2, 0.1, 0.1, 0.1, 0.0);
+    /**
+     * Runs up to {@code cycles} smelts at once, as far as input, output room and stored energy
+     * allow. Returns how many ran.
+     */
+    private int smelt(ItemStack result, long cycles) {
+        ItemStack input = inventory.getItem(INPUT_SLOT);
+        if (input == null || input.getType().isAir()) {
+            return 0;
         }
+        long smelts = Math.min(cycles, input.getAmount());
+        smelts = Math.min(smelts, inventory.space(OUTPUT_SLOT, result) / Math.max(1, result.getAmount()));
+        smelts = Math.min(smelts, (long) (storedEnergy / ENERGY_PER_SMELT));
+        if (smelts <= 0) {
+            return 0;
+        }
+
+        extractEnergy(smelts * ENERGY_PER_SMELT);
+        inventory.extract(INPUT_SLOT, (int) smelts);
+        inventory.insert(OUTPUT_SLOT, result, (int) smelts * result.getAmount());
+        return (int) smelts;
+    }
+
+    @Override
+    public int getProgressTicks() {
+        return progressTicks;
     }
 
     @Override
-    public Inventory getInventory() {
+    public void setProgressTicks(int progressTicks) {
+        this.progressTicks = Math.max(0, Math.min(progressTicks, TICKS_PER_SMELT - 1));
+    }
+
+    @Override
+    public MachineInventory getMachineInventory() {
         return inventory;
     }
 
@@ -105,6 +166,7 @@ public class ElectricFurnace extends AbstractMachine implements EnergyNode, Item
             return;
         }
         storedEnergy = Math.min(MAX_ENERGY, storedEnergy + amount);
+        markDirty();
     }
 
     @Override
@@ -114,6 +176,7 @@ public class ElectricFurnace extends AbstractMachine implements EnergyNode, Item
         }
         double extracted = Math.min(maxAmount, storedEnergy);
         storedEnergy -= extracted;
+        markDirty();
         return extracted;
     }
 
@@ -131,7 +194,7 @@ public class ElectricFurnace extends AbstractMachine implements EnergyNode, Item
         if (output == null || output.getType().isAir()) {
             return true;
         }
-        if (output.getType() != result.getType()) {
+        if (!output.isSimilar(result)) {
             return false;
         }
         return output.getAmount() + result.getAmount() <= output.getMaxStackSize();
@@ -149,9 +212,6 @@ public class ElectricFurnace extends AbstractMachine implements EnergyNode, Item
 
     @Override
     public boolean canAcceptInput(int slot, ItemStack stack) {
-        if (slot != INPUT_SLOT || stack == null || stack.getType().isAir()) {
-            return false;
-        }
-        return recipeEngine.resolveSmeltingResult(stack).isPresent();
+        return slot == INPUT_SLOT && recipes.accepts(stack);
     }
 }
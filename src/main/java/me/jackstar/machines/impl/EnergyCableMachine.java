@@ -0,0 +1,23 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.energy.EnergyConductor;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import org.bukkit.Location;
+
+public class EnergyCableMachine extends AbstractMachine implements EnergyConductor {
+
+    public EnergyCableMachine(Location location) {
+        super("energy_cable", location);
+    }
+
+    @Override
+    public void tick() {
+        // Passive energy grid connector.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+}
@@ -1,6 +1,7 @@
 package me.jackstar.drakestech.machines.impl;
 
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
 import org.bukkit.Location;
 
 public class NetworkBridgeMachine extends AbstractMachine {
@@ -13,5 +14,10 @@ public class NetworkBridgeMachine extends AbstractMachine {
     public void tick() {
         // Passive network connectivity node.
     }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
 }
 
@@ -0,0 +1,43 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import org.bukkit.Location;
+
+/**
+ * Runs crafting steps handed out by TechNetworkService: up to {@code batchesPerCraft} recipe
+ * runs every {@code craftCycles} network cycles.
+ */
+public class NetworkCrafterMachine extends AbstractMachine {
+
+    private final int craftCycles;
+    private final int batchesPerCraft;
+
+    public NetworkCrafterMachine(Location location) {
+        this("network_crafter", location, 2, 8);
+    }
+
+    public NetworkCrafterMachine(String id, Location location, int craftCycles, int batchesPerCraft) {
+        super(id, location);
+        this.craftCycles = Math.max(1, craftCycles);
+        this.batchesPerCraft = Math.max(1, batchesPerCraft);
+    }
+
+    @Override
+    public void tick() {
+        // Driven by TechNetworkService.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    public int getCraftCycles() {
+        return craftCycles;
+    }
+
+    public int getBatchesPerCraft() {
+        return batchesPerCraft;
+    }
+}
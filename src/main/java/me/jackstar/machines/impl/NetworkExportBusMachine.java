@@ -1,26 +1,42 @@
 package me.jackstar.drakestech.machines.impl;
 
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemFilterHolder;
 import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import me.jackstar.drakestech.machines.NetworkBusNode;
+import me.jackstar.drakestech.network.ItemFilter;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
-public class NetworkExportBusMachine extends AbstractMachine implements ItemTransportNode {
+public class NetworkExportBusMachine extends AbstractMachine implements ItemTransportNode, NetworkBusNode, ItemFilterHolder {
 
     public static final int TEMPLATE_SLOT = 0;
     public static final int OUTPUT_SLOT = 1;
 
-    private static final int[] OUTPUT_SLOTS = new int[] { OUTPUT_SLOT };
+    private static final int[] OUTPUT_SLOTS = new int[] { 1, 2, 3, 4, 5, 6, 7, 8 };
 
-    private final Inventory inventory;
+    private final MachineInventory inventory;
     private final int maxItemsPerCycle;
+    private final int stacksPerCycle;
+    private final int priority;
+    private final int weight;
+    private ItemFilter itemFilter = ItemFilter.ACCEPT_ALL;
 
     public NetworkExportBusMachine(Location location, int maxItemsPerCycle) {
-        super("network_export_bus", location);
-        this.inventory = Bukkit.createInventory(this, 9, "Network Export Bus");
+        this("network_export_bus", location, maxItemsPerCycle, 1, 0, 1);
+    }
+
+    public NetworkExportBusMachine(String id, Location location, int maxItemsPerCycle, int stacksPerCycle, int priority,
+            int weight) {
+        super(id, location);
+        this.inventory = new MachineInventory(this, 9, "Network Export Bus");
         this.maxItemsPerCycle = Math.max(1, maxItemsPerCycle);
+        this.stacksPerCycle = Math.max(1, Math.min(OUTPUT_SLOTS.length, stacksPerCycle));
+        this.priority = priority;
+        this.weight = Math.max(1, weight);
     }
 
     @Override
@@ -29,7 +45,12 @@ public class NetworkExportBusMachine extends AbstractMachine implements ItemTran
     }
 
     @Override
-    public Inventory getInventory() {
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    @Override
+    public MachineInventory getMachineInventory() {
         return inventory;
     }
 
@@ -51,5 +72,41 @@ public class NetworkExportBusMachine extends AbstractMachine implements ItemTran
     public int getMaxItemsPerCycle() {
         return maxItemsPerCycle;
     }
-}
 
+    /**
+     * Stacks this bus may receive per network cycle, each capped by {@link #getMaxItemsPerCycle()}.
+     */
+    public int getStacksPerCycle() {
+        return stacksPerCycle;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public ItemFilter getItemFilter() {
+        return itemFilter;
+    }
+
+    @Override
+    public void setItemFilter(ItemFilter filter) {
+        this.itemFilter = filter == null ? ItemFilter.ACCEPT_ALL : filter;
+    }
+
+    @Override
+    public byte[] getPersistentData() {
+        return itemFilter.isAcceptAll() ? null : itemFilter.encode();
+    }
+
+    @Override
+    public void setPersistentData(byte[] data) {
+        itemFilter = ItemFilter.decode(data, Bukkit.getLogger());
+    }
+}
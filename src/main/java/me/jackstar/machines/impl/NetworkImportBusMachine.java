@@ -1,21 +1,36 @@
 package me.jackstar.drakestech.machines.impl;
 
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemFilterHolder;
 import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import me.jackstar.drakestech.machines.NetworkBusNode;
+import me.jackstar.drakestech.network.ItemFilter;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
-public class NetworkImportBusMachine extends AbstractMachine implements ItemTransportNode {
+public class NetworkImportBusMachine extends AbstractMachine implements ItemTransportNode, NetworkBusNode, ItemFilterHolder {
 
     private static final int[] INPUT_SLOTS = new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
 
-    private final Inventory inventory;
+    private final MachineInventory inventory;
+    private final int stacksPerCycle;
+    private final int priority;
+    private final int weight;
+    private ItemFilter itemFilter = ItemFilter.ACCEPT_ALL;
 
     public NetworkImportBusMachine(Location location) {
-        super("network_import_bus", location);
-        this.inventory = Bukkit.createInventory(this, 9, "Network Import Bus");
+        this("network_import_bus", location, INPUT_SLOTS.length, 0, 1);
+    }
+
+    public NetworkImportBusMachine(String id, Location location, int stacksPerCycle, int priority, int weight) {
+        super(id, location);
+        this.inventory = new MachineInventory(this, 9, "Network Import Bus");
+        this.stacksPerCycle = Math.max(1, Math.min(INPUT_SLOTS.length, stacksPerCycle));
+        this.priority = priority;
+        this.weight = Math.max(1, weight);
     }
 
     @Override
@@ -24,7 +39,12 @@ public class NetworkImportBusMachine extends AbstractMachine implements ItemTran
     }
 
     @Override
-    public Inventory getInventory() {
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    @Override
+    public MachineInventory getMachineInventory() {
         return inventory;
     }
 
@@ -40,7 +60,43 @@ public class NetworkImportBusMachine extends AbstractMachine implements ItemTran
 
     @Override
     public boolean canAcceptInput(int slot, ItemStack stack) {
-        return stack != null && !stack.getType().isAir();
+        return stack != null && !stack.getType().isAir() && itemFilter.accepts(stack);
+    }
+
+    /**
+     * Occupied slots this bus may drain per network cycle.
+     */
+    public int getStacksPerCycle() {
+        return stacksPerCycle;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public ItemFilter getItemFilter() {
+        return itemFilter;
+    }
+
+    @Override
+    public void setItemFilter(ItemFilter filter) {
+        this.itemFilter = filter == null ? ItemFilter.ACCEPT_ALL : filter;
     }
-}
 
+    @Override
+    public byte[] getPersistentData() {
+        return itemFilter.isAcceptAll() ? null : itemFilter.encode();
+    }
+
+    @Override
+    public void setPersistentData(byte[] data) {
+        itemFilter = ItemFilter.decode(data, Bukkit.getLogger());
+    }
+}
@@ -0,0 +1,38 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import org.bukkit.Location;
+
+/**
+ * Holds one template item per slot. Its network may autocraft exactly the templated items.
+ */
+public class NetworkPatternHolderMachine extends AbstractMachine {
+
+    private final MachineInventory inventory;
+
+    public NetworkPatternHolderMachine(Location location) {
+        this("network_pattern_holder", location);
+    }
+
+    public NetworkPatternHolderMachine(String id, Location location) {
+        super(id, location);
+        this.inventory = new MachineInventory(this, 9, "Network Patterns");
+    }
+
+    @Override
+    public void tick() {
+        // Read by TechNetworkService.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    @Override
+    public MachineInventory getMachineInventory() {
+        return inventory;
+    }
+}
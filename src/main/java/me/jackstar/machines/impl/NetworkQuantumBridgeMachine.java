@@ -0,0 +1,55 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import org.bukkit.Location;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Joins its network to the one other quantum bridge tuned to the same frequency, at any
+ * distance and in any world, as long as both are loaded.
+ */
+public class NetworkQuantumBridgeMachine extends AbstractMachine {
+
+    private String frequency;
+
+    public NetworkQuantumBridgeMachine(Location location) {
+        this("network_quantum_bridge", location);
+    }
+
+    public NetworkQuantumBridgeMachine(String id, Location location) {
+        super(id, location);
+    }
+
+    @Override
+    public void tick() {
+        // Linked by TechNetworkService.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    /**
+     * Frequency this bridge is tuned to, or null when it is not linked.
+     */
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(String frequency) {
+        this.frequency = frequency == null || frequency.isBlank() ? null : frequency;
+    }
+
+    @Override
+    public byte[] getPersistentData() {
+        return frequency == null ? null : frequency.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void setPersistentData(byte[] data) {
+        setFrequency(new String(data, StandardCharsets.UTF_8));
+    }
+}
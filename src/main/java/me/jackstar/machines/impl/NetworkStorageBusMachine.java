@@ -1,16 +1,37 @@
 package me.jackstar.drakestech.machines.impl;
 
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemFilterHolder;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import me.jackstar.drakestech.network.ItemFilter;
+import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 
-import java.util.Set;
 import java.util.Optional;
+import java.util.function.Predicate;
 
-public class NetworkStorageBusMachine extends AbstractMachine {
+public class NetworkStorageBusMachine extends AbstractMachine implements ItemFilterHolder {
+
+    private static final BlockFace[] ADJACENT_FACES = {
+            BlockFace.NORTH,
+            BlockFace.EAST,
+            BlockFace.SOUTH,
+            BlockFace.WEST,
+            BlockFace.UP,
+            BlockFace.DOWN
+    };
+
+    private Inventory boundInventory;
+    private Block boundBlock;
+    private Material boundType;
+    private boolean bound;
+    private ItemFilter itemFilter = ItemFilter.ACCEPT_ALL;
 
     public NetworkStorageBusMachine(Location location) {
         super("network_storage_bus", location);
@@ -21,25 +42,44 @@ public class NetworkStorageBusMachine extends AbstractMachine {
         // Passive bridge node for adjacent external inventory.
     }
 
-    public Optional<Inventory> resolveTargetInventory(Set<Location> blockedMachineLocations) {
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    /**
+     * Returns the inventory this bus exposes. The target is looked up once and then reused
+     * until {@link #invalidateTarget()} is called or the bound block changes type.
+     */
+    public Optional<Inventory> resolveTargetInventory(Predicate<Block> blockedTargets) {
+        if (!bound || (boundBlock != null && boundBlock.getType() != boundType)) {
+            bind(blockedTargets);
+        }
+        return Optional.ofNullable(boundInventory);
+    }
+
+    public void invalidateTarget() {
+        bound = false;
+        boundInventory = null;
+        boundBlock = null;
+        boundType = null;
+    }
+
+    private void bind(Predicate<Block> blockedTargets) {
+        invalidateTarget();
         if (getLocation() == null || getLocation().getWorld() == null) {
-            return Optional.empty();
+            return;
         }
 
-        for (BlockFace face : new BlockFace[] {
-                BlockFace.NORTH,
-                BlockFace.EAST,
-                BlockFace.SOUTH,
-                BlockFace.WEST,
-                BlockFace.UP,
-                BlockFace.DOWN
-        }) {
-            Location targetLocation = normalize(getLocation().getBlock().getRelative(face).getLocation());
-            if (blockedMachineLocations != null && blockedMachineLocations.contains(targetLocation)) {
+        Block origin = getLocation().getBlock();
+        for (BlockFace face : ADJACENT_FACES) {
+            Block target = origin.getRelative(face);
+            if (blockedTargets != null && blockedTargets.test(target)) {
                 continue;
             }
 
-            BlockState state = targetLocation.getBlock().getState();
+            // Live state: its inventory is the block's own, not a copy.
+            BlockState state = target.getState(false);
             if (!(state instanceof InventoryHolder holder)) {
                 continue;
             }
@@ -49,18 +89,31 @@ public class NetworkStorageBusMachine extends AbstractMachine {
                 continue;
             }
 
-            return Optional.of(inventory);
+            boundInventory = inventory;
+            boundBlock = target;
+            boundType = target.getType();
+            break;
         }
+        bound = true;
+    }
 
-        return Optional.empty();
+    @Override
+    public ItemFilter getItemFilter() {
+        return itemFilter;
     }
 
-    private Location normalize(Location location) {
-        return new Location(
-                location.getWorld(),
-                location.getBlockX(),
-                location.getBlockY(),
-                location.getBlockZ());
+    @Override
+    public void setItemFilter(ItemFilter filter) {
+        this.itemFilter = filter == null ? ItemFilter.ACCEPT_ALL : filter;
+    }
+
+    @Override
+    public byte[] getPersistentData() {
+        return itemFilter.isAcceptAll() ? null : itemFilter.encode();
     }
-}
 
+    @Override
+    public void setPersistentData(byte[] data) {
+        itemFilter = ItemFilter.decode(data, Bukkit.getLogger());
+    }
+}
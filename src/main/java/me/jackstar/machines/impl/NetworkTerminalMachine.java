@@ -0,0 +1,29 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
+import org.bukkit.Location;
+
+/**
+ * Opens the network terminal GUI of the network it belongs to.
+ */
+public class NetworkTerminalMachine extends AbstractMachine {
+
+    public NetworkTerminalMachine(Location location) {
+        this("network_terminal", location);
+    }
+
+    public NetworkTerminalMachine(String id, Location location) {
+        super(id, location);
+    }
+
+    @Override
+    public void tick() {
+        // Opened by NetworkTerminalManager.
+    }
+
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+}
@@ -3,17 +3,16 @@ package me.jackstar.drakestech.machines.impl;
 import me.jackstar.drakestech.energy.EnergyNode;
 import me.jackstar.drakestech.machines.AbstractMachine;
 import me.jackstar.drakestech.machines.ItemTransportNode;
-import org.bukkit.Bukkit;
+import me.jackstar.drakestech.machines.MachineInventory;
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 public class ResourceGeneratorMachine extends AbstractMachine implements EnergyNode, ItemTransportNode {
 
     private static final int OUTPUT_SLOT = 0;
 
-    private final Inventory inventory;
+    private final MachineInventory inventory;
     private final Material outputMaterial;
     private final int outputAmount;
     private final int ticksPerCycle;
@@ -36,42 +35,93 @@ public class ResourceGeneratorMachine extends AbstractMachine implements EnergyN
         this.ticksPerCycle = Math.max(1, ticksPerCycle);
         this.energyPerCycle = Math.max(0.0D, energyPerCycle);
         this.maxEnergy = Math.max(100.0D, maxEnergy);
-        this.inventory = Bukkit.createInventory(this, 9, machineId + " Generator");
+        this.inventory = new MachineInventory(this, 9, machineId + " Generator");
     }
 
     @Override
     public void tick() {
+        tick(1);
+    }
+
+    @Override
+    public void tick(int elapsedTicks) {
         ItemStack output = inventory.getItem(OUTPUT_SLOT);
         if (!canOutput(output)) {
             progressTicks = 0;
+            sleep();
             return;
         }
         if (storedEnergy < energyPerCycle) {
+            sleep();
             return;
         }
 
-        progressTicks++;
+        progressTicks += elapsedTicks;
+        markProgressChanged();
         if (progressTicks < ticksPerCycle) {
             return;
         }
-        progressTicks = 0;
+        // A lagging scheduler hands over several cycles at once; keep only the remainder.
+        int cycles = progressTicks / ticksPerCycle;
+        progressTicks %= ticksPerCycle;
+        if (produce(cycles) > 0) {
+            markInventoryChanged();
+        }
+    }
 
-        double used = extractEnergy(energyPerCycle);
-        if (used < energyPerCycle) {
-            receiveEnergy(used);
+    @Override
+    public void catchUp(long elapsedTicks) {
+        if (elapsedTicks <= 0 || produce((progressTicks + elapsedTicks) / ticksPerCycle) <= 0) {
             return;
         }
+        progressTicks = 0;
+        markInventoryChanged();
+    }
 
-        if (output == null || output.getType().isAir()) {
-            inventory.setItem(OUTPUT_SLOT, new ItemStack(outputMaterial, outputAmount));
-            return;
+    /**
+     * Runs up to {@code cycles} cycles at once, as far as output room and stored energy allow.
+     * Returns how many ran.
+     */
+    private long produce(long cycles) {
+        ItemStack output = inventory.getItem(OUTPUT_SLOT);
+        if (!canOutput(output)) {
+            return 0;
+        }
+
+        boolean empty = output == null || output.getType().isAir();
+        int current = empty ? 0 : output.getAmount();
+        int maxStack = empty ? outputMaterial.getMaxStackSize() : output.getMaxStackSize();
+        cycles = Math.min(cycles, (maxStack - current) / outputAmount);
+        if (energyPerCycle > 0) {
+            cycles = Math.min(cycles, (long) (storedEnergy / energyPerCycle));
+        }
+        if (cycles <= 0) {
+            return 0;
+        }
+
+        extractEnergy(cycles * energyPerCycle);
+        int produced = (int) (cycles * outputAmount);
+        if (empty) {
+            inventory.setItem(OUTPUT_SLOT, new ItemStack(outputMaterial, produced));
+        } else {
+            output.setAmount(current + produced);
+            inventory.setItem(OUTPUT_SLOT, output);
         }
-        output.setAmount(Math.min(output.getMaxStackSize(), output.getAmount() + outputAmount));
-        inventory.setItem(OUTPUT_SLOT, output);
+        return cycles;
+    }
+
+    @Override
+    public int getProgressTicks() {
+        return progressTicks;
+    }
+
+    @Override
+    public void setProgressTicks(int progressTicks) {
+        this.progressTicks = Math.max(0, Math.min(progressTicks, ticksPerCycle - 1));
     }
 
     @Override
-    public Inventory getInventory() {
+    public MachineInventory getMachineInventory() {
         return inventory;
     }
 
@@ -91,6 +141,7 @@ public class ResourceGeneratorMachine extends AbstractMachine implements EnergyN
             return;
         }
         storedEnergy = Math.min(maxEnergy, storedEnergy + amount);
+        markDirty();
     }
 
     @Override
@@ -100,6 +151,7 @@ public class ResourceGeneratorMachine extends AbstractMachine implements EnergyN
         }
         double extracted = Math.min(maxAmount, storedEnergy);
         storedEnergy -= extracted;
+        markDirty();
         return extracted;
     }
 
@@ -2,6 +2,7 @@ package me.jackstar.drakestech.machines.impl;
 
 import me.jackstar.drakestech.energy.EnergyNode;
 import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineTickClass;
 import org.bukkit.Location;
 import org.bukkit.World;
 
@@ -9,6 +10,7 @@ public class SolarGenerator extends AbstractMachine implements EnergyNode {
 
     private static final double GENERATION_PER_TICK = 10.0D;
     private static final double MAX_ENERGY = 10_000.0D;
+    private static final int TICK_INTERVAL = 20;
 
     private double storedEnergy;
 
@@ -18,6 +20,11 @@ public class SolarGenerator extends AbstractMachine implements EnergyNode {
 
     @Override
     public void tick() {
+        tick(1);
+    }
+
+    @Override
+    public void tick(int elapsedTicks) {
         World world = getLocation().getWorld();
         if (world == null) {
             return;
@@ -26,10 +33,15 @@ public class SolarGenerator extends AbstractMachine implements EnergyNode {
         long time = world.getTime();
         boolean day = time >= 0 && time < 12300;
         if (day && !world.hasStorm()) {
-            receiveEnergy(GENERATION_PER_TICK);
+            receiveEnergy(GENERATION_PER_TICK * elapsedTicks);
         }
     }
 
+    @Override
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.every(TICK_INTERVAL);
+    }
+
     @Override
     public double getStoredEnergy() {
         return storedEnergy;
@@ -46,6 +58,7 @@ public class SolarGenerator extends AbstractMachine implements EnergyNode {
             return;
         }
         storedEnergy = Math.min(MAX_ENERGY, storedEnergy + amount);
+        markDirty();
     }
 
     @Override
@@ -55,6 +68,7 @@ public class SolarGenerator extends AbstractMachine implements EnergyNode {
         }
         double extracted = Math.min(maxAmount, storedEnergy);
         storedEnergy -= extracted;
+        markDirty();
         return extracted;
     }
 
@@ -2,10 +2,10 @@ package me.jackstar.drakestech.machines.impl;
 
 import me.jackstar.drakestech.machines.AbstractMachine;
 import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.MachineTickClass;
 import me.jackstar.drakestech.nbt.NbtItemHandler;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 public class TechStorageChestMachine extends AbstractMachine implements ItemTransportNode {
@@ -13,7 +13,7 @@ public class TechStorageChestMachine extends AbstractMachine implements ItemTran
     private static final String TECH_ITEM_MARKER = "drakestech_item";
     private static final String MACHINE_ITEM_MARKER = "drakestech_machine";
 
-    private final Inventory inventory;
+    private final MachineInventory inventory;
     private final NbtItemHandler nbtItemHandler;
     private final boolean onlyPluginItems;
     private final int[] transportSlots;
@@ -21,7 +21,7 @@ public class TechStorageChestMachine extends AbstractMachine implements ItemTran
     public TechStorageChestMachine(Location location, int size, NbtItemHandler nbtItemHandler, boolean onlyPluginItems) {
         super("tech_storage_chest", location);
         int normalizedSize = normalizeSize(size);
-        this.inventory = Bukkit.createInventory(this, normalizedSize, "Tech Storage Chest");
+        this.inventory = new MachineInventory(this, normalizedSize, "Tech Storage Chest");
         this.nbtItemHandler = nbtItemHandler;
         this.onlyPluginItems = onlyPluginItems;
         this.transportSlots = buildTransportSlots(normalizedSize);
@@ -33,7 +33,12 @@ public class TechStorageChestMachine extends AbstractMachine implements ItemTran
     }
 
     @Override
-    public Inventory getInventory() {
+    public MachineTickClass getTickClass() {
+        return MachineTickClass.EVENT_DRIVEN;
+    }
+
+    @Override
+    public MachineInventory getMachineInventory() {
         return inventory;
     }
 
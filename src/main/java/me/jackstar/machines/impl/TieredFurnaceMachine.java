@@ -0,0 +1,292 @@
+package me.jackstar.drakestech.machines.impl;
+
+import me.jackstar.drakestech.energy.EnergyNode;
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
+import me.jackstar.drakestech.machines.ProcessingState;
+import me.jackstar.drakestech.machines.ProcessingTier;
+import me.jackstar.drakestech.recipe.SmeltingRecipeCache;
+import me.jackstar.drakestech.recipe.TechRecipeEngine;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.function.Predicate;
+
+/**
+ * Electric furnace with several lanes, batch smelting and speed upgrades, sized by its
+ * {@link ProcessingTier}. The top row holds the inputs, the row below the matching outputs and
+ * the third row the upgrade slots; one speed upgrade counts per slot.
+ */
+public class TieredFurnaceMachine extends AbstractMachine implements EnergyNode, ItemTransportNode {
+
+    public static final String SPEED_UPGRADE_ITEM_ID = "speed_upgrade";
+
+    private static final int OUTPUT_ROW = 9;
+    private static final int UPGRADE_ROW = 18;
+
+    private final MachineInventory inventory;
+    private final ProcessingTier tier;
+    private final int baseTicksPerCycle;
+    private final double energyPerItem;
+    private final Predicate<ItemStack> speedUpgrade;
+    private final SmeltingRecipeCache[] recipes;
+    private final ItemStack[] results;
+    private final int[] inputSlots;
+    private final int[] outputSlots;
+    private ProcessingState state = ProcessingState.IDLE;
+    private int checkedVersion;
+    private int ticksPerCycle;
+    private double storedEnergy;
+    private int progressTicks;
+
+    public TieredFurnaceMachine(String id,
+            Location location,
+            TechRecipeEngine recipeEngine,
+            ProcessingTier tier,
+            int baseTicksPerCycle,
+            double energyPerItem,
+            Predicate<ItemStack> speedUpgrade) {
+        super(id, location);
+        this.tier = tier;
+        this.baseTicksPerCycle = Math.max(1, baseTicksPerCycle);
+        this.energyPerItem = Math.max(0.0D, energyPerItem);
+        this.speedUpgrade = speedUpgrade;
+        this.ticksPerCycle = tier.ticksPerCycle(this.baseTicksPerCycle, 0);
+        this.inventory = new MachineInventory(this, tier.upgradeSlots() > 0 ? 27 : 18, "Furnace (" + tier.id() + ")");
+
+        int lanes = tier.lanes();
+        this.recipes = new SmeltingRecipeCache[lanes];
+        this.results = new ItemStack[lanes];
+        this.inputSlots = new int[lanes];
+        this.outputSlots = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            recipes[lane] = new SmeltingRecipeCache(recipeEngine);
+            inputSlots[lane] = lane;
+            outputSlots[lane] = OUTPUT_ROW + lane;
+        }
+    }
+
+    @Override
+    public void tick() {
+        tick(1);
+    }
+
+    @Override
+    public void tick(int elapsedTicks) {
+        if (state != ProcessingState.PROCESSING || checkedVersion != getInventoryVersion()) {
+            ProcessingState found = inspect();
+            if (found != ProcessingState.PROCESSING) {
+                enter(found);
+                return;
+            }
+            state = ProcessingState.PROCESSING;
+        }
+        if (storedEnergy < energyPerItem) {
+            enter(ProcessingState.WAITING_POWER);
+            return;
+        }
+
+        progressTicks += elapsedTicks;
+        markProgressChanged();
+        if (progressTicks < ticksPerCycle) {
+            return;
+        }
+        // A lagging scheduler hands over several cycles at once; keep only the remainder.
+        int cycles = progressTicks / ticksPerCycle;
+        progressTicks %= ticksPerCycle;
+        if (runCycles(cycles) <= 0) {
+            return;
+        }
+        markInventoryChanged();
+
+        Location effectLocation = getLocation().clone().add(0.5, 1.0, 0.5);
+        if (effectLocation.getWorld() != null) {
+            effectLocation.getWorld().spawnParticle(Particle.SMOKE, effectLocation, 6, 0.2, 0.2, 0.2, 0.01);
+            effectLocation.getWorld().spawnParticle(Particle.FLAME, effectLocation, 2, 0.1, 0.1, 0.1, 0.0);
+        }
+    }
+
+    @Override
+    public void catchUp(long elapsedTicks) {
+        if (elapsedTicks <= 0 || inspect() != ProcessingState.PROCESSING) {
+            return;
+        }
+
+        long total = progressTicks + elapsedTicks;
+        if (runCycles(total / ticksPerCycle) > 0) {
+            progressTicks = (int) (total % ticksPerCycle);
+            markInventoryChanged();
+        }
+    }
+
+    /**
+     * Runs up to {@code cycles} cycles back to back and returns the items smelted. Every
+     * productive cycle uses up input, so this stops long before a large backlog of cycles.
+     */
+    private int runCycles(long cycles) {
+        int processed = 0;
+        for (long cycle = 0; cycle < cycles; cycle++) {
+            int smelted = runCycle();
+            if (smelted <= 0) {
+                break;
+            }
+            processed += smelted;
+        }
+        return processed;
+    }
+
+    /**
+     * Re-reads lanes and upgrades after an inventory change and reports what the machine can do.
+     */
+    private ProcessingState inspect() {
+        checkedVersion = getInventoryVersion();
+        ticksPerCycle = tier.ticksPerCycle(baseTicksPerCycle, countSpeedUpgrades());
+
+        boolean smeltable = false;
+        for (int lane = 0; lane < results.length; lane++) {
+            ItemStack result = recipes[lane].resolve(inventory.getItem(inputSlots[lane]));
+            results[lane] = result;
+            if (result == null) {
+                continue;
+            }
+            smeltable = true;
+            if (inventory.space(outputSlots[lane], result) >= result.getAmount()) {
+                return ProcessingState.PROCESSING;
+            }
+        }
+        return smeltable ? ProcessingState.OUTPUT_BLOCKED : ProcessingState.IDLE;
+    }
+
+    /**
+     * Smelts one batch in every lane that has input, room and energy. Returns the items smelted.
+     */
+    private int runCycle() {
+        int processed = 0;
+        for (int lane = 0; lane < results.length; lane++) {
+            ItemStack result = results[lane];
+            ItemStack input = inventory.getItem(inputSlots[lane]);
+            if (result == null || input == null || input.getType().isAir()) {
+                continue;
+            }
+
+            int count = Math.min(tier.batchSize(), input.getAmount());
+            count = Math.min(count, inventory.space(outputSlots[lane], result) / result.getAmount());
+            if (energyPerItem > 0) {
+                count = (int) Math.min(count, (long) (storedEnergy / energyPerItem));
+            }
+            if (count <= 0) {
+                continue;
+            }
+
+            extractEnergy(count * energyPerItem);
+            inventory.extract(inputSlots[lane], count);
+            inventory.insert(outputSlots[lane], result, count * result.getAmount());
+            processed += count;
+        }
+        return processed;
+    }
+
+    private int countSpeedUpgrades() {
+        int upgrades = 0;
+        for (int slot = UPGRADE_ROW; slot < UPGRADE_ROW + tier.upgradeSlots(); slot++) {
+            ItemStack stack = inventory.getItem(slot);
+            if (stack != null && !stack.getType().isAir() && speedUpgrade.test(stack)) {
+                upgrades++;
+            }
+        }
+        return upgrades;
+    }
+
+    private void enter(ProcessingState next) {
+        state = next;
+        if (next != ProcessingState.WAITING_POWER) {
+            progressTicks = 0;
+        }
+        sleep();
+    }
+
+    public ProcessingState getState() {
+        return state;
+    }
+
+    public ProcessingTier getTier() {
+        return tier;
+    }
+
+    @Override
+    public int getProgressTicks() {
+        return progressTicks;
+    }
+
+    @Override
+    public void setProgressTicks(int progressTicks) {
+        this.progressTicks = Math.max(0, Math.min(progressTicks, baseTicksPerCycle - 1));
+    }
+
+    @Override
+    public MachineInventory getMachineInventory() {
+        return inventory;
+    }
+
+    @Override
+    public double getStoredEnergy() {
+        return storedEnergy;
+    }
+
+    @Override
+    public double getMaxEnergy() {
+        return tier.maxEnergy();
+    }
+
+    @Override
+    public double getMaxEnergyInput() {
+        return tier.maxEnergyInput();
+    }
+
+    @Override
+    public void receiveEnergy(double amount) {
+        if (amount <= 0) {
+            return;
+        }
+        storedEnergy = Math.min(tier.maxEnergy(), storedEnergy + amount);
+        markDirty();
+    }
+
+    @Override
+    public double extractEnergy(double maxAmount) {
+        if (maxAmount <= 0 || storedEnergy <= 0) {
+            return 0;
+        }
+        double extracted = Math.min(maxAmount, storedEnergy);
+        storedEnergy -= extracted;
+        markDirty();
+        return extracted;
+    }
+
+    @Override
+    public boolean canReceive() {
+        return true;
+    }
+
+    @Override
+    public boolean canExtract() {
+        return false;
+    }
+
+    @Override
+    public int[] getInputSlots() {
+        return inputSlots;
+    }
+
+    @Override
+    public int[] getOutputSlots() {
+        return outputSlots;
+    }
+
+    @Override
+    public boolean canAcceptInput(int slot, ItemStack stack) {
+        return slot >= 0 && slot < recipes.length && recipes[slot].accepts(stack);
+    }
+}
@@ -0,0 +1,102 @@
+package me.jackstar.drakestech.manager;
+
+import me.jackstar.drakestech.persistence.MachineRecord;
+import me.jackstar.drakestech.util.LongObjectHashMap;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persisted machines that have not been materialized yet, grouped by world and chunk. Records
+ * stay here until their chunk loads, or for good when their machine id is not registered.
+ */
+final class DormantMachineIndex {
+
+    private final Map<String, LongObjectHashMap<List<MachineRecord>>> worlds = new HashMap<>();
+    private int size;
+
+    void add(MachineRecord record) {
+        LongObjectHashMap<List<MachineRecord>> chunks = worlds.computeIfAbsent(record.worldName(),
+                ignored -> new LongObjectHashMap<>());
+        long chunkKey = MachineRegistry.chunkKey(record.chunkX(), record.chunkZ());
+        List<MachineRecord> chunk = chunks.get(chunkKey);
+        if (chunk == null) {
+            chunk = new ArrayList<>(4);
+            chunks.put(chunkKey, chunk);
+        }
+        chunk.add(record);
+        size++;
+    }
+
+    List<MachineRecord> takeChunk(String worldName, int chunkX, int chunkZ) {
+        LongObjectHashMap<List<MachineRecord>> chunks = worlds.get(worldName);
+        if (chunks == null) {
+            return List.of();
+        }
+        List<MachineRecord> taken = chunks.remove(MachineRegistry.chunkKey(chunkX, chunkZ));
+        if (taken == null) {
+            return List.of();
+        }
+        size -= taken.size();
+        if (chunks.isEmpty()) {
+            worlds.remove(worldName);
+        }
+        return taken;
+    }
+
+    /**
+     * Removes and returns the records of every chunk of {@code world} that is loaded right now.
+     */
+    List<MachineRecord> takeLoaded(World world) {
+        LongObjectHashMap<List<MachineRecord>> chunks = worlds.get(world.getName());
+        if (chunks == null) {
+            return List.of();
+        }
+        List<Long> loaded = new ArrayList<>();
+        chunks.forEach((key, records) -> {
+            if (world.isChunkLoaded((int) key, (int) (key >>> 32))) {
+                loaded.add(key);
+            }
+        });
+        List<MachineRecord> taken = new ArrayList<>();
+        for (long key : loaded) {
+            taken.addAll(chunks.remove(key));
+        }
+        size -= taken.size();
+        if (chunks.isEmpty()) {
+            worlds.remove(world.getName());
+        }
+        return taken;
+    }
+
+    void removeAt(String worldName, int x, int y, int z) {
+        LongObjectHashMap<List<MachineRecord>> chunks = worlds.get(worldName);
+        if (chunks == null) {
+            return;
+        }
+        List<MachineRecord> chunk = chunks.get(MachineRegistry.chunkKey(x >> 4, z >> 4));
+        if (chunk == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            MachineRecord record = chunk.get(i);
+            if (record.x() == x && record.y() == y && record.z() == z) {
+                chunk.remove(i);
+                size--;
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        worlds.clear();
+        size = 0;
+    }
+}
@@ -1,42 +1,63 @@
 package me.jackstar.drakestech.manager;
 
+import me.jackstar.drakestech.cargo.CargoTopology;
 import me.jackstar.drakestech.config.DrakesTechSettings;
 import me.jackstar.drakestech.energy.EnergyNode;
+import me.jackstar.drakestech.energy.EnergyTopology;
 import me.jackstar.drakestech.machines.AbstractMachine;
 import me.jackstar.drakestech.machines.ItemTransportNode;
+import me.jackstar.drakestech.machines.MachineInventory;
 import me.jackstar.drakestech.machines.factory.MachineFactory;
+import me.jackstar.drakestech.machines.impl.NetworkStorageBusMachine;
 import me.jackstar.drakestech.network.TechNetworkService;
+import me.jackstar.drakestech.persistence.MachineJournal;
+import me.jackstar.drakestech.persistence.MachinePersistence;
+import me.jackstar.drakestech.persistence.MachineRecord;
+import me.jackstar.drakestech.persistence.MachineStore;
+import me.jackstar.drakestech.persistence.MachineStoreMigrator;
+import me.jackstar.drakestech.persistence.RegionMachineStore;
+import me.jackstar.drakestech.persistence.YamlMachineStore;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.YamlConfiguration;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 public class MachineManager {
 
-    private static final double MAX_TRANSFER_PER_TICK = 20.0D;
-    private static final long AUTOSAVE_INTERVAL_TICKS = 200L;
+    private static final BlockFace[] ADJACENT_FACES = {
+            BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP, BlockFace.DOWN
+    };
 
     private final JavaPlugin plugin;
     private final MachineFactory machineFactory;
     private final DrakesTechSettings settings;
     private final TechNetworkService networkService;
-    private final Map<Location, AbstractMachine> machines = new ConcurrentHashMap<>();
-    private final File dataFile;
+    private final MachineRegistry registry = new MachineRegistry();
+    private final EnergyTopology energyTopology = new EnergyTopology(registry);
+    private final CargoTopology cargoTopology = new CargoTopology(registry);
+    private final MachineTickScheduler tickScheduler;
+    private final MachinePersistence persistence;
+    private final MachineJournal journal;
+    private final DormantMachineIndex dormantMachines = new DormantMachineIndex();
+    private final StorageBusWatchIndex storageBusTargets = new StorageBusWatchIndex();
+    // Inventory version at which a transport source had nothing in its output slots.
+    private final Map<AbstractMachine, Integer> idleTransportSources = new IdentityHashMap<>();
     private BukkitTask tickTask;
     private long ticksSinceLastSave;
+    private long ticksSinceJournalFlush;
     private long ticksSinceItemTransfer;
     private long ticksSinceNetworkCycle;
 
@@ -44,8 +65,32 @@ public class MachineManager {
         this.plugin = plugin;
         this.machineFactory = machineFactory;
         this.settings = settings;
-        this.networkService = new TechNetworkService(settings);
-        this.dataFile = new File(plugin.getDataFolder(), "drakestech-machines.yml");
+        this.networkService = new TechNetworkService(settings, registry);
+        this.tickScheduler = new MachineTickScheduler(registry, plugin.getLogger());
+        this.persistence = new MachinePersistence(createMachineStore(), plugin.getLogger());
+        if (settings.isMachineJournalEnabled()) {
+            this.journal = new MachineJournal(new File(plugin.getDataFolder(), "journal"),
+                    plugin.getLogger(),
+                    settings.isMachineJournalFsync());
+            persistence.attachJournal(journal);
+            registry.setJournalTracking(true);
+        } else {
+            this.journal = null;
+        }
+    }
+
+    private MachineStore createMachineStore() {
+        File yamlFile = new File(plugin.getDataFolder(), "drakestech-machines.yml");
+        if ("yaml".equals(settings.getMachinePersistenceBackend())) {
+            return new YamlMachineStore(yamlFile, plugin.getLogger());
+        }
+
+        RegionMachineStore store = new RegionMachineStore(new File(plugin.getDataFolder(), "machines"), plugin.getLogger());
+        if (!MachineStoreMigrator.migrateIfNeeded(yamlFile, store, plugin.getLogger())) {
+            plugin.getLogger().warning("Falling back to YAML machine persistence until the migration succeeds.");
+            return new YamlMachineStore(yamlFile, plugin.getLogger());
+        }
+        return store;
     }
 
     public void start() {
@@ -56,24 +101,37 @@ public class MachineManager {
         loadMachines();
         tickTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
             tickMachines();
-            transferEnergyAdjacent();
+            transferEnergy();
             if (settings.isNetworkEnabled()) {
                 ticksSinceNetworkCycle++;
                 if (ticksSinceNetworkCycle >= settings.getNetworkCycleIntervalTicks()) {
-                    networkService.tick(machines.values());
+                    networkService.tick();
                     ticksSinceNetworkCycle = 0L;
                 }
             }
             if (settings.isAutomationItemTransferEnabled()) {
                 ticksSinceItemTransfer++;
                 if (ticksSinceItemTransfer >= settings.getAutomationItemTransferIntervalTicks()) {
-                    transferItemsAdjacent();
+                    if (settings.isAutomationItemTransferAdjacent()) {
+                        transferItemsAdjacent();
+                    } else {
+                        cargoTopology.tick(settings.getAutomationItemTransferMaxItemsPerMove());
+                    }
                     ticksSinceItemTransfer = 0L;
                 }
             }
+            if (journal != null) {
+                ticksSinceJournalFlush++;
+                if (ticksSinceJournalFlush >= settings.getMachineJournalFlushIntervalTicks()) {
+                    journalDirtyMachines();
+                    ticksSinceJournalFlush = 0L;
+                }
+            }
             ticksSinceLastSave++;
-            if (ticksSinceLastSave >= AUTOSAVE_INTERVAL_TICKS) {
-                saveMachines();
+            if (ticksSinceLastSave >= settings.getMachineSaveIntervalTicks()) {
+                journalDirtyMachines();
+                flushDirtyMachines();
+                persistence.flushAsync();
                 ticksSinceLastSave = 0L;
             }
         }, 1L, 1L);
@@ -85,15 +143,29 @@ public class MachineManager {
             tickTask = null;
         }
         networkService.clear();
-        saveMachines();
+        journalDirtyMachines();
+        flushDirtyMachines();
+        persistence.shutdown();
     }
 
     public void reloadMachinesFromDisk() {
+        saveMachines();
         loadMachines();
         networkService.clear();
         ticksSinceLastSave = 0L;
     }
 
+    /**
+     * Rebuilds the placed machines from the in-memory records after machine definitions were
+     * registered or removed, without reading the store again.
+     */
+    public void reloadMachineDefinitions() {
+        journalDirtyMachines();
+        flushDirtyMachines();
+        rebuildMachines(List.copyOf(persistence.getRecords()));
+        networkService.clear();
+    }
+
     public void registerMachine(AbstractMachine machine) {
         registerMachine(machine, true);
     }
@@ -102,124 +174,255 @@ public class MachineManager {
         if (machine == null || machine.getLocation() == null || machine.getLocation().getWorld() == null) {
             return;
         }
-        machines.put(normalize(machine.getLocation()), machine);
+        AbstractMachine replaced = registry.put(machine);
+        if (replaced != null) {
+            energyTopology.remove(replaced);
+            cargoTopology.remove(replaced);
+            idleTransportSources.remove(replaced);
+            networkService.handleMachineRemoved(replaced);
+            if (replaced instanceof NetworkStorageBusMachine storageBus) {
+                storageBusTargets.remove(storageBus);
+            }
+        }
+        if (machine instanceof NetworkStorageBusMachine storageBus) {
+            storageBusTargets.add(storageBus);
+        }
+        energyTopology.add(machine);
+        cargoTopology.add(machine);
+        networkService.handleMachineAdded(machine);
+        wakeNeighbours(machine.getLocation().getBlock());
         if (persist) {
-            saveMachines();
+            Location location = machine.getLocation();
+            dormantMachines.removeAt(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+            machine.markDirty();
+            if (journal != null) {
+                journal.recordPlace(machine);
+            }
         }
     }
 
     public Optional<AbstractMachine> getMachineAt(Location location) {
-        if (location == null || location.getWorld() == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(machines.get(normalize(location)));
+        return Optional.ofNullable(registry.get(location));
+    }
+
+    public Optional<AbstractMachine> getMachineAt(Block block) {
+        return Optional.ofNullable(registry.get(block));
+    }
+
+    public AbstractMachine getMachineAt(World world, int x, int y, int z) {
+        return registry.get(world, x, y, z);
+    }
+
+    public boolean hasMachineAt(Block block) {
+        return registry.get(block) != null;
     }
 
     public Optional<AbstractMachine> removeMachineAt(Location location) {
         if (location == null || location.getWorld() == null) {
             return Optional.empty();
         }
-        AbstractMachine removed = machines.remove(normalize(location));
+        AbstractMachine removed = registry.remove(
+                location.getWorld(),
+                location.getBlockX(),
+                location.getBlockY(),
+                location.getBlockZ());
         if (removed != null) {
-            saveMachines();
+            energyTopology.remove(removed);
+            cargoTopology.remove(removed);
+            idleTransportSources.remove(removed);
+            networkService.handleMachineRemoved(removed);
+            if (removed instanceof NetworkStorageBusMachine storageBus) {
+                storageBusTargets.remove(storageBus);
+            }
+            wakeNeighbours(location.getBlock());
+            persistence.remove(MachineRecord.key(location));
+            if (journal != null) {
+                journal.recordRemove(removed);
+            }
         }
         return Optional.ofNullable(removed);
     }
 
     public Collection<AbstractMachine> getMachines() {
-        return Collections.unmodifiableCollection(machines.values());
+        return registry.getMachines();
     }
 
-    public TechNetworkService getNetworkService() {
-        return networkService;
+    public Collection<AbstractMachine> getActiveMachines() {
+        return registry.getActiveMachines();
     }
 
-    private void tickMachines() {
-        for (AbstractMachine machine : machines.values()) {
+    public void handleChunkLoad(Chunk chunk) {
+        if (dormantMachines.size() > 0) {
+            materialize(dormantMachines.takeChunk(chunk.getWorld().getName(), chunk.getX(), chunk.getZ()));
+        }
+        if (!storageBusTargets.isEmpty()) {
+            storageBusTargets.invalidateChunk(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        }
+        long dormantTicks = registry.markChunkLoaded(chunk.getWorld(), chunk.getX(), chunk.getZ(), Bukkit.getCurrentTick());
+        for (AbstractMachine machine : registry.getChunkMachines(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
+            energyTopology.setActive(machine, true);
+            machine.wake();
+        }
+        if (dormantTicks <= 0L || !settings.isMachineCatchUpEnabled()) {
+            return;
+        }
+
+        long elapsed = Math.min(dormantTicks, settings.getMachineCatchUpMaxTicks());
+        for (AbstractMachine machine : registry.getChunkMachines(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
             try {
-                machine.tick();
+                machine.catchUp(elapsed);
             } catch (Exception ex) {
                 plugin.getLogger().log(Level.WARNING,
-                        "Machine tick failed at " + machine.getLocation() + " (" + machine.getId() + ").", ex);
+                        "Machine catch-up failed at " + machine.getLocation() + " (" + machine.getId() + ").", ex);
             }
         }
     }
 
-    private void transferEnergyAdjacent() {
-        for (AbstractMachine sourceMachine : machines.values()) {
-            if (!(sourceMachine instanceof EnergyNode source) || !source.canExtract() || source.getStoredEnergy() <= 0) {
-                continue;
+    public void handleChunkUnload(Chunk chunk) {
+        registry.markChunkUnloaded(chunk.getWorld(), chunk.getX(), chunk.getZ(), Bukkit.getCurrentTick());
+        for (AbstractMachine machine : registry.getChunkMachines(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
+            energyTopology.setActive(machine, registry.isActive(machine));
+        }
+    }
+
+    public void wakeMachine(AbstractMachine machine) {
+        if (machine != null) {
+            machine.wake();
+        }
+    }
+
+    public void handleInventoryChange(AbstractMachine machine) {
+        if (machine != null) {
+            machine.wake();
+            machine.markInventoryChanged();
+            networkService.handleInventoryChange(machine);
+        }
+    }
+
+    /**
+     * Called for block changes that may add, remove or replace a storage bus target.
+     */
+    public void handleBlockChange(Block block) {
+        if (block != null && !storageBusTargets.isEmpty()) {
+            storageBusTargets.invalidateAt(block.getWorld(), block.getX(), block.getY(), block.getZ());
+        }
+    }
+
+    public void wakeNeighbours(Block block) {
+        if (block == null) {
+            return;
+        }
+        for (BlockFace face : ADJACENT_FACES) {
+            AbstractMachine neighbour = registry.get(block.getWorld(),
+                    block.getX() + face.getModX(),
+                    block.getY() + face.getModY(),
+                    block.getZ() + face.getModZ());
+            if (neighbour != null) {
+                neighbour.wake();
             }
+        }
+    }
 
-            for (BlockFace face : new BlockFace[] {
-                    BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP, BlockFace.DOWN
-            }) {
-                Location adjacent = sourceMachine.getLocation().getBlock().getRelative(face).getLocation();
-                AbstractMachine sinkMachine = machines.get(normalize(adjacent));
-                if (!(sinkMachine instanceof EnergyNode sink) || sinkMachine == sourceMachine || !sink.canReceive()) {
-                    continue;
-                }
+    public List<AbstractMachine> getMachinesInChunk(World world, int chunkX, int chunkZ) {
+        return registry.getChunkMachines(world, chunkX, chunkZ);
+    }
 
-                double space = sink.getMaxEnergy() - sink.getStoredEnergy();
-                if (space <= 0) {
-                    continue;
-                }
+    public MachineRegistry getRegistry() {
+        return registry;
+    }
 
-                double transferRequest = Math.min(MAX_TRANSFER_PER_TICK, Math.min(space, source.getStoredEnergy()));
-                if (transferRequest <= 0) {
-                    continue;
-                }
+    public EnergyTopology getEnergyTopology() {
+        return energyTopology;
+    }
 
-                double extracted = source.extractEnergy(transferRequest);
-                if (extracted <= 0) {
-                    continue;
-                }
+    public CargoTopology getCargoTopology() {
+        return cargoTopology;
+    }
 
-                double before = sink.getStoredEnergy();
-                sink.receiveEnergy(extracted);
-                double accepted = Math.max(0, sink.getStoredEnergy() - before);
-                if (accepted < extracted) {
-                    source.receiveEnergy(extracted - accepted);
-                }
-            }
+    public MachineTickScheduler getTickScheduler() {
+        return tickScheduler;
+    }
+
+    public TechNetworkService getNetworkService() {
+        return networkService;
+    }
+
+    private void tickMachines() {
+        tickScheduler.run(Bukkit.getCurrentTick());
+    }
+
+    private void transferEnergy() {
+        if (!settings.isEnergyGridDistribution()) {
+            energyTopology.transfer(settings.getEnergyMaxTransferPerNode());
+            return;
         }
+        energyTopology.configureGrids(settings.getEnergyDistributionPolicy(), settings.getEnergyMaxTransferPerNode());
+        energyTopology.tickGrids();
     }
 
+    /**
+     * Legacy transport: every face of every transport node, both ways, every interval.
+     */
     private void transferItemsAdjacent() {
         int maxItemsPerMove = Math.max(1, settings.getAutomationItemTransferMaxItemsPerMove());
-        for (AbstractMachine sourceMachine : machines.values()) {
+        List<AbstractMachine> machines = registry.getActiveMachines();
+        for (int i = 0; i < machines.size(); i++) {
+            AbstractMachine sourceMachine = machines.get(i);
             if (!(sourceMachine instanceof ItemTransportNode sourceNode)) {
                 continue;
             }
 
-            Inventory sourceInventory = sourceMachine.getInventory();
+            MachineInventory sourceInventory = sourceMachine.getMachineInventory();
             if (sourceInventory == null) {
                 continue;
             }
+            Integer idleVersion = idleTransportSources.get(sourceMachine);
+            if (idleVersion != null && idleVersion == sourceMachine.getInventoryVersion()) {
+                continue;
+            }
+            if (!hasOutput(sourceNode, sourceInventory)) {
+                idleTransportSources.put(sourceMachine, sourceMachine.getInventoryVersion());
+                continue;
+            }
 
-            for (BlockFace face : new BlockFace[] {
-                    BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST, BlockFace.UP, BlockFace.DOWN
-            }) {
-                Location adjacent = sourceMachine.getLocation().getBlock().getRelative(face).getLocation();
-                AbstractMachine sinkMachine = machines.get(normalize(adjacent));
+            for (BlockFace face : ADJACENT_FACES) {
+                AbstractMachine sinkMachine = registry.getActiveRelative(sourceMachine, face.getModX(), face.getModY(), face.getModZ());
                 if (sinkMachine == null || sinkMachine == sourceMachine || !(sinkMachine instanceof ItemTransportNode sinkNode)) {
                     continue;
                 }
 
-                Inventory sinkInventory = sinkMachine.getInventory();
+                MachineInventory sinkInventory = sinkMachine.getMachineInventory();
                 if (sinkInventory == null) {
                     continue;
                 }
 
-                moveItems(sourceNode, sourceInventory, sinkNode, sinkInventory, maxItemsPerMove);
+                if (moveItems(sourceNode, sourceInventory, sinkNode, sinkInventory, maxItemsPerMove) > 0) {
+                    sourceMachine.wake();
+                    sinkMachine.wake();
+                    sourceMachine.markInventoryChanged();
+                    sinkMachine.markInventoryChanged();
+                }
             }
         }
     }
 
-    private void moveItems(ItemTransportNode sourceNode,
-            Inventory sourceInventory,
+    private static boolean hasOutput(ItemTransportNode node, MachineInventory inventory) {
+        for (int slot : node.getOutputSlots()) {
+            if (slot < 0 || slot >= inventory.getSize()) {
+                continue;
+            }
+            ItemStack stack = inventory.getItem(slot);
+            if (stack != null && !stack.getType().isAir()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int moveItems(ItemTransportNode sourceNode,
+            MachineInventory sourceInventory,
             ItemTransportNode sinkNode,
-            Inventory sinkInventory,
+            MachineInventory sinkInventory,
             int maxItemsPerMove) {
         int remaining = maxItemsPerMove;
         for (int sourceSlot : sourceNode.getOutputSlots()) {
@@ -280,127 +483,151 @@ public class MachineManager {
                 }
             }
         }
-    }
-
-    private Location normalize(Location location) {
-        return new Location(
-                location.getWorld(),
-                location.getBlockX(),
-                location.getBlockY(),
-                location.getBlockZ());
+        return maxItemsPerMove - remaining;
     }
 
     private void loadMachines() {
-        machines.clear();
+        List<MachineRecord> records = persistence.load();
+        if (persistence.hasChanges()) {
+            // Journal replay recovered changes the store has not seen yet; checkpoint them now.
+            persistence.flushAsync();
+        }
+        rebuildMachines(records);
+    }
 
-        if (!dataFile.exists()) {
-            return;
+    /**
+     * Replaces the placed machines with {@code records}. With chunk-aware ticking only machines
+     * in loaded chunks are created; the rest stay dormant records until their chunk loads.
+     */
+    private void rebuildMachines(List<MachineRecord> records) {
+        registry.clear();
+        energyTopology.clear();
+        cargoTopology.clear();
+        idleTransportSources.clear();
+        networkService.clear();
+        dormantMachines.clear();
+        storageBusTargets.clear();
+        registry.setChunkAware(settings.isMachineChunkAwareTicking());
+        tickScheduler.configure(settings.getMachineTickBudgetMillis(), settings.getMachineMaxElapsedTicks());
+        tickScheduler.reset();
+        if (journal != null) {
+            journal.forgetAll();
         }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(dataFile);
-        ConfigurationSection machinesSection = config.getConfigurationSection("machines");
-        if (machinesSection == null) {
+        if (!registry.isChunkAware()) {
+            materialize(records);
             return;
         }
+        for (MachineRecord record : records) {
+            dormantMachines.add(record);
+        }
+        for (World world : plugin.getServer().getWorlds()) {
+            materialize(dormantMachines.takeLoaded(world));
+        }
+    }
 
-        for (String key : machinesSection.getKeys(false)) {
+    /**
+     * Creates and registers machines from records. Records whose world or machine id is not
+     * available yet go back to the dormant index and are retried on the next chunk load.
+     */
+    private void materialize(List<MachineRecord> records) {
+        for (int i = 0; i < records.size(); i++) {
+            MachineRecord record = records.get(i);
             try {
-                ConfigurationSection section = machinesSection.getConfigurationSection(key);
-                if (section == null) {
+                World world = plugin.getServer().getWorld(record.worldName());
+                if (world == null) {
+                    dormantMachines.add(record);
                     continue;
                 }
 
-                String machineId = section.getString("id");
-                String worldName = section.getString("world");
-                World world = worldName == null ? null : plugin.getServer().getWorld(worldName);
-                if (machineId == null || world == null) {
-                    continue;
-                }
-
-                int x = section.getInt("x");
-                int y = section.getInt("y");
-                int z = section.getInt("z");
-                Location location = new Location(world, x, y, z);
-
-                AbstractMachine machine = machineFactory.createMachine(machineId, location).orElse(null);
+                Location location = new Location(world, record.x(), record.y(), record.z());
+                AbstractMachine machine = machineFactory.createMachine(record.machineId(), location).orElse(null);
                 if (machine == null) {
+                    dormantMachines.add(record);
                     continue;
                 }
 
                 if (machine instanceof EnergyNode energyNode) {
-                    double savedEnergy = Math.max(0.0D, section.getDouble("energy", 0.0D));
-                    energyNode.receiveEnergy(Math.min(savedEnergy, energyNode.getMaxEnergy()));
+                    energyNode.receiveEnergy(Math.min(record.energy(), energyNode.getMaxEnergy()));
+                }
+                machine.setProgressTicks(record.progress());
+                if (record.data() != null) {
+                    machine.setPersistentData(record.data());
                 }
 
-                Inventory inventory = machine.getInventory();
-                ConfigurationSection invSection = section.getConfigurationSection("inventory");
-                if (inventory != null && invSection != null) {
-                    for (String slotKey : invSection.getKeys(false)) {
-                        int slot;
-                        try {
-                            slot = Integer.parseInt(slotKey);
-                        } catch (NumberFormatException ignored) {
-                            continue;
-                        }
-                        if (slot < 0 || slot >= inventory.getSize()) {
-                            continue;
-                        }
-                        ItemStack stack = invSection.getItemStack(slotKey);
-                        if (stack != null && !stack.getType().isAir()) {
-                            inventory.setItem(slot, stack);
+                MachineInventory inventory = machine.getMachineInventory();
+                if (inventory != null) {
+                    for (Map.Entry<Integer, ItemStack> item : record.items().entrySet()) {
+                        int slot = item.getKey();
+                        if (slot >= 0 && slot < inventory.getSize()) {
+                            inventory.setItem(slot, item.getValue().clone());
                         }
                     }
                 }
 
+                machine.clearDirty();
                 registerMachine(machine, false);
             } catch (Exception ex) {
-                plugin.getLogger().log(Level.WARNING, "Failed to load machine entry '" + key + "'.", ex);
+                plugin.getLogger().log(Level.WARNING, "Failed to load machine entry '" + record.key() + "'.", ex);
             }
         }
     }
 
+    /**
+     * Writes every pending change to disk and waits for it. Regular saves go through the
+     * autosave interval instead.
+     */
     public void saveMachines() {
-        try {
-            if (!plugin.getDataFolder().exists() && !plugin.getDataFolder().mkdirs()) {
-                plugin.getLogger().warning("Could not create plugin data folder for DrakesTech persistence.");
-                return;
-            }
+        journalDirtyMachines();
+        flushDirtyMachines();
+        persistence.flushSync();
+    }
 
-            YamlConfiguration config = new YamlConfiguration();
-            int index = 0;
-            for (AbstractMachine machine : machines.values()) {
-                String path = "machines." + index;
-                Location location = machine.getLocation();
-                if (location == null || location.getWorld() == null) {
-                    continue;
-                }
+    public int getDirtyMachineCount() {
+        return registry.getDirtyCount();
+    }
 
-                config.set(path + ".id", machine.getId());
-                config.set(path + ".world", location.getWorld().getName());
-                config.set(path + ".x", location.getBlockX());
-                config.set(path + ".y", location.getBlockY());
-                config.set(path + ".z", location.getBlockZ());
+    public int getDormantMachineCount() {
+        return dormantMachines.size();
+    }
 
-                if (machine instanceof EnergyNode energyNode) {
-                    config.set(path + ".energy", energyNode.getStoredEnergy());
-                }
+    public long getJournalEntryCount() {
+        return journal == null ? -1L : journal.getPendingEntries();
+    }
 
-                Inventory inventory = machine.getInventory();
-                if (inventory != null) {
-                    for (int slot = 0; slot < inventory.getSize(); slot++) {
-                        ItemStack stack = inventory.getItem(slot);
-                        if (stack == null || stack.getType().isAir()) {
-                            continue;
-                        }
-                        config.set(path + ".inventory." + slot, stack);
-                    }
-                }
-                index++;
+    private void journalDirtyMachines() {
+        if (journal == null) {
+            return;
+        }
+        List<AbstractMachine> dirty = registry.drainJournalDirty();
+        for (int i = 0; i < dirty.size(); i++) {
+            AbstractMachine machine = dirty.get(i);
+            machine.clearDirty();
+            try {
+                journal.recordChanges(machine);
+            } catch (Exception ex) {
+                plugin.getLogger().log(Level.WARNING,
+                        "Failed to journal machine at " + machine.getLocation() + " (" + machine.getId() + ").", ex);
             }
+        }
+        journal.flush(persistence.getWriterExecutor());
+    }
 
-            config.save(dataFile);
-        } catch (Exception ex) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to save DrakesTech machines.", ex);
+    private void flushDirtyMachines() {
+        List<AbstractMachine> dirty = registry.drainDirty();
+        for (int i = 0; i < dirty.size(); i++) {
+            AbstractMachine machine = dirty.get(i);
+            machine.clearDirty();
+            Location location = machine.getLocation();
+            if (registry.get(location) != machine) {
+                continue;
+            }
+            try {
+                persistence.put(MachineRecord.capture(machine));
+            } catch (Exception ex) {
+                plugin.getLogger().log(Level.WARNING,
+                        "Failed to snapshot machine at " + location + " (" + machine.getId() + ").", ex);
+            }
         }
     }
 }
@@ -0,0 +1,523 @@
+package me.jackstar.drakestech.manager;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+import me.jackstar.drakestech.machines.MachineStateListener;
+import me.jackstar.drakestech.util.LongObjectHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Placed machine index: world UUID -> packed chunk key -> packed block key.
+ * Lookups by coordinates are allocation-free. Machines in loaded chunks form the active
+ * set; active machines that are awake and not event-driven form the ticking set that the
+ * scheduler walks. Main thread only.
+ */
+public class MachineRegistry {
+
+    private final Map<UUID, WorldIndex> worlds = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Entry> activeEntries = new ArrayList<>();
+    private final List<Entry> tickingEntries = new ArrayList<>();
+    private List<Entry> dirtyEntries = new ArrayList<>();
+    private List<Entry> journalEntries = new ArrayList<>();
+    private boolean journalTracking;
+    private final MachineStateListener stateListener = new MachineStateListener() {
+        @Override
+        public void onSleepStateChanged(AbstractMachine machine, boolean sleeping) {
+            MachineRegistry.this.onSleepStateChanged(machine, sleeping);
+        }
+
+        @Override
+        public void onMarkedDirty(AbstractMachine machine, boolean journaled) {
+            Entry entry = entryOf(machine);
+            if (entry != null) {
+                queueDirty(entry, journaled);
+            }
+        }
+    };
+    private final List<AbstractMachine> machinesView = machineView(entries);
+    private final List<AbstractMachine> activeView = machineView(activeEntries);
+
+    private boolean chunkAware = true;
+    private UUID cachedWorldId;
+    private WorldIndex cachedWorld;
+
+    public AbstractMachine put(AbstractMachine machine) {
+        Location location = machine.getLocation();
+        World world = location.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        AbstractMachine previous = get(world, x, y, z);
+        if (previous == machine) {
+            return null;
+        }
+        if (previous != null) {
+            remove(world, x, y, z);
+        }
+
+        WorldIndex worldIndex = worldIndex(world, true);
+        long chunkKey = chunkKey(x >> 4, z >> 4);
+        ChunkBucket bucket = worldIndex.chunks.get(chunkKey);
+        if (bucket == null) {
+            bucket = new ChunkBucket(world.getUID(), x >> 4, z >> 4);
+            bucket.loaded = !chunkAware || world.isChunkLoaded(x >> 4, z >> 4);
+            worldIndex.chunks.put(chunkKey, bucket);
+        }
+
+        long blockKey = blockKey(x, y, z);
+        Entry entry = new Entry(machine, blockKey, machine.getTickClass().interval());
+        machine.setStateListener(stateListener);
+        bucket.byPosition.put(blockKey, entry);
+        bucket.entries.add(entry);
+        entry.index = entries.size();
+        entries.add(entry);
+        if (machine.isDirty()) {
+            queueDirty(entry, true);
+        }
+        if (bucket.loaded) {
+            activate(entry);
+        }
+        return previous;
+    }
+
+    public AbstractMachine get(World world, int x, int y, int z) {
+        ChunkBucket bucket = bucket(world, x >> 4, z >> 4);
+        if (bucket == null) {
+            return null;
+        }
+        Entry entry = bucket.byPosition.get(blockKey(x, y, z));
+        return entry == null ? null : entry.machine;
+    }
+
+    public AbstractMachine getActive(World world, int x, int y, int z) {
+        ChunkBucket bucket = bucket(world, x >> 4, z >> 4);
+        if (bucket == null || !bucket.loaded) {
+            return null;
+        }
+        Entry entry = bucket.byPosition.get(blockKey(x, y, z));
+        return entry == null ? null : entry.machine;
+    }
+
+    public AbstractMachine get(Location location) {
+        if (location == null || location.getWorld() == null) {
+            return null;
+        }
+        return get(location.getWorld(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public AbstractMachine get(Block block) {
+        if (block == null) {
+            return null;
+        }
+        return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    public AbstractMachine getRelative(AbstractMachine machine, int dx, int dy, int dz) {
+        Location location = machine.getLocation();
+        return get(location.getWorld(), location.getBlockX() + dx, location.getBlockY() + dy, location.getBlockZ() + dz);
+    }
+
+    public AbstractMachine getActiveRelative(AbstractMachine machine, int dx, int dy, int dz) {
+        Location location = machine.getLocation();
+        return getActive(location.getWorld(), location.getBlockX() + dx, location.getBlockY() + dy, location.getBlockZ() + dz);
+    }
+
+    public boolean isActive(AbstractMachine machine) {
+        Location location = machine.getLocation();
+        ChunkBucket bucket = bucket(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        return bucket != null && bucket.loaded;
+    }
+
+    public AbstractMachine remove(World world, int x, int y, int z) {
+        ChunkBucket bucket = bucket(world, x >> 4, z >> 4);
+        if (bucket == null) {
+            return null;
+        }
+        Entry entry = bucket.byPosition.get(blockKey(x, y, z));
+        if (entry == null) {
+            return null;
+        }
+        unlink(bucket, entry);
+        return entry.machine;
+    }
+
+    public List<AbstractMachine> getChunkMachines(World world, int chunkX, int chunkZ) {
+        ChunkBucket bucket = bucket(world, chunkX, chunkZ);
+        return bucket == null ? List.of() : bucket.machinesView;
+    }
+
+    public List<AbstractMachine> getMachines() {
+        return machinesView;
+    }
+
+    public List<AbstractMachine> getActiveMachines() {
+        return activeView;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int activeSize() {
+        return activeEntries.size();
+    }
+
+    /**
+     * Marks a chunk as loaded and returns how many ticks its machines were dormant,
+     * or -1 when the chunk holds no machines or was already active.
+     */
+    public long markChunkLoaded(World world, int chunkX, int chunkZ, long currentTick) {
+        ChunkBucket bucket = bucket(world, chunkX, chunkZ);
+        if (bucket == null || bucket.loaded) {
+            return -1L;
+        }
+        bucket.loaded = true;
+        for (Entry entry : bucket.entries) {
+            activate(entry);
+        }
+        return bucket.dormantSinceTick < 0L ? -1L : Math.max(0L, currentTick - bucket.dormantSinceTick);
+    }
+
+    public void markChunkUnloaded(World world, int chunkX, int chunkZ, long currentTick) {
+        if (!chunkAware) {
+            return;
+        }
+        ChunkBucket bucket = bucket(world, chunkX, chunkZ);
+        if (bucket == null || !bucket.loaded) {
+            return;
+        }
+        bucket.loaded = false;
+        bucket.dormantSinceTick = currentTick;
+        for (Entry entry : bucket.entries) {
+            deactivate(entry);
+        }
+    }
+
+    public void setChunkAware(boolean chunkAware) {
+        this.chunkAware = chunkAware;
+        for (Map.Entry<UUID, WorldIndex> worldEntry : worlds.entrySet()) {
+            World world = Bukkit.getWorld(worldEntry.getKey());
+            worldEntry.getValue().chunks.forEachValue(bucket -> {
+                boolean loaded = !chunkAware || (world != null && world.isChunkLoaded(bucket.chunkX, bucket.chunkZ));
+                if (loaded == bucket.loaded) {
+                    return;
+                }
+                bucket.loaded = loaded;
+                bucket.dormantSinceTick = -1L;
+                for (Entry entry : bucket.entries) {
+                    if (loaded) {
+                        activate(entry);
+                    } else {
+                        deactivate(entry);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the machines marked dirty since the last call and starts a new batch.
+     */
+    public List<AbstractMachine> drainDirty() {
+        List<Entry> drained = dirtyEntries;
+        dirtyEntries = new ArrayList<>(Math.max(16, drained.size()));
+        List<AbstractMachine> machines = new ArrayList<>(drained.size());
+        for (Entry entry : drained) {
+            entry.saveQueued = false;
+            if (entry.index >= 0) {
+                machines.add(entry.machine);
+            }
+        }
+        return machines;
+    }
+
+    /**
+     * Same as {@link #drainDirty()} but for the journal, which drains every few ticks
+     * independently of saves. Only tracked while journal tracking is enabled.
+     */
+    public List<AbstractMachine> drainJournalDirty() {
+        List<Entry> drained = journalEntries;
+        journalEntries = new ArrayList<>(Math.max(16, drained.size()));
+        List<AbstractMachine> machines = new ArrayList<>(drained.size());
+        for (Entry entry : drained) {
+            entry.journalQueued = false;
+            if (entry.index >= 0) {
+                machines.add(entry.machine);
+            }
+        }
+        return machines;
+    }
+
+    public void setJournalTracking(boolean journalTracking) {
+        this.journalTracking = journalTracking;
+        if (!journalTracking) {
+            for (Entry entry : journalEntries) {
+                entry.journalQueued = false;
+            }
+            journalEntries.clear();
+        }
+    }
+
+    public int getDirtyCount() {
+        return dirtyEntries.size();
+    }
+
+    public int tickingSize() {
+        return tickingEntries.size();
+    }
+
+    AbstractMachine getTickingAt(int index) {
+        return tickingEntries.get(index).machine;
+    }
+
+    int getTickInterval(int tickingIndex) {
+        return tickingEntries.get(tickingIndex).tickInterval;
+    }
+
+    long getLastTicked(int tickingIndex) {
+        return tickingEntries.get(tickingIndex).lastTicked;
+    }
+
+    void setLastTicked(int tickingIndex, long tick) {
+        tickingEntries.get(tickingIndex).lastTicked = tick;
+    }
+
+    public boolean isChunkAware() {
+        return chunkAware;
+    }
+
+    public int getChunkCount() {
+        int count = 0;
+        for (WorldIndex worldIndex : worlds.values()) {
+            count += worldIndex.chunks.size();
+        }
+        return count;
+    }
+
+    public void clear() {
+        worlds.clear();
+        for (Entry entry : entries) {
+            entry.machine.setStateListener(null);
+        }
+        dirtyEntries.clear();
+        journalEntries.clear();
+        entries.clear();
+        activeEntries.clear();
+        tickingEntries.clear();
+        cachedWorldId = null;
+        cachedWorld = null;
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX & 0xFFFFFFFFL) | (((long) chunkZ & 0xFFFFFFFFL) << 32);
+    }
+
+    public static long blockKey(int x, int y, int z) {
+        return (((long) x & 0x3FFFFFFL) << 38) | (((long) z & 0x3FFFFFFL) << 12) | ((long) y & 0xFFFL);
+    }
+
+    public static int blockKeyX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int blockKeyY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int blockKeyZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    private void unlink(ChunkBucket bucket, Entry entry) {
+        bucket.byPosition.remove(entry.blockKey);
+        bucket.entries.remove(entry);
+        deactivate(entry);
+        entry.machine.setStateListener(null);
+
+        int last = entries.size() - 1;
+        Entry moved = entries.get(last);
+        entries.set(entry.index, moved);
+        moved.index = entry.index;
+        entries.remove(last);
+        entry.index = -1;
+
+        if (bucket.byPosition.isEmpty()) {
+            WorldIndex worldIndex = worlds.get(bucket.worldId);
+            if (worldIndex != null) {
+                worldIndex.chunks.remove(chunkKey(bucket.chunkX, bucket.chunkZ));
+                if (worldIndex.chunks.isEmpty()) {
+                    worlds.remove(bucket.worldId);
+                    if (worldIndex == cachedWorld) {
+                        cachedWorldId = null;
+                        cachedWorld = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private void activate(Entry entry) {
+        if (entry.activeIndex >= 0) {
+            return;
+        }
+        entry.activeIndex = activeEntries.size();
+        activeEntries.add(entry);
+        schedule(entry);
+    }
+
+    private void deactivate(Entry entry) {
+        if (entry.activeIndex < 0) {
+            return;
+        }
+        int last = activeEntries.size() - 1;
+        Entry moved = activeEntries.get(last);
+        activeEntries.set(entry.activeIndex, moved);
+        moved.activeIndex = entry.activeIndex;
+        activeEntries.remove(last);
+        entry.activeIndex = -1;
+        unschedule(entry);
+    }
+
+    private Entry entryOf(AbstractMachine machine) {
+        Location location = machine.getLocation();
+        ChunkBucket bucket = bucket(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        Entry entry = bucket == null ? null : bucket.byPosition.get(blockKey(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+        return entry == null || entry.machine != machine ? null : entry;
+    }
+
+    private void queueDirty(Entry entry, boolean journaled) {
+        if (!entry.saveQueued) {
+            entry.saveQueued = true;
+            dirtyEntries.add(entry);
+        }
+        if (journaled && journalTracking && !entry.journalQueued) {
+            entry.journalQueued = true;
+            journalEntries.add(entry);
+        }
+    }
+
+    private void onSleepStateChanged(AbstractMachine machine, boolean sleeping) {
+        Entry entry = entryOf(machine);
+        if (entry == null) {
+            return;
+        }
+        if (sleeping) {
+            unschedule(entry);
+        } else if (entry.activeIndex >= 0) {
+            schedule(entry);
+        }
+    }
+
+    private void schedule(Entry entry) {
+        if (entry.tickIndex >= 0 || entry.tickInterval == 0 || entry.machine.isSleeping()) {
+            return;
+        }
+        entry.tickIndex = tickingEntries.size();
+        entry.lastTicked = -1L;
+        tickingEntries.add(entry);
+    }
+
+    private void unschedule(Entry entry) {
+        if (entry.tickIndex < 0) {
+            return;
+        }
+        int last = tickingEntries.size() - 1;
+        Entry moved = tickingEntries.get(last);
+        tickingEntries.set(entry.tickIndex, moved);
+        moved.tickIndex = entry.tickIndex;
+        tickingEntries.remove(last);
+        entry.tickIndex = -1;
+    }
+
+    private static List<AbstractMachine> machineView(List<Entry> source) {
+        return Collections.unmodifiableList(new AbstractList<>() {
+            @Override
+            public AbstractMachine get(int index) {
+                return source.get(index).machine;
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        });
+    }
+
+    private ChunkBucket bucket(World world, int chunkX, int chunkZ) {
+        WorldIndex worldIndex = worldIndex(world, false);
+        return worldIndex == null ? null : worldIndex.chunks.get(chunkKey(chunkX, chunkZ));
+    }
+
+    private WorldIndex worldIndex(World world, boolean create) {
+        if (world == null) {
+            return null;
+        }
+        UUID worldId = world.getUID();
+        if (worldId.equals(cachedWorldId)) {
+            return cachedWorld;
+        }
+
+        WorldIndex worldIndex = worlds.get(worldId);
+        if (worldIndex == null) {
+            if (!create) {
+                return null;
+            }
+            worldIndex = new WorldIndex();
+            worlds.put(worldId, worldIndex);
+        }
+        cachedWorldId = worldId;
+        cachedWorld = worldIndex;
+        return worldIndex;
+    }
+
+    private static final class WorldIndex {
+        private final LongObjectHashMap<ChunkBucket> chunks = new LongObjectHashMap<>();
+    }
+
+    private static final class ChunkBucket {
+        private final UUID worldId;
+        private final int chunkX;
+        private final int chunkZ;
+        private final LongObjectHashMap<Entry> byPosition = new LongObjectHashMap<>();
+        private final List<Entry> entries = new ArrayList<>(4);
+        private final List<AbstractMachine> machinesView = machineView(entries);
+        private boolean loaded;
+        private long dormantSinceTick = -1L;
+
+        private ChunkBucket(UUID worldId, int chunkX, int chunkZ) {
+            this.worldId = worldId;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    private static final class Entry {
+        private final AbstractMachine machine;
+        private final long blockKey;
+        private final int tickInterval;
+        private int index;
+        private int activeIndex = -1;
+        private int tickIndex = -1;
+        private long lastTicked = -1L;
+        private boolean saveQueued;
+        private boolean journalQueued;
+
+        private Entry(AbstractMachine machine, long blockKey, int tickInterval) {
+            this.machine = machine;
+            this.blockKey = blockKey;
+            this.tickInterval = tickInterval;
+        }
+    }
+}
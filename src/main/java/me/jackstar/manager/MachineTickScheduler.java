@@ -0,0 +1,120 @@
+package me.jackstar.drakestech.manager;
+
+import me.jackstar.drakestech.machines.AbstractMachine;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Round-robin machine ticking under a per-server-tick time budget. Machines that were not
+ * reached in time keep their place in the queue and are advanced by the ticks they missed
+ * on their next turn, so throughput per real second stays the same under load. Only the
+ * registry's ticking set is walked: sleeping and event-driven machines are never visited.
+ */
+public class MachineTickScheduler {
+
+    private final MachineRegistry registry;
+    private final Logger logger;
+
+    private long budgetNanos;
+    private int maxElapsedTicks = 20;
+    private int cursor;
+
+    private int lastTickedCount;
+    private int lastPendingCount;
+    private long lastMaxLagTicks;
+    private long lastRunNanos;
+
+    public MachineTickScheduler(MachineRegistry registry, Logger logger) {
+        this.registry = registry;
+        this.logger = logger;
+    }
+
+    public void configure(double budgetMillis, int maxElapsedTicks) {
+        this.budgetNanos = budgetMillis <= 0.0D ? 0L : (long) (budgetMillis * 1_000_000.0D);
+        this.maxElapsedTicks = Math.max(1, maxElapsedTicks);
+    }
+
+    public void run(long currentTick) {
+        int due = registry.tickingSize();
+        if (due == 0) {
+            reset();
+            return;
+        }
+
+        long start = System.nanoTime();
+        int ticked = 0;
+        int visited = 0;
+        long maxLag = 0L;
+        while (visited < due) {
+            if (budgetNanos > 0L && ticked > 0 && System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+            // Machines may fall asleep while ticking, which shrinks the list under the cursor.
+            int size = registry.tickingSize();
+            if (size == 0) {
+                break;
+            }
+            if (cursor >= size) {
+                cursor = 0;
+            }
+
+            int index = cursor;
+            cursor = cursor + 1 >= size ? 0 : cursor + 1;
+            visited++;
+
+            long last = registry.getLastTicked(index);
+            int interval = registry.getTickInterval(index);
+            if (last >= 0L && currentTick - last < interval) {
+                continue;
+            }
+            long elapsed = last < 0L ? 1L : Math.max(1L, currentTick - last);
+            maxLag = Math.max(maxLag, elapsed - interval);
+            registry.setLastTicked(index, currentTick);
+
+            AbstractMachine machine = registry.getTickingAt(index);
+            try {
+                machine.tick((int) Math.min(elapsed, Math.max(maxElapsedTicks, interval)));
+            } catch (Exception ex) {
+                logger.log(Level.WARNING,
+                        "Machine tick failed at " + machine.getLocation() + " (" + machine.getId() + ").", ex);
+            }
+            ticked++;
+        }
+
+        lastTickedCount = ticked;
+        lastPendingCount = Math.max(0, due - visited);
+        lastMaxLagTicks = maxLag;
+        lastRunNanos = System.nanoTime() - start;
+    }
+
+    public void reset() {
+        cursor = 0;
+        lastTickedCount = 0;
+        lastPendingCount = 0;
+        lastMaxLagTicks = 0L;
+        lastRunNanos = 0L;
+    }
+
+    public int getLastTickedCount() {
+        return lastTickedCount;
+    }
+
+    /**
+     * Machines that were due in the last server tick but did not fit in the budget.
+     */
+    public int getLastPendingCount() {
+        return lastPendingCount;
+    }
+
+    /**
+     * Largest number of server ticks a machine waited beyond its tick interval in the last run.
+     */
+    public long getLastMaxLagTicks() {
+        return lastMaxLagTicks;
+    }
+
+    public long getLastRunNanos() {
+        return lastRunNanos;
+    }
+}
@@ -0,0 +1,119 @@
+package me.jackstar.drakestech.manager;
+
+import me.jackstar.drakestech.machines.impl.NetworkStorageBusMachine;
+import me.jackstar.drakestech.util.LongObjectHashMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The six neighbour positions of every storage bus, so a block change can drop the cached
+ * target of exactly the buses next to it with one lookup.
+ */
+final class StorageBusWatchIndex {
+
+    private static final BlockFace[] ADJACENT_FACES = {
+            BlockFace.NORTH,
+            BlockFace.EAST,
+            BlockFace.SOUTH,
+            BlockFace.WEST,
+            BlockFace.UP,
+            BlockFace.DOWN
+    };
+
+    private final Map<String, LongObjectHashMap<List<NetworkStorageBusMachine>>> worlds = new HashMap<>();
+    private final Map<String, List<NetworkStorageBusMachine>> buses = new HashMap<>();
+
+    void add(NetworkStorageBusMachine bus) {
+        Location location = bus.getLocation();
+        String worldName = location.getWorld().getName();
+        LongObjectHashMap<List<NetworkStorageBusMachine>> watched = worlds.computeIfAbsent(worldName,
+                ignored -> new LongObjectHashMap<>());
+        for (BlockFace face : ADJACENT_FACES) {
+            long key = MachineRegistry.blockKey(location.getBlockX() + face.getModX(),
+                    location.getBlockY() + face.getModY(),
+                    location.getBlockZ() + face.getModZ());
+            List<NetworkStorageBusMachine> list = watched.get(key);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                watched.put(key, list);
+            }
+            list.add(bus);
+        }
+        buses.computeIfAbsent(worldName, ignored -> new ArrayList<>()).add(bus);
+    }
+
+    void remove(NetworkStorageBusMachine bus) {
+        Location location = bus.getLocation();
+        String worldName = location.getWorld().getName();
+        LongObjectHashMap<List<NetworkStorageBusMachine>> watched = worlds.get(worldName);
+        if (watched == null) {
+            return;
+        }
+        for (BlockFace face : ADJACENT_FACES) {
+            long key = MachineRegistry.blockKey(location.getBlockX() + face.getModX(),
+                    location.getBlockY() + face.getModY(),
+                    location.getBlockZ() + face.getModZ());
+            List<NetworkStorageBusMachine> list = watched.get(key);
+            if (list != null && list.remove(bus) && list.isEmpty()) {
+                watched.remove(key);
+            }
+        }
+        if (watched.isEmpty()) {
+            worlds.remove(worldName);
+        }
+        List<NetworkStorageBusMachine> worldBuses = buses.get(worldName);
+        if (worldBuses != null && worldBuses.remove(bus) && worldBuses.isEmpty()) {
+            buses.remove(worldName);
+        }
+    }
+
+    /**
+     * Drops the cached target of every bus next to the changed block and returns them.
+     */
+    List<NetworkStorageBusMachine> invalidateAt(World world, int x, int y, int z) {
+        LongObjectHashMap<List<NetworkStorageBusMachine>> watched = worlds.get(world.getName());
+        List<NetworkStorageBusMachine> list = watched == null ? null : watched.get(MachineRegistry.blockKey(x, y, z));
+        if (list == null) {
+            return List.of();
+        }
+        for (NetworkStorageBusMachine bus : list) {
+            bus.invalidateTarget();
+        }
+        return list;
+    }
+
+    /**
+     * Drops the cached target of every bus that may look into a freshly loaded chunk; its block
+     * entities are new objects.
+     */
+    void invalidateChunk(World world, int chunkX, int chunkZ) {
+        List<NetworkStorageBusMachine> worldBuses = buses.get(world.getName());
+        if (worldBuses == null) {
+            return;
+        }
+        int minX = (chunkX << 4) - 1;
+        int minZ = (chunkZ << 4) - 1;
+        for (NetworkStorageBusMachine bus : worldBuses) {
+            int x = bus.getLocation().getBlockX();
+            int z = bus.getLocation().getBlockZ();
+            if (x >= minX && x <= minX + 17 && z >= minZ && z <= minZ + 17) {
+                bus.invalidateTarget();
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return buses.isEmpty();
+    }
+
+    void clear() {
+        worlds.clear();
+        buses.clear();
+    }
+}